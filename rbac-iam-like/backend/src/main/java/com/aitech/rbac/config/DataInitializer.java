@@ -16,6 +16,7 @@ public class DataInitializer {
         @Bean
         public CommandLineRunner initData(UserMapper userMapper,
                         RoleMapper roleMapper,
+                        RoleHierarchyMapper roleHierarchyMapper,
                         PermissionMapper permissionMapper,
                         NamespaceMapper namespaceMapper,
                         ActionTypeMapper actionTypeMapper,
@@ -130,19 +131,19 @@ public class DataInitializer {
                                         hrNs.getNamespaceId(), allAct.getActionTypeId());
 
                         // 6. Create Roles
-                        Role superAdminRole = createRole(roleMapper, "Super Administrator", "ADMIN",
+                        Role superAdminRole = createRole(roleMapper, roleHierarchyMapper, "Super Administrator", "ADMIN",
                                         "Full system owner", true);
-                        Role opsManagerRole = createRole(roleMapper, "Operations Manager", "OPS_MGR",
+                        Role opsManagerRole = createRole(roleMapper, roleHierarchyMapper, "Operations Manager", "OPS_MGR",
                                         "Handles orders and inventory", false);
-                        Role warehouseClerkRole = createRole(roleMapper, "Warehouse Clerk", "CLERK",
+                        Role warehouseClerkRole = createRole(roleMapper, roleHierarchyMapper, "Warehouse Clerk", "CLERK",
                                         "Updates stock levels",
                                         false);
-                        Role auditorRole = createRole(roleMapper, "Security Auditor", "AUDITOR",
+                        Role auditorRole = createRole(roleMapper, roleHierarchyMapper, "Security Auditor", "AUDITOR",
                                         "System monitoring and logs",
                                         false);
-                        Role marketingLeadRole = createRole(roleMapper, "Marketing Lead", "MARKETING",
+                        Role marketingLeadRole = createRole(roleMapper, roleHierarchyMapper, "Marketing Lead", "MARKETING",
                                         "Manages campaigns and strategy", false);
-                        Role hrAdminRole = createRole(roleMapper, "HR Administrator", "HR_ADMIN",
+                        Role hrAdminRole = createRole(roleMapper, roleHierarchyMapper, "HR Administrator", "HR_ADMIN",
                                         "Manages people and payroll",
                                         false);
 
@@ -203,7 +204,8 @@ public class DataInitializer {
                 return u;
         }
 
-        private Role createRole(RoleMapper mapper, String name, String key, String desc, boolean isSystem) {
+        private Role createRole(RoleMapper mapper, RoleHierarchyMapper hierarchyMapper, String name, String key,
+                        String desc, boolean isSystem) {
                 Role r = new Role();
                 r.setRoleId(UUID.randomUUID());
                 r.setRoleName(name);
@@ -211,6 +213,7 @@ public class DataInitializer {
                 r.setDescription(desc);
                 r.setSystemRole(isSystem);
                 mapper.insert(r);
+                hierarchyMapper.insertSelf(r.getRoleId());
                 return r;
         }
 
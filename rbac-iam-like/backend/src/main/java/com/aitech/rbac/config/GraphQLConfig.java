@@ -0,0 +1,56 @@
+package com.aitech.rbac.config;
+
+import com.aitech.rbac.security.PermissionDecision;
+import com.aitech.rbac.security.PermissionDeniedException;
+import graphql.GraphqlErrorBuilder;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.DataFetcherExceptionResolver;
+import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
+import org.springframework.graphql.execution.ErrorType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Guards the GraphQL endpoint against runaway queries. Both instrumentations
+ * reject a query before any data fetcher runs.
+ */
+@Configuration
+public class GraphQLConfig {
+
+    @Bean
+    public MaxQueryDepthInstrumentation maxQueryDepthInstrumentation(
+            @Value("${rbac.graphql.max-depth:6}") int maxDepth) {
+        return new MaxQueryDepthInstrumentation(maxDepth);
+    }
+
+    @Bean
+    public MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(
+            @Value("${rbac.graphql.max-complexity:200}") int maxComplexity) {
+        return new MaxQueryComplexityInstrumentation(maxComplexity);
+    }
+
+    // Same fields as the REST 403 body, carried in the error's extensions
+    @Bean
+    public DataFetcherExceptionResolver permissionDeniedResolver() {
+        return DataFetcherExceptionResolverAdapter.from((ex, env) -> {
+            if (!(ex instanceof PermissionDeniedException denied)) {
+                return null;
+            }
+            PermissionDecision decision = denied.getDecision();
+            Map<String, Object> extensions = new HashMap<>();
+            extensions.put("reasonCode", String.valueOf(decision.getReasonCode()));
+            extensions.put("namespace", decision.getNamespace());
+            extensions.put("action", decision.getAction());
+            return GraphqlErrorBuilder.newError(env)
+                    .errorType(ErrorType.FORBIDDEN)
+                    .message(denied.getMessage())
+                    .extensions(extensions)
+                    .build();
+        });
+    }
+}
@@ -18,19 +18,22 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @Configuration
 @EnableWebSecurity
 @org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity
-@org.springframework.cache.annotation.EnableCaching
 @org.springframework.scheduling.annotation.EnableAsync
+@org.springframework.scheduling.annotation.EnableScheduling
 public class SecurityConfig {
 
     private final UserDetailsService userDetailsService;
     private final PasswordEncoder passwordEncoder;
+    private final com.aitech.rbac.security.GrantRevocations grantRevocations;
 
     @org.springframework.beans.factory.annotation.Value("${security.jwt.secret-key}")
     private String jwtSecret;
 
-    public SecurityConfig(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
+    public SecurityConfig(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder,
+            com.aitech.rbac.security.GrantRevocations grantRevocations) {
         this.userDetailsService = userDetailsService;
         this.passwordEncoder = passwordEncoder;
+        this.grantRevocations = grantRevocations;
     }
 
     @Bean
@@ -42,7 +45,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/**", "/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html",
                                 "/swagger-resources/**", "/webjars/**",
                                 "/h2-console/**", "/api/namespaces/**", "/api/action-types/**", "/public/**",
-                                "/api/public/**")
+                                "/api/public/**", "/actuator/health", "/actuator/health/**")
                         .permitAll()
                         .anyRequest().authenticated())
                 .headers(headers -> headers.frameOptions(frame -> frame.disable())) // For H2 console
@@ -59,17 +62,16 @@ public class SecurityConfig {
     public org.springframework.security.oauth2.jwt.JwtDecoder jwtDecoder() {
         byte[] keyBytes = jwtSecret.getBytes(java.nio.charset.StandardCharsets.UTF_8);
         javax.crypto.spec.SecretKeySpec secretKey = new javax.crypto.spec.SecretKeySpec(keyBytes, "HmacSHA256");
-        return org.springframework.security.oauth2.jwt.NimbusJwtDecoder.withSecretKey(secretKey).build();
-    }
-
-    @Bean
-    public org.springframework.cache.CacheManager cacheManager() {
-        org.springframework.cache.caffeine.CaffeineCacheManager cacheManager = new org.springframework.cache.caffeine.CaffeineCacheManager(
-                "iamRemoteDecisions");
-        cacheManager.setCaffeine(com.github.benmanes.caffeine.cache.Caffeine.newBuilder()
-                .expireAfterWrite(10, java.util.concurrent.TimeUnit.MINUTES)
-                .maximumSize(1000));
-        return cacheManager;
+        org.springframework.security.oauth2.jwt.NimbusJwtDecoder decoder = org.springframework.security.oauth2.jwt.NimbusJwtDecoder
+                .withSecretKey(secretKey).build();
+        // Tokens whose grants were narrowed after issue are rejected so the client logs in again
+        decoder.setJwtValidator(new org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator<>(
+                org.springframework.security.oauth2.jwt.JwtValidators.createDefault(), grantRevocations));
+        return token -> {
+            try (ServerTiming.Span span = ServerTiming.start("jwt")) {
+                return decoder.decode(token);
+            }
+        };
     }
 
     @Bean
@@ -83,6 +85,7 @@ public class SecurityConfig {
         configuration.setAllowedOriginPatterns(java.util.Arrays.asList("*")); // Allow all patterns for dev
         configuration.setAllowedMethods(java.util.Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(java.util.Arrays.asList("*"));
+        configuration.setExposedHeaders(java.util.Arrays.asList("X-Next-Cursor"));
         configuration.setAllowCredentials(true);
         org.springframework.web.cors.UrlBasedCorsConfigurationSource source = new org.springframework.web.cors.UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
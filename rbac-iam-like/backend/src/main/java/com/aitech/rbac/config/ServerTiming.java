@@ -0,0 +1,88 @@
+package com.aitech.rbac.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Request-scoped timing spans, reported by {@link ServerTimingFilter} as a
+ * Server-Timing header and a log line. Bound to the request thread; when the
+ * feature is off (or outside a request) every call is a no-op.
+ *
+ * Spans with the same name accumulate (duration and count), and spans may
+ * nest: "audit" time inside "authz" is counted in both.
+ */
+public final class ServerTiming {
+
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+    private static final Span NOOP = () -> {
+    };
+
+    /** Closes a span; never throws, so it fits try-with-resources without a catch. */
+    public interface Span extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final long startNanos = System.nanoTime();
+    // name -> {count, nanos}
+    private final Map<String, long[]> spans = new LinkedHashMap<>();
+    private long bodyWriteStartNanos;
+
+    private ServerTiming() {
+    }
+
+    public static Span start(String name) {
+        ServerTiming timing = CURRENT.get();
+        if (timing == null) {
+            return NOOP;
+        }
+        long start = System.nanoTime();
+        return () -> timing.add(name, System.nanoTime() - start);
+    }
+
+    public static void record(String name, long nanos) {
+        ServerTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.add(name, nanos);
+        }
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /** The handler is done and the response body is about to be serialised. */
+    public static void markBodyWrite() {
+        ServerTiming timing = CURRENT.get();
+        if (timing != null && timing.bodyWriteStartNanos == 0) {
+            timing.bodyWriteStartNanos = System.nanoTime();
+        }
+    }
+
+    static ServerTiming begin() {
+        ServerTiming timing = new ServerTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    private void add(String name, long nanos) {
+        long[] span = spans.computeIfAbsent(name, k -> new long[2]);
+        span[0]++;
+        span[1] += nanos;
+    }
+
+    /** Spans so far plus "serialize" and "total" as of {@code now}, in milliseconds. */
+    Map<String, double[]> snapshot(long now) {
+        Map<String, double[]> result = new LinkedHashMap<>();
+        spans.forEach((name, span) -> result.put(name, new double[] { span[0], span[1] / 1e6 }));
+        if (bodyWriteStartNanos != 0) {
+            result.put("serialize", new double[] { 1, (now - bodyWriteStartNanos) / 1e6 });
+        }
+        result.put("total", new double[] { 1, (now - startNanos) / 1e6 });
+        return result;
+    }
+}
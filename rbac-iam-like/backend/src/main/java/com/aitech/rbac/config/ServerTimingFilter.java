@@ -0,0 +1,224 @@
+package com.aitech.rbac.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Adds a Server-Timing header (jwt, authz, audit, sql, serialize, total) and
+ * logs the same breakdown keyed by correlation id for requests slower than
+ * {@code rbac.server-timing.log-threshold-ms}.
+ *
+ * Runs ahead of the security filter chain so JWT decoding is inside the
+ * measurement. The header is written when the response commits, so a body
+ * larger than the response buffer reports the time up to its first bytes;
+ * the log line always has the full duration.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private static final String HEADER = "Server-Timing";
+
+    private final boolean enabled;
+    private final long logThresholdMs;
+
+    public ServerTimingFilter(@Value("${rbac.server-timing.enabled:false}") boolean enabled,
+            @Value("${rbac.server-timing.log-threshold-ms:500}") long logThresholdMs) {
+        this.enabled = enabled;
+        this.logThresholdMs = logThresholdMs;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ServerTiming timing = ServerTiming.begin();
+        TimingResponse timedResponse = new TimingResponse(response, timing);
+        try {
+            filterChain.doFilter(request, timedResponse);
+        } finally {
+            timedResponse.writeHeader();
+            Map<String, double[]> spans = timing.snapshot(System.nanoTime());
+            ServerTiming.end();
+            if (spans.get("total")[1] >= logThresholdMs) {
+                log.info("server-timing correlationId={} method={} uri={} status={} {}",
+                        correlationId(request, response), request.getMethod(), request.getRequestURI(),
+                        response.getStatus(), logFields(spans));
+            }
+        }
+    }
+
+    private static String correlationId(HttpServletRequest request, HttpServletResponse response) {
+        String id = response.getHeader("X-Correlation-ID");
+        return id != null ? id : request.getHeader("X-Correlation-ID");
+    }
+
+    static String headerValue(Map<String, double[]> spans) {
+        StringBuilder header = new StringBuilder();
+        spans.forEach((name, span) -> {
+            if (header.length() > 0) {
+                header.append(", ");
+            }
+            header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.2f", span[1]));
+            if (span[0] > 1) {
+                header.append(";desc=\"").append((long) span[0]).append("\"");
+            }
+        });
+        return header.toString();
+    }
+
+    private static String logFields(Map<String, double[]> spans) {
+        StringBuilder fields = new StringBuilder();
+        spans.forEach((name, span) -> {
+            if (fields.length() > 0) {
+                fields.append(' ');
+            }
+            fields.append(name).append("Ms=").append(String.format(Locale.ROOT, "%.2f", span[1]));
+            if (!"total".equals(name) && !"serialize".equals(name)) {
+                fields.append(' ').append(name).append("Count=").append((long) span[0]);
+            }
+        });
+        return fields.toString();
+    }
+
+    /** Sets the header just before the response commits, while headers can still change. */
+    private static final class TimingResponse extends HttpServletResponseWrapper {
+
+        private final ServerTiming timing;
+        private boolean headerWritten;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        TimingResponse(HttpServletResponse response, ServerTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        void writeHeader() {
+            if (!headerWritten && !isCommitted()) {
+                setHeader(HEADER, headerValue(timing.snapshot(System.nanoTime())));
+            }
+            headerWritten = true;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        writeHeader();
+                        delegate.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        writeHeader();
+                        delegate.write(b, off, len);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        writeHeader();
+                        delegate.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        writeHeader();
+                        delegate.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                        delegate.setWriteListener(listener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(super.getWriter()) {
+                    @Override
+                    public void write(int c) {
+                        writeHeader();
+                        super.write(c);
+                    }
+
+                    @Override
+                    public void write(char[] buf, int off, int len) {
+                        writeHeader();
+                        super.write(buf, off, len);
+                    }
+
+                    @Override
+                    public void write(String s, int off, int len) {
+                        writeHeader();
+                        super.write(s, off, len);
+                    }
+
+                    @Override
+                    public void flush() {
+                        writeHeader();
+                        super.flush();
+                    }
+                };
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeader();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.aitech.rbac.controller;
+
+import com.aitech.rbac.dto.AccessReviewEntry;
+import com.aitech.rbac.dto.PageResponse;
+import com.aitech.rbac.security.RequirePermission;
+import com.aitech.rbac.service.AccessReviewService;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/access-review")
+public class AccessReviewController {
+    private final AccessReviewService service;
+
+    public AccessReviewController(AccessReviewService service) {
+        this.service = service;
+    }
+
+    /**
+     * Users who can perform {@code namespace:action}, e.g.
+     * {@code ?namespace=orders&action=delete&resource=orders:region/eu/*}.
+     */
+    @GetMapping("/who-can")
+    @RequirePermission(namespace = "users", action = "read")
+    public PageResponse<AccessReviewEntry> whoCan(@RequestParam String namespace, @RequestParam String action,
+            @RequestParam(required = false) String resource,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return service.whoCan(namespace, action, resource, page, Math.max(1, Math.min(size, 500)));
+    }
+}
@@ -1,11 +1,23 @@
 package com.aitech.rbac.controller;
 
+import com.aitech.rbac.dto.AuditExportFormat;
+import com.aitech.rbac.dto.AuditLogPage;
+import com.aitech.rbac.dto.AuditLogQuery;
 import com.aitech.rbac.model.AuditLog;
 import com.aitech.rbac.service.AuditService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/audit-logs")
@@ -13,16 +25,101 @@ public class AuditController {
 
     private final AuditService auditService;
 
+    @Value("${rbac.audit.max-page-size:500}")
+    private int maxPageSize;
+
     public AuditController(AuditService auditService) {
         this.auditService = auditService;
     }
 
+    /**
+     * Newest-first page of audit entries. Pass the X-Next-Cursor response
+     * header back as {@code cursor} to fetch the next (older) page. A date-only
+     * {@code toDate} includes that whole day.
+     */
     @GetMapping
     public ResponseEntity<List<AuditLog>> getLogs(
             @RequestParam(required = false) String entityType,
             @RequestParam(required = false) String actionType,
+            @RequestParam(required = false) UUID actorUserId,
             @RequestParam(required = false) String fromDate,
-            @RequestParam(required = false) String toDate) {
-        return ResponseEntity.ok(auditService.getLogs(entityType, actionType, fromDate, toDate));
+            @RequestParam(required = false) String toDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        AuditLogQuery query = new AuditLogQuery();
+        query.setEntityType(entityType);
+        query.setActionType(actionType);
+        query.setActorUserId(actorUserId);
+        query.setFrom(parseDate(fromDate, false));
+        query.setTo(parseDate(toDate, true));
+        query.setCursor(cursor);
+        query.setLimit(Math.max(1, Math.min(size, maxPageSize)));
+
+        AuditLogPage page = auditService.getLogs(query);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    /**
+     * Oldest-first export of every matching entry as CSV or NDJSON, optionally
+     * gzipped. Rows are streamed from a database cursor straight into the
+     * response, so memory use does not grow with the export size.
+     */
+    @GetMapping("/export")
+    public void export(
+            @RequestParam(required = false) String entityType,
+            @RequestParam(required = false) String actionType,
+            @RequestParam(required = false) UUID actorUserId,
+            @RequestParam(required = false) String fromDate,
+            @RequestParam(required = false) String toDate,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        AuditExportFormat exportFormat;
+        try {
+            exportFormat = AuditExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+        AuditLogQuery query = new AuditLogQuery();
+        query.setEntityType(entityType);
+        query.setActionType(actionType);
+        query.setActorUserId(actorUserId);
+        query.setFrom(parseDate(fromDate, false));
+        query.setTo(parseDate(toDate, true));
+
+        String fileName = "audit-logs." + exportFormat.name().toLowerCase(Locale.ROOT);
+        response.setContentType(exportFormat == AuditExportFormat.CSV ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        if (gzip) {
+            fileName += ".gz";
+            response.setContentType("application/gzip");
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+        // Written on the request thread: exports can outlast the async request timeout
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            out = new java.util.zip.GZIPOutputStream(out, 64 * 1024);
+        }
+        auditService.exportLogs(query, exportFormat, out);
+        if (out instanceof java.util.zip.GZIPOutputStream gzipOut) {
+            gzipOut.finish();
+        }
+        out.flush();
+    }
+
+    private LocalDateTime parseDate(String value, boolean endOfDay) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        if (value.length() == 10) {
+            LocalDate date = LocalDate.parse(value);
+            return endOfDay ? date.plusDays(1).atStartOfDay() : date.atStartOfDay();
+        }
+        return LocalDateTime.parse(value);
     }
 }
@@ -20,17 +20,23 @@ public class AuthController {
     private final JwtService jwtService;
     private final com.aitech.rbac.service.UserService userService;
     private final com.aitech.rbac.service.UserAccessService userAccessService;
+    private final com.aitech.rbac.service.CategoryScopeService categoryScopeService;
+    private final com.aitech.rbac.service.UserRoleService userRoleService;
 
     public AuthController(AuthenticationManager authenticationManager,
             UserDetailsService userDetailsService,
             JwtService jwtService,
             com.aitech.rbac.service.UserService userService,
-            com.aitech.rbac.service.UserAccessService userAccessService) {
+            com.aitech.rbac.service.UserAccessService userAccessService,
+            com.aitech.rbac.service.CategoryScopeService categoryScopeService,
+            com.aitech.rbac.service.UserRoleService userRoleService) {
         this.authenticationManager = authenticationManager;
         this.userDetailsService = userDetailsService;
         this.jwtService = jwtService;
         this.userService = userService;
         this.userAccessService = userAccessService;
+        this.categoryScopeService = categoryScopeService;
+        this.userRoleService = userRoleService;
     }
 
     @PostMapping("/login")
@@ -58,8 +64,15 @@ public class AuthController {
             extraClaims.put("permissions", permissions);
             extraClaims.put("email", user.getEmail());
         }
+        // Lets the decoder reject the token once the user's grants are narrowed
+        extraClaims.put(com.aitech.rbac.security.GrantRevocations.USER_ID_CLAIM, user.getUserId().toString());
+        // Always present, even when empty, so category checks resolve from the token
+        extraClaims.put("categoryScopes", categoryScopeService.buildClaim(user.getUserId()));
 
-        String token = jwtService.generateToken(extraClaims, userDetails);
+        // The claims list time-bound grants, so the token must not outlive the first of them
+        var expiresBy = userRoleService.earliestExpiry(user.getUserId());
+        String token = jwtService.generateToken(extraClaims, userDetails, expiresBy == null ? null
+                : java.util.Date.from(expiresBy.atZone(java.time.ZoneId.systemDefault()).toInstant()));
         return new AuthResponse(token);
     }
 
@@ -0,0 +1,46 @@
+package com.aitech.rbac.controller;
+
+import com.aitech.rbac.dto.AuthzChangePage;
+import com.aitech.rbac.security.RequirePermission;
+import com.aitech.rbac.service.AuthzChangeFeedService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cursor API over the authorization change feed. Consumers keep the returned
+ * {@code nextCursor} and poll again with it; an empty page means nothing
+ * changed within the wait window. Entries name the users and roles whose
+ * grants changed, so reading the feed requires roles:read.
+ */
+@RestController
+@RequestMapping("/api/authz/changes")
+public class AuthzChangeController {
+
+    private static final int MAX_LIMIT = 500;
+    private static final int MAX_WAIT_SECONDS = 60;
+
+    private final AuthzChangeFeedService feedService;
+
+    public AuthzChangeController(AuthzChangeFeedService feedService) {
+        this.feedService = feedService;
+    }
+
+    @GetMapping
+    @RequirePermission(namespace = "roles", action = "read")
+    public CompletableFuture<AuthzChangePage> poll(
+            @RequestParam(defaultValue = "0") long cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "0") int waitSeconds) {
+        int boundedLimit = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        int boundedWait = Math.min(Math.max(waitSeconds, 0), MAX_WAIT_SECONDS);
+        return feedService.poll(cursor, boundedLimit, boundedWait * 1000L);
+    }
+
+    @GetMapping("/head")
+    @RequirePermission(namespace = "roles", action = "read")
+    public Map<String, Long> head() {
+        return Map.of("cursor", feedService.head());
+    }
+}
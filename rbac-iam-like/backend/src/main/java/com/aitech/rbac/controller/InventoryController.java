@@ -9,14 +9,24 @@ import java.util.*;
 @RequestMapping("/api/inventory")
 public class InventoryController {
     private final ProductMapper mapper;
+    private final com.aitech.rbac.service.RowFilterService rowFilterService;
+    private final com.aitech.rbac.service.InventoryService inventoryService;
 
-    public InventoryController(ProductMapper mapper) {
+    public InventoryController(ProductMapper mapper, com.aitech.rbac.service.RowFilterService rowFilterService,
+            com.aitech.rbac.service.InventoryService inventoryService) {
         this.mapper = mapper;
+        this.rowFilterService = rowFilterService;
+        this.inventoryService = inventoryService;
     }
 
+    /** Only rows the caller's "inventory:read" resource patterns allow, filtered in SQL. */
     @GetMapping
-    public List<Product> getAll() {
-        return mapper.findAll();
+    public com.aitech.rbac.dto.PageResponse<Product> getAll(
+            org.springframework.security.core.Authentication authentication,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        var filter = rowFilterService.compile(authentication.getName(), "inventory", "read");
+        return rowFilterService.page(filter, page, Math.min(size, 500), mapper::findVisible);
     }
 
     @GetMapping("/{id}")
@@ -31,10 +41,22 @@ public class InventoryController {
         mapper.insert(entity);
     }
 
+    /** Full edit; the body must carry the version it was read at (409 when stale). */
     @PutMapping("/{id}")
-    public void update(@PathVariable UUID id, @RequestBody Product entity) {
-        entity.setProductId(id);
-        mapper.update(entity);
+    public Product update(@PathVariable UUID id, @RequestBody Product entity) {
+        return inventoryService.update(id, entity);
+    }
+
+    /** Atomic stock change, e.g. {@code ?delta=-3}; 409 when stock would go negative. */
+    @PatchMapping("/{id}/stock")
+    public Product adjustStock(@PathVariable UUID id, @RequestParam int delta) {
+        return inventoryService.adjustStock(id, delta);
+    }
+
+    /** Reserve several SKUs at once, all or nothing. */
+    @PostMapping("/reservations")
+    public List<Product> reserve(@RequestBody com.aitech.rbac.dto.StockReservationRequest request) {
+        return inventoryService.reserve(request.getItems());
     }
 
     @DeleteMapping("/{id}")
@@ -10,14 +10,21 @@ import java.time.LocalDateTime;
 @RequestMapping("/api/orders")
 public class OrderController {
     private final OrderMapper mapper;
+    private final com.aitech.rbac.service.RowFilterService rowFilterService;
 
-    public OrderController(OrderMapper mapper) {
+    public OrderController(OrderMapper mapper, com.aitech.rbac.service.RowFilterService rowFilterService) {
         this.mapper = mapper;
+        this.rowFilterService = rowFilterService;
     }
 
+    /** Only rows the caller's "orders:read" resource patterns allow, filtered in SQL. */
     @GetMapping
-    public List<Order> getAll() {
-        return mapper.findAll();
+    public com.aitech.rbac.dto.PageResponse<Order> getAll(
+            org.springframework.security.core.Authentication authentication,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        var filter = rowFilterService.compile(authentication.getName(), "orders", "read");
+        return rowFilterService.page(filter, page, Math.min(size, 500), mapper::findVisible);
     }
 
     @GetMapping("/{id}")
@@ -34,10 +41,20 @@ public class OrderController {
         mapper.insert(entity);
     }
 
+    /** Full edit; the body must carry the version it was read at (409 when stale). */
     @PutMapping("/{id}")
     public void update(@PathVariable UUID id, @RequestBody Order entity) {
+        if (entity.getVersion() == null) {
+            throw new IllegalArgumentException("version is required");
+        }
         entity.setOrderId(id);
-        mapper.update(entity);
+        if (mapper.update(entity) == 0) {
+            if (mapper.findById(id) == null) {
+                throw new IllegalArgumentException("Order not found");
+            }
+            throw new org.springframework.dao.OptimisticLockingFailureException(
+                    "Order " + id + " was modified concurrently");
+        }
     }
 
     @DeleteMapping("/{id}")
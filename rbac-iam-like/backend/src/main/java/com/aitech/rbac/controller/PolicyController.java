@@ -1,7 +1,9 @@
 package com.aitech.rbac.controller;
 
 import com.aitech.rbac.dto.PageResponse;
+import com.aitech.rbac.dto.PolicyAnalysis;
 import com.aitech.rbac.model.PolicyVersion;
+import com.aitech.rbac.service.PolicyAnalyzer;
 import com.aitech.rbac.service.PolicyService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,9 +17,11 @@ import java.util.UUID;
 public class PolicyController {
 
     private final PolicyService policyService;
+    private final PolicyAnalyzer policyAnalyzer;
 
-    public PolicyController(PolicyService policyService) {
+    public PolicyController(PolicyService policyService, PolicyAnalyzer policyAnalyzer) {
         this.policyService = policyService;
+        this.policyAnalyzer = policyAnalyzer;
     }
 
     @GetMapping
@@ -39,10 +43,28 @@ public class PolicyController {
     public ResponseEntity<Void> sealPolicy(
             @PathVariable UUID id,
             @RequestBody SealRequest request) {
-        policyService.seal(id, request.getMatrix(), request.isConfirmImpact());
+        policyService.seal(id, request.getMatrix(), request.isConfirmImpact(), request.isMinimize());
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Dry run before seal: redundant statements in the document the matrix
+     * would produce (or in the current document without a matrix) and a
+     * minimized equivalent. Seal with {@code minimize: true} to store it.
+     */
+    @PostMapping("/{id}/analyze")
+    public ResponseEntity<PolicyAnalysis> analyzePolicy(
+            @PathVariable UUID id,
+            @RequestBody(required = false) SealRequest request) {
+        return ResponseEntity.ok(policyService.analyze(id, request != null ? request.getMatrix() : null));
+    }
+
+    /** Analyse an arbitrary policy document, e.g. one being edited in the UI. */
+    @PostMapping("/analyze")
+    public ResponseEntity<PolicyAnalysis> analyzeDocument(@RequestBody String documentJson) {
+        return ResponseEntity.ok(policyAnalyzer.analyze(policyAnalyzer.parse(documentJson)));
+    }
+
     @GetMapping("/{id}/versions")
     public ResponseEntity<List<PolicyVersion>> getVersions(@PathVariable UUID id) {
         return ResponseEntity.ok(policyService.getVersions(id));
@@ -58,6 +80,7 @@ public class PolicyController {
     public static class SealRequest {
         private Map<String, Map<String, Boolean>> matrix;
         private boolean confirmImpact;
+        private boolean minimize;
 
         public Map<String, Map<String, Boolean>> getMatrix() {
             return matrix;
@@ -74,5 +97,13 @@ public class PolicyController {
         public void setConfirmImpact(boolean confirmImpact) {
             this.confirmImpact = confirmImpact;
         }
+
+        public boolean isMinimize() {
+            return minimize;
+        }
+
+        public void setMinimize(boolean minimize) {
+            this.minimize = minimize;
+        }
     }
 }
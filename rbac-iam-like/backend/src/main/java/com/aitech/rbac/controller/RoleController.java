@@ -10,10 +10,13 @@ import java.util.*;
 public class RoleController {
     private final RoleService service;
     private final com.aitech.rbac.service.RolePermissionService rolePermissionService;
+    private final com.aitech.rbac.service.CategoryScopeService categoryScopeService;
 
-    public RoleController(RoleService service, com.aitech.rbac.service.RolePermissionService rolePermissionService) {
+    public RoleController(RoleService service, com.aitech.rbac.service.RolePermissionService rolePermissionService,
+            com.aitech.rbac.service.CategoryScopeService categoryScopeService) {
         this.service = service;
         this.rolePermissionService = rolePermissionService;
+        this.categoryScopeService = categoryScopeService;
     }
 
     @GetMapping
@@ -51,6 +54,26 @@ public class RoleController {
         service.delete(id);
     }
 
+    @GetMapping("/{roleId}/parents")
+    public List<Role> getParents(@PathVariable UUID roleId) {
+        return service.getParents(roleId);
+    }
+
+    @GetMapping("/{roleId}/ancestors")
+    public List<Role> getAncestors(@PathVariable UUID roleId) {
+        return service.getAncestors(roleId);
+    }
+
+    @PostMapping("/{roleId}/parents/{parentId}")
+    public void addParent(@PathVariable UUID roleId, @PathVariable UUID parentId) {
+        service.addParent(roleId, parentId);
+    }
+
+    @DeleteMapping("/{roleId}/parents/{parentId}")
+    public void removeParent(@PathVariable UUID roleId, @PathVariable UUID parentId) {
+        service.removeParent(roleId, parentId);
+    }
+
     @PostMapping("/{roleId}/permissions/{permissionId}")
     public void assignPermission(@PathVariable UUID roleId, @PathVariable UUID permissionId) {
         com.aitech.rbac.model.RolePermission rp = new com.aitech.rbac.model.RolePermission();
@@ -66,4 +89,21 @@ public class RoleController {
         rp.setPermissionId(permissionId);
         rolePermissionService.delete(rp);
     }
+
+    @GetMapping("/{roleId}/category-scopes")
+    public List<com.aitech.rbac.model.RoleCategoryScope> getCategoryScopes(@PathVariable UUID roleId) {
+        return categoryScopeService.getByRoleId(roleId);
+    }
+
+    @PostMapping("/{roleId}/category-scopes")
+    public com.aitech.rbac.model.RoleCategoryScope grantCategoryScope(@PathVariable UUID roleId,
+            @RequestBody com.aitech.rbac.model.RoleCategoryScope scope) {
+        scope.setRoleId(roleId);
+        return categoryScopeService.grant(scope);
+    }
+
+    @DeleteMapping("/{roleId}/category-scopes/{scopeId}")
+    public void revokeCategoryScope(@PathVariable UUID roleId, @PathVariable UUID scopeId) {
+        categoryScopeService.revoke(roleId, scopeId);
+    }
 }
@@ -28,6 +28,17 @@ public class RolePermissionController {
         return service.listAll();
     }
 
+    @GetMapping("/matrix")
+    public com.aitech.rbac.dto.RolePermissionMatrix getMatrix() {
+        return service.getMatrix();
+    }
+
+    @PostMapping("/matrix")
+    public com.aitech.rbac.dto.RolePermissionDiff.Result applyDiff(
+            @RequestBody com.aitech.rbac.dto.RolePermissionDiff diff) {
+        return service.applyDiff(diff);
+    }
+
     @GetMapping("/{roleId}")
     public java.util.List<RolePermission> getByRoleId(@PathVariable java.util.UUID roleId) {
         return service.getByRoleId(roleId);
@@ -1,18 +1,29 @@
 package com.aitech.rbac.controller;
 
+import com.aitech.rbac.dto.UserImportFormat;
 import com.aitech.rbac.model.User;
+import com.aitech.rbac.service.UserAttributeService;
+import com.aitech.rbac.service.UserImportService;
 import com.aitech.rbac.service.UserService;
 import com.aitech.rbac.security.RequirePermission;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
 import java.util.*;
 
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
     private final UserService service;
+    private final UserAttributeService attributeService;
+    private final UserImportService importService;
 
-    public UserController(UserService service) {
+    public UserController(UserService service, UserAttributeService attributeService,
+            UserImportService importService) {
         this.service = service;
+        this.attributeService = attributeService;
+        this.importService = importService;
     }
 
     @GetMapping
@@ -37,6 +48,28 @@ public class UserController {
         service.create(entity);
     }
 
+    /**
+     * Bulk create from a CSV (username,email,password,active,roles with role
+     * keys separated by '|') or NDJSON request body. The response is an NDJSON
+     * stream of rejected rows and per-chunk progress, ending with the totals.
+     */
+    @PostMapping(value = "/import", consumes = { "text/csv", "application/x-ndjson", "text/plain",
+            "application/octet-stream" })
+    @RequirePermission(namespace = "users", action = "create")
+    public void importUsers(@RequestParam(defaultValue = "csv") String format, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        UserImportFormat importFormat;
+        try {
+            importFormat = UserImportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported import format: " + format);
+        }
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        // Read and reported on the request thread: large imports outlast the async request timeout
+        importService.importUsers(request.getInputStream(), importFormat, response.getOutputStream());
+    }
+
     @PutMapping("/{id}")
     @RequirePermission(namespace = "users", action = "update")
     public void update(@PathVariable UUID id, @RequestBody User entity) {
@@ -49,4 +82,28 @@ public class UserController {
     public void delete(@PathVariable UUID id) {
         service.delete(id);
     }
+
+    @GetMapping("/{id}/attributes")
+    @RequirePermission(namespace = "users", action = "read")
+    public Map<String, String> getAttributes(@PathVariable UUID id) {
+        return attributeService.getAttributes(id);
+    }
+
+    @PutMapping("/{id}/attributes")
+    @RequirePermission(namespace = "users", action = "update")
+    public void replaceAttributes(@PathVariable UUID id, @RequestBody Map<String, String> attributes) {
+        attributeService.replaceAttributes(id, attributes);
+    }
+
+    @PutMapping("/{id}/attributes/{key}")
+    @RequirePermission(namespace = "users", action = "update")
+    public void putAttribute(@PathVariable UUID id, @PathVariable String key, @RequestBody String value) {
+        attributeService.putAttribute(id, key, value);
+    }
+
+    @DeleteMapping("/{id}/attributes/{key}")
+    @RequirePermission(namespace = "users", action = "update")
+    public void deleteAttribute(@PathVariable UUID id, @PathVariable String key) {
+        attributeService.deleteAttribute(id, key);
+    }
 }
@@ -1,21 +1,107 @@
 package com.aitech.rbac.controller;
 
+import com.aitech.rbac.dto.PageResponse;
+import com.aitech.rbac.model.Permission;
+import com.aitech.rbac.model.PolicyVersion;
 import com.aitech.rbac.model.Role;
+import com.aitech.rbac.model.User;
+import com.aitech.rbac.security.RequirePermission;
+import com.aitech.rbac.service.PermissionService;
+import com.aitech.rbac.service.PolicyService;
 import com.aitech.rbac.service.RoleService;
+import com.aitech.rbac.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.stereotype.Controller;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+/**
+ * GraphQL entry point for the admin views. Top-level queries are paginated and
+ * nested fields are resolved through {@link BatchMapping}, so every level of a
+ * query costs a single {@code IN (...)} lookup regardless of page size.
+ *
+ * Each query and nested field carries the same {@link RequirePermission}
+ * check as the data it exposes, so a nested selection cannot read what the
+ * caller could not query directly.
+ */
 @Controller
 public class UserGraphQLController {
+    private final UserService userService;
     private final RoleService roleService;
-    public UserGraphQLController(RoleService roleService) { this.roleService = roleService; }
+    private final PermissionService permissionService;
+    private final PolicyService policyService;
+
+    @Value("${rbac.graphql.max-page-size:100}")
+    private int maxPageSize = 100;
+
+    public UserGraphQLController(UserService userService, RoleService roleService,
+            PermissionService permissionService, PolicyService policyService) {
+        this.userService = userService;
+        this.roleService = roleService;
+        this.permissionService = permissionService;
+        this.policyService = policyService;
+    }
 
     @QueryMapping
+    @RequirePermission(namespace = "users", action = "read")
     public List<Role> userRoles(@Argument UUID userId) {
         return roleService.getByUserId(userId);
     }
+
+    @QueryMapping
+    @RequirePermission(namespace = "users", action = "read")
+    public PageResponse<User> users(@Argument int page, @Argument int size, @Argument String search) {
+        return userService.getSummaries(Math.max(page, 1), clampSize(size), search);
+    }
+
+    @QueryMapping
+    @RequirePermission(namespace = "roles", action = "read")
+    public PageResponse<Role> roles(@Argument int page, @Argument int size, @Argument String search) {
+        return roleService.getAll(Math.max(page, 1), clampSize(size), search);
+    }
+
+    @QueryMapping
+    @RequirePermission(namespace = "permissions", action = "read")
+    public PageResponse<Permission> permissions(@Argument int page, @Argument int size, @Argument String search,
+            @Argument String domain, @Argument String usage) {
+        return policyService.search(usage, domain, search, Math.max(page, 1), clampSize(size));
+    }
+
+    @QueryMapping
+    @RequirePermission(namespace = "policies", action = "read")
+    public List<PolicyVersion> policyVersions(@Argument UUID permissionId) {
+        return policyService.getVersions(permissionId);
+    }
+
+    @RequirePermission(namespace = "roles", action = "read")
+    @BatchMapping(typeName = "User", field = "roles")
+    public List<List<Role>> userRoleBatch(List<User> users) {
+        Map<UUID, List<Role>> byUser = roleService.getByUserIds(users.stream().map(User::getUserId).toList());
+        return users.stream().map(u -> byUser.getOrDefault(u.getUserId(), List.of())).toList();
+    }
+
+    @RequirePermission(namespace = "permissions", action = "read")
+    @BatchMapping(typeName = "Role", field = "permissions")
+    public List<List<Permission>> rolePermissionBatch(List<Role> roles) {
+        Map<UUID, List<Permission>> byRole = permissionService
+                .getByRoleIds(roles.stream().map(Role::getRoleId).toList());
+        return roles.stream().map(r -> byRole.getOrDefault(r.getRoleId(), List.of())).toList();
+    }
+
+    @RequirePermission(namespace = "policies", action = "read")
+    @BatchMapping(typeName = "Permission", field = "versions")
+    public List<List<PolicyVersion>> permissionVersionBatch(List<Permission> permissions) {
+        Map<UUID, List<PolicyVersion>> byPermission = policyService
+                .getVersionsByPermissionIds(permissions.stream().map(Permission::getPermissionId).toList());
+        return permissions.stream().map(p -> byPermission.getOrDefault(p.getPermissionId(), List.of())).toList();
+    }
+
+    private int clampSize(int size) {
+        return Math.min(Math.max(size, 1), maxPageSize);
+    }
 }
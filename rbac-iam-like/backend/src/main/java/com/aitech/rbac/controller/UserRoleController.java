@@ -1,5 +1,6 @@
 package com.aitech.rbac.controller;
 
+import com.aitech.rbac.dto.UserRoleBulkRequest;
 import com.aitech.rbac.model.UserRole;
 import com.aitech.rbac.service.UserRoleService;
 import org.springframework.web.bind.annotation.*;
@@ -18,8 +19,23 @@ public class UserRoleController {
         service.create(entity);
     }
 
+    @PutMapping
+    public void updateWindow(@RequestBody UserRole entity) {
+        service.updateWindow(entity);
+    }
+
     @DeleteMapping
     public void delete(@RequestBody UserRole entity) {
         service.delete(entity);
     }
+
+    @PostMapping("/bulk")
+    public UserRoleBulkRequest.Result bulkAssign(@RequestBody UserRoleBulkRequest request) {
+        return service.bulkAssign(request);
+    }
+
+    @DeleteMapping("/bulk")
+    public UserRoleBulkRequest.Result bulkRevoke(@RequestBody UserRoleBulkRequest request) {
+        return service.bulkRevoke(request);
+    }
 }
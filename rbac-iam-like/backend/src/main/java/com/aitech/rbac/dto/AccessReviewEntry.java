@@ -0,0 +1,14 @@
+package com.aitech.rbac.dto;
+
+import lombok.Data;
+import java.util.UUID;
+
+@Data
+public class AccessReviewEntry {
+    private UUID userId;
+    private String username;
+    private String email;
+    private boolean active;
+    // Only granted by statements with conditions, so access depends on request context
+    private boolean conditional;
+}
@@ -0,0 +1,5 @@
+package com.aitech.rbac.dto;
+
+public enum AuditExportFormat {
+    CSV, NDJSON
+}
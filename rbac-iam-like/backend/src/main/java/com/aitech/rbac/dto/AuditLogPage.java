@@ -0,0 +1,18 @@
+package com.aitech.rbac.dto;
+
+import com.aitech.rbac.model.AuditLog;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditLogPage {
+    private List<AuditLog> items;
+    /** Opaque keyset cursor for the next (older) page, null when exhausted. */
+    private String nextCursor;
+    private boolean hasMore;
+}
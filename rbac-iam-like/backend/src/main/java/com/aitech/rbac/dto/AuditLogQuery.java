@@ -0,0 +1,16 @@
+package com.aitech.rbac.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+public class AuditLogQuery {
+    private String entityType;
+    private String actionType;
+    private UUID actorUserId;
+    private LocalDateTime from; // inclusive
+    private LocalDateTime to; // exclusive
+    private String cursor;
+    private int limit = 50;
+}
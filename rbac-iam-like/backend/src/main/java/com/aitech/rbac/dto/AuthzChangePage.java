@@ -0,0 +1,16 @@
+package com.aitech.rbac.dto;
+
+import com.aitech.rbac.model.AuthzChange;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthzChangePage {
+    private List<AuthzChange> changes;
+    private long nextCursor;
+    private boolean hasMore;
+}
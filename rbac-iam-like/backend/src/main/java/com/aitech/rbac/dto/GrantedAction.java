@@ -0,0 +1,13 @@
+package com.aitech.rbac.dto;
+
+import lombok.Data;
+
+import java.util.UUID;
+
+/** One (namespace, action) pair a permission grants through resource_access. */
+@Data
+public class GrantedAction {
+    private UUID permissionId;
+    private String namespaceKey;
+    private String actionKey;
+}
@@ -0,0 +1,35 @@
+package com.aitech.rbac.dto;
+
+import com.aitech.rbac.model.policy.PolicyDocument;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+public class PolicyAnalysis {
+    private int originalStatements;
+    private int minimizedStatements;
+    private List<Finding> findings;
+    // Evaluates every request exactly as the original document does
+    private PolicyDocument minimized;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Finding {
+        private FindingType type;
+        private String statement; // Sid, or "#index" when unnamed
+        private String detail;
+    }
+
+    public enum FindingType {
+        DUPLICATE_ENTRY, // same action or resource listed twice
+        SUBSUMED_ENTRY, // e.g. orders:read next to orders:*
+        UNREACHABLE_STATEMENT, // no action can ever match
+        SHADOWED_ALLOW, // every request it allows is denied by an unconditional Deny
+        SUBSUMED_STATEMENT, // covered by another statement with the same effect
+        MERGED_STATEMENTS // same effect, conditions and resources; actions combined
+    }
+}
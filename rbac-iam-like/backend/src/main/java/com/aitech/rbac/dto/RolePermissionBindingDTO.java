@@ -0,0 +1,15 @@
+package com.aitech.rbac.dto;
+
+import com.aitech.rbac.model.Permission;
+import lombok.Data;
+import java.util.UUID;
+
+/**
+ * One row of a bulk role → permission lookup: the owning role id plus the
+ * permission.
+ */
+@Data
+public class RolePermissionBindingDTO {
+    private UUID roleId;
+    private Permission permission;
+}
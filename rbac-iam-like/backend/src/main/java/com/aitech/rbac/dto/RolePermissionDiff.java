@@ -0,0 +1,28 @@
+package com.aitech.rbac.dto;
+
+import com.aitech.rbac.model.RolePermission;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Grants and revokes applied together as one matrix edit. Granting a pair
+ * that is already held, or revoking one that is not, is a no-op.
+ */
+@Data
+public class RolePermissionDiff {
+    private List<RolePermission> grant = new ArrayList<>();
+    private List<RolePermission> revoke = new ArrayList<>();
+
+    /** Pairs actually changed. */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private int granted;
+        private int revoked;
+    }
+}
@@ -0,0 +1,41 @@
+package com.aitech.rbac.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Every role × every permission. {@code grants.get(i)} is the base64 of a
+ * little-endian bitmap for {@code roles.get(i)}: bit j (byte j / 8, bit
+ * j % 8) is set when the role holds {@code permissions.get(j)}. Trailing
+ * zero bytes are omitted, so a role without permissions is "".
+ */
+@Data
+public class RolePermissionMatrix {
+    private List<Axis> roles = new ArrayList<>();
+    private List<Axis> permissions = new ArrayList<>();
+    private List<String> grants = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Axis {
+        private UUID id;
+        private String name;
+        private String key;
+    }
+
+    /** One row of the matrix query: a role (kind 0), a permission (1) or a grant (2). */
+    @Data
+    public static class Row {
+        private int kind;
+        private UUID id;
+        private String name;
+        private String itemKey;
+        private UUID permissionId;
+    }
+}
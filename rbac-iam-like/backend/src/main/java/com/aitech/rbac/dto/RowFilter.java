@@ -0,0 +1,31 @@
+package com.aitech.rbac.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resource patterns of one user for one namespace action, already translated
+ * to SQL LIKE patterns. Applied by the "predicate" fragment in
+ * RowFilterMapper.xml: a row is visible when its resource name matches some
+ * allow clause (or there are none) and no deny clause.
+ */
+@Data
+public class RowFilter {
+    // Nothing is allowed, so the query can be skipped entirely
+    private boolean denyAll;
+    private List<ResourceClause> allow = new ArrayList<>();
+    private List<ResourceClause> deny = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ResourceClause {
+        private List<String> likePatterns;
+        // NotResource: the clause matches rows outside these patterns
+        private boolean negated;
+    }
+}
@@ -0,0 +1,15 @@
+package com.aitech.rbac.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class StockReservationRequest {
+    private List<Item> items;
+
+    @Data
+    public static class Item {
+        private String sku;
+        private int quantity;
+    }
+}
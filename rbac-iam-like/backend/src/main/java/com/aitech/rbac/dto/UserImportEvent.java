@@ -0,0 +1,42 @@
+package com.aitech.rbac.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+/**
+ * One line of the NDJSON import report: a rejected row, progress after a
+ * chunk, or the final totals.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserImportEvent {
+    public enum Type {
+        ERROR, PROGRESS, DONE
+    }
+
+    private Type type;
+    private Long line;
+    private String username;
+    private String message;
+    private Long processed;
+    private Long created;
+    private Long failed;
+
+    public static UserImportEvent error(long line, String username, String message) {
+        UserImportEvent event = new UserImportEvent();
+        event.setType(Type.ERROR);
+        event.setLine(line);
+        event.setUsername(username);
+        event.setMessage(message);
+        return event;
+    }
+
+    public static UserImportEvent totals(Type type, long processed, long created, long failed) {
+        UserImportEvent event = new UserImportEvent();
+        event.setType(type);
+        event.setProcessed(processed);
+        event.setCreated(created);
+        event.setFailed(failed);
+        return event;
+    }
+}
@@ -0,0 +1,20 @@
+package com.aitech.rbac.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One user of a bulk import. CSV files carry the same fields as columns,
+ * with role keys separated by '|'.
+ */
+@Data
+public class UserImportRow {
+    private String username;
+    private String email;
+    /** Plain text, or an existing bcrypt hash which is stored as is. */
+    private String password;
+    private Boolean active;
+    private List<String> roles = new ArrayList<>();
+}
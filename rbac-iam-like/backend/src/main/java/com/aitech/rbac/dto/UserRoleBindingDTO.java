@@ -0,0 +1,14 @@
+package com.aitech.rbac.dto;
+
+import com.aitech.rbac.model.Role;
+import lombok.Data;
+import java.util.UUID;
+
+/**
+ * One row of a bulk user → role lookup: the owning user id plus the role.
+ */
+@Data
+public class UserRoleBindingDTO {
+    private UUID userId;
+    private Role role;
+}
@@ -0,0 +1,27 @@
+package com.aitech.rbac.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One role assigned to, or revoked from, many users at once. Users are given
+ * either as explicit ids or as the username/email search of the user list.
+ */
+@Data
+public class UserRoleBulkRequest {
+    private UUID roleId;
+    private List<UUID> userIds;
+    private String search;
+
+    /** Users whose assignment actually changed. */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private int affected;
+    }
+}
@@ -53,4 +53,26 @@ public class GlobalExceptionHandler {
                         .correlationId(UUID.randomUUID().toString())
                         .build());
     }
+
+    @ExceptionHandler(org.springframework.dao.OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLock(
+            org.springframework.dao.OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ErrorResponse.builder()
+                        .error("CONFLICT")
+                        .message(ex.getMessage())
+                        .correlationId(UUID.randomUUID().toString())
+                        .build());
+    }
+
+    @ExceptionHandler(com.aitech.rbac.service.InsufficientStockException.class)
+    public ResponseEntity<ErrorResponse> handleInsufficientStock(
+            com.aitech.rbac.service.InsufficientStockException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ErrorResponse.builder()
+                        .error("INSUFFICIENT_STOCK")
+                        .message(ex.getMessage())
+                        .correlationId(UUID.randomUUID().toString())
+                        .build());
+    }
 }
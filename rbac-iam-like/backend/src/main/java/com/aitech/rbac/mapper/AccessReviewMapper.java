@@ -0,0 +1,27 @@
+package com.aitech.rbac.mapper;
+
+import com.aitech.rbac.dto.AccessReviewEntry;
+import com.aitech.rbac.dto.GrantedAction;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Mapper
+public interface AccessReviewMapper {
+    /**
+     * Users holding any of {@code allowIds} and none of {@code denyIds},
+     * resolved through user_effective_permissions. A user is conditional
+     * when they hold none of {@code unconditionalIds}.
+     */
+    List<AccessReviewEntry> findUsersByPermissions(@Param("allowIds") Collection<UUID> allowIds,
+            @Param("unconditionalIds") Collection<UUID> unconditionalIds,
+            @Param("denyIds") Collection<UUID> denyIds);
+
+    /** The (namespace, action) pairs of every permission's resource_access rows. */
+    List<GrantedAction> findAllGrantedActions();
+
+    List<GrantedAction> findGrantedActions(UUID permissionId);
+}
@@ -1,15 +1,36 @@
 package com.aitech.rbac.mapper;
 
+import com.aitech.rbac.dto.AuditLogQuery;
 import com.aitech.rbac.model.AuditLog;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 
+/**
+ * Statements against a single monthly partition; {@code table} always comes
+ * from {@link AuditLogPartitionMapper}'s registry, never from user input.
+ */
 @Mapper
 public interface AuditLogMapper {
-        void insert(AuditLog log);
+        void insert(@Param("table") String table, @Param("log") AuditLog log);
+
+        /** Newest-first keyset page: rows strictly older than the cursor position. */
+        List<AuditLog> findPage(@Param("table") String table,
+                        @Param("query") AuditLogQuery query,
+                        @Param("cursorAt") LocalDateTime cursorAt,
+                        @Param("cursorId") UUID cursorId,
+                        @Param("limit") int limit);
+
+        /**
+         * Oldest-first rows of one partition for exports. Rows are fetched in
+         * chunks as the cursor advances; only valid inside a transaction.
+         */
+        Cursor<AuditLog> streamRange(@Param("table") String table, @Param("query") AuditLogQuery query);
 
-        List<AuditLog> findAll(@Param("entityType") String entityType,
-                        @Param("actionType") String actionType,
-                        @Param("fromDate") String fromDate,
-                        @Param("toDate") String toDate);
+        /** Distinct actors since {@code since}, most recently active first. */
+        List<java.util.UUID> findRecentActorIds(@Param("table") String table, @Param("since") LocalDateTime since,
+                        @Param("limit") int limit);
 }
@@ -0,0 +1,31 @@
+package com.aitech.rbac.mapper;
+
+import com.aitech.rbac.model.AuditLogPartition;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface AuditLogPartitionMapper {
+        void createTable(@Param("table") String table);
+
+        void createActorIndex(@Param("table") String table);
+
+        void createEntityIndex(@Param("table") String table);
+
+        void createTimeIndex(@Param("table") String table);
+
+        void dropTable(@Param("table") String table);
+
+        void register(AuditLogPartition partition);
+
+        void unregister(String partitionKey);
+
+        List<AuditLogPartition> findAll();
+
+        /** Partitions overlapping [from, to), newest first; null bounds are open. */
+        List<AuditLogPartition> findOverlapping(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+        List<AuditLogPartition> findEndingBefore(LocalDateTime cutoff);
+}
@@ -0,0 +1,29 @@
+package com.aitech.rbac.mapper;
+
+import com.aitech.rbac.model.AuthzChange;
+import com.aitech.rbac.model.AuthzChangeType;
+import org.apache.ibatis.annotations.*;
+import java.util.List;
+import java.util.UUID;
+
+@Mapper
+public interface AuthzChangeMapper {
+        /**
+         * Takes the feed row lock for the rest of the transaction, so concurrent
+         * writers commit their change ids in ascending order.
+         */
+        void lockFeed();
+
+        void insert(AuthzChange change);
+
+        /** One entry per current member of the role. */
+        void insertForRoleMembers(@Param("changeType") AuthzChangeType changeType, @Param("roleId") UUID roleId);
+
+        /** One entry per role the permission is attached to. */
+        void insertForPermissionRoles(@Param("changeType") AuthzChangeType changeType,
+                        @Param("permissionId") UUID permissionId);
+
+        List<AuthzChange> findAfter(@Param("cursor") long cursor, @Param("limit") int limit);
+
+        Long findHead();
+}
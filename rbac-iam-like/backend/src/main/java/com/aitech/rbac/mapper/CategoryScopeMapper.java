@@ -0,0 +1,25 @@
+package com.aitech.rbac.mapper;
+
+import com.aitech.rbac.model.RoleCategoryScope;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+import java.util.UUID;
+
+@Mapper
+public interface CategoryScopeMapper {
+    List<RoleCategoryScope> findByRoleId(@Param("roleId") UUID roleId);
+
+    RoleCategoryScope findById(@Param("scopeId") UUID scopeId);
+
+    void insert(RoleCategoryScope scope);
+
+    int delete(@Param("roleId") UUID roleId, @Param("scopeId") UUID scopeId);
+
+    /**
+     * Distinct (category, namespace, action, effect) rows the user holds
+     * through any assigned or inherited role.
+     */
+    List<RoleCategoryScope> findEffectiveByUserId(@Param("userId") UUID userId);
+}
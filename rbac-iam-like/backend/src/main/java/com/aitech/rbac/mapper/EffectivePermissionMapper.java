@@ -0,0 +1,32 @@
+package com.aitech.rbac.mapper;
+
+import org.apache.ibatis.annotations.*;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Mapper
+public interface EffectivePermissionMapper {
+    /** Members of the roles or of any role inheriting from them. */
+    List<UUID> findUserIdsByRoles(@Param("roleIds") Collection<UUID> roleIds);
+
+    /** Users holding the permission through any of their roles. */
+    List<UUID> findUserIdsByPermission(UUID permissionId);
+
+    /**
+     * Resource patterns granting (or denying, per {@code effect}) the user
+     * {@code namespace:action} through permissions without a policy document;
+     * the document governs the others.
+     */
+    List<String> findResourcePatterns(@Param("userId") UUID userId, @Param("namespace") String namespace,
+            @Param("action") String action, @Param("effect") String effect);
+
+    int deleteByUserIds(@Param("userIds") Collection<UUID> userIds);
+
+    int insertByUserIds(@Param("userIds") Collection<UUID> userIds);
+
+    int deleteAll();
+
+    int insertAll();
+}
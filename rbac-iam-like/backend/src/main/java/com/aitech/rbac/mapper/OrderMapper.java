@@ -9,11 +9,15 @@ import java.util.UUID;
 public interface OrderMapper {
         List<Order> findAll();
 
+        /** Rows the filter allows, for paging through PageHelper. */
+        List<Order> findVisible(@Param("filter") com.aitech.rbac.dto.RowFilter filter);
+
         Order findById(UUID id);
 
         void insert(Order order);
 
-        void update(Order order);
+        /** Full edit guarded by {@code version}; 0 when the row changed since it was read. */
+        int update(Order order);
 
         void delete(UUID id);
 }
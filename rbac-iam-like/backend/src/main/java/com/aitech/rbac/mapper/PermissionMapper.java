@@ -12,9 +12,16 @@ public interface PermissionMapper {
 
         Permission findById(UUID id);
 
+        List<com.aitech.rbac.dto.RolePermissionBindingDTO> findByRoleIds(
+                        @Param("roleIds") java.util.Collection<UUID> roleIds);
+
+        List<Permission> findEffectiveByUserId(UUID userId);
+
         void insert(Permission permission);
 
         void update(Permission permission);
 
+        Long findDocumentVersion(UUID id);
+
         void delete(UUID id);
 }
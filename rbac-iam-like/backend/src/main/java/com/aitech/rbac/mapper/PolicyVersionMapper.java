@@ -11,6 +11,8 @@ public interface PolicyVersionMapper {
 
         List<PolicyVersion> findByPermissionId(UUID permissionId);
 
+        List<PolicyVersion> findByPermissionIds(@Param("permissionIds") java.util.Collection<UUID> permissionIds);
+
         PolicyVersion findById(UUID versionId);
 
         PolicyVersion findDefaultByPermissionId(UUID permissionId);
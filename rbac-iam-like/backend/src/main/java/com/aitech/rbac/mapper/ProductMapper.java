@@ -9,11 +9,23 @@ import java.util.UUID;
 public interface ProductMapper {
         List<Product> findAll();
 
+        /** Rows the filter allows, for paging through PageHelper. */
+        List<Product> findVisible(@Param("filter") com.aitech.rbac.dto.RowFilter filter);
+
         Product findById(UUID id);
 
         void insert(Product product);
 
-        void update(Product product);
+        /** Full edit guarded by {@code version}; 0 when the row changed since it was read. */
+        int update(Product product);
+
+        /** Add {@code delta} (negative to take stock) unless it would go below zero; returns rows updated. */
+        int adjustStock(@Param("id") UUID id, @Param("delta") int delta);
+
+        /** Take quantity per SKU in one statement, only from rows with enough stock; returns rows updated. */
+        int reserveStock(@Param("quantities") java.util.Map<String, Integer> quantities);
+
+        List<Product> findBySkus(@Param("skus") java.util.Collection<String> skus);
 
         void delete(UUID id);
 }
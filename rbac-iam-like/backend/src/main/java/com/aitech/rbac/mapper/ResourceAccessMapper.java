@@ -14,5 +14,9 @@ public interface ResourceAccessMapper {
 
     List<ResourceAccess> findByPermissionId(UUID permissionId);
 
+    List<UUID> findPermissionIdsByNamespace(UUID namespaceId);
+
+    List<UUID> findPermissionIdsByActionType(UUID actionTypeId);
+
     List<ResourceAccess> findAll();
 }
@@ -0,0 +1,38 @@
+package com.aitech.rbac.mapper;
+
+import com.aitech.rbac.model.Role;
+import com.aitech.rbac.model.RoleClosure;
+import org.apache.ibatis.annotations.*;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Mapper
+public interface RoleHierarchyMapper {
+    void insertSelf(UUID roleId);
+
+    void insertEdge(@Param("roleId") UUID roleId, @Param("parentId") UUID parentId);
+
+    int deleteEdge(@Param("roleId") UUID roleId, @Param("parentId") UUID parentId);
+
+    boolean isAncestor(@Param("ancestorId") UUID ancestorId, @Param("descendantId") UUID descendantId);
+
+    /** Adds the paths created by a new parent edge to the closure. */
+    void addPaths(@Param("roleId") UUID roleId, @Param("parentId") UUID parentId);
+
+    /** Subtracts the paths carried by a removed parent edge from the closure. */
+    void removePaths(@Param("roleId") UUID roleId, @Param("parentId") UUID parentId);
+
+    void deleteEmptyPaths();
+
+    List<Role> findParents(UUID roleId);
+
+    List<Role> findAncestors(UUID roleId);
+
+    List<UUID> findParentIds(UUID roleId);
+
+    List<UUID> findChildIds(UUID roleId);
+
+    List<RoleClosure> findDescendants(@Param("roleIds") Collection<UUID> roleIds);
+}
@@ -14,6 +14,8 @@ public interface RoleMapper {
 
     List<Role> findByUserId(UUID userId);
 
+    List<com.aitech.rbac.dto.UserRoleBindingDTO> findByUserIds(@Param("userIds") java.util.Collection<UUID> userIds);
+
     void insert(Role role);
 
     void update(Role role);
@@ -15,4 +15,11 @@ public interface RolePermissionMapper {
     List<RolePermission> findByRoleId(UUID roleId);
 
     List<RolePermission> findAll();
+
+    List<RolePermission> findByPermissionIds(@Param("permissionIds") java.util.Collection<UUID> permissionIds);
+
+    List<RolePermission> findByRoleIds(@Param("roleIds") java.util.Collection<UUID> roleIds);
+
+    /** Roles, permissions and grants in one result, roles then permissions by name, then grants. */
+    List<com.aitech.rbac.dto.RolePermissionMatrix.Row> findMatrixRows();
 }
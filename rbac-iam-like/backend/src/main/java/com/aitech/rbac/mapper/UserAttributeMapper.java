@@ -0,0 +1,18 @@
+package com.aitech.rbac.mapper;
+
+import com.aitech.rbac.model.UserAttribute;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@Mapper
+public interface UserAttributeMapper {
+    List<UserAttribute> findByUserId(UUID userId);
+
+    void upsert(UserAttribute attribute);
+
+    int delete(@Param("userId") UUID userId, @Param("attrKey") String attrKey);
+
+    int deleteByUserId(UUID userId);
+}
@@ -10,10 +10,16 @@ import java.util.UUID;
 public interface UserMapper {
         List<User> findAll(@Param("search") String search);
 
+        List<User> findSummaries(@Param("search") String search);
+
         User findById(UUID id);
 
         User findByUsername(String username);
 
+        /** Users already holding any of the given usernames or emails (username and email only). */
+        List<User> findTaken(@Param("usernames") java.util.Collection<String> usernames,
+                        @Param("emails") java.util.Collection<String> emails);
+
         void insert(User user);
 
         void update(User user);
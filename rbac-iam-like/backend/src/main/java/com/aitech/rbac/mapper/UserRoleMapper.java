@@ -3,6 +3,7 @@ package com.aitech.rbac.mapper;
 import com.aitech.rbac.model.UserRole;
 import org.apache.ibatis.annotations.*;
 
+import java.util.List;
 import java.util.UUID;
 
 @Mapper
@@ -10,4 +11,21 @@ public interface UserRoleMapper {
     void insert(UserRole userRole);
 
     void delete(UserRole userRole);
+
+    List<UserRole> findByRoleIds(@Param("roleIds") java.util.Collection<UUID> roleIds);
+
+    int updateWindow(UserRole userRole);
+
+    List<UserRole> findScheduled(@Param("now") java.time.LocalDateTime now);
+
+    java.time.LocalDateTime findEarliestExpiry(UUID userId);
+
+    /** Users selected by the request that do not hold ({@code assign}) or do hold the role. */
+    List<UUID> findBulkTargets(@Param("roleId") UUID roleId,
+            @Param("query") com.aitech.rbac.dto.UserRoleBulkRequest query, @Param("assign") boolean assign);
+
+    int insertBulk(@Param("roleId") UUID roleId, @Param("userIds") java.util.Collection<UUID> userIds,
+            @Param("assignedAt") java.time.LocalDateTime assignedAt);
+
+    int deleteBulk(@Param("roleId") UUID roleId, @Param("userIds") java.util.Collection<UUID> userIds);
 }
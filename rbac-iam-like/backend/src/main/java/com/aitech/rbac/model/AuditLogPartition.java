@@ -0,0 +1,12 @@
+package com.aitech.rbac.model;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class AuditLogPartition {
+    private String partitionKey; // YYYYMM
+    private String tableName;
+    private LocalDateTime rangeStart;
+    private LocalDateTime rangeEnd; // exclusive
+}
@@ -0,0 +1,18 @@
+package com.aitech.rbac.model;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class AuthzChange {
+    private Long changeId;
+    private AuthzChangeType changeType;
+    private UUID userId;
+    private UUID roleId;
+    private UUID permissionId;
+    private LocalDateTime createdAt;
+    // Resolved when the feed is read: users whose effective grants this change touches
+    private List<UUID> affectedUserIds;
+}
@@ -0,0 +1,22 @@
+package com.aitech.rbac.model;
+
+/**
+ * Kinds of grant change recorded in the authorization change feed.
+ */
+public enum AuthzChangeType {
+    USER_ROLE_GRANTED,
+    USER_ROLE_REVOKED,
+    USER_ROLE_WINDOW_CHANGED,
+    USER_ROLE_ACTIVATED,
+    USER_ROLE_EXPIRED,
+    ROLE_PERMISSION_GRANTED,
+    ROLE_PERMISSION_REVOKED,
+    ROLE_PARENT_ADDED,
+    ROLE_PARENT_REMOVED,
+    CATEGORY_SCOPE_GRANTED,
+    CATEGORY_SCOPE_REVOKED,
+    POLICY_SEALED,
+    POLICY_ROLLED_BACK,
+    PERMISSION_CHANGED,
+    USER_DELETED
+}
@@ -12,4 +12,6 @@ public class Order {
     private BigDecimal totalAmount;
     private String status;
     private LocalDateTime orderDate;
+    // Optimistic lock: full updates must send the version they read
+    private Long version;
 }
@@ -11,6 +11,7 @@ public class Permission {
     private String permissionKey;
     private String description;
     private String policyDocument; // JSON policy document (AWS IAM-like)
+    private long documentVersion;
     private int resourceAccessCount;
     private int attachedRoleCount;
 }
@@ -12,4 +12,6 @@ public class Product {
     private BigDecimal price;
     private Integer stockQuantity;
     private String category;
+    // Optimistic lock: full updates must send the version they read
+    private Long version;
 }
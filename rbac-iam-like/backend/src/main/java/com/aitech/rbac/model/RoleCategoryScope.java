@@ -0,0 +1,16 @@
+package com.aitech.rbac.model;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+public class RoleCategoryScope {
+    private UUID scopeId;
+    private UUID roleId;
+    private UUID categoryId;
+    private String namespaceKey; // '*' for every namespace
+    private String actionKey; // '*' for every action
+    private String effect; // Allow or Deny
+    private LocalDateTime createdAt;
+}
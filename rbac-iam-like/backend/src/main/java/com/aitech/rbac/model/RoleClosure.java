@@ -0,0 +1,11 @@
+package com.aitech.rbac.model;
+
+import lombok.Data;
+import java.util.UUID;
+
+@Data
+public class RoleClosure {
+    private UUID ancestorId;
+    private UUID descendantId;
+    private long pathCount;
+}
@@ -0,0 +1,13 @@
+package com.aitech.rbac.model;
+
+import lombok.Data;
+import java.util.*;
+import java.time.LocalDateTime;
+
+@Data
+public class UserAttribute {
+    private UUID userId;
+    private String attrKey;
+    private String attrValue;
+    private LocalDateTime updatedAt;
+}
@@ -9,4 +9,6 @@ public class UserRole {
     private UUID userId;
     private UUID roleId;
     private LocalDateTime assignedAt;
+    private LocalDateTime validFrom;
+    private LocalDateTime validUntil;
 }
@@ -0,0 +1,21 @@
+package com.aitech.rbac.security;
+
+import java.util.UUID;
+
+record DecisionKey(String userId, String namespace, String action, UUID categoryId, String resourceId) {
+
+    static DecisionKey of(IamCenterClient.EvaluateRequest request) {
+        return new DecisionKey(request.getUserId(), request.getNamespace(), request.getAction(),
+                request.getCategoryId(), request.getResourceId());
+    }
+
+    IamCenterClient.EvaluateRequest toRequest() {
+        return IamCenterClient.EvaluateRequest.builder()
+                .userId(userId)
+                .namespace(namespace)
+                .action(action)
+                .categoryId(categoryId)
+                .resourceId(resourceId)
+                .build();
+    }
+}
@@ -0,0 +1,98 @@
+package com.aitech.rbac.security;
+
+import com.aitech.rbac.model.AuthzChange;
+import com.aitech.rbac.model.AuthzChangeType;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects login tokens issued before a change that may have narrowed the
+ * holder's grants, since their permission and category claims would
+ * otherwise stay valid until the token expires. Changes arrive from the
+ * authorization change feed, so every instance sees them; entries are kept
+ * only as long as a token can live. The client logs in again and gets
+ * claims for its current grants.
+ *
+ * Tokens without a {@code uid} claim are not issued by this service and are
+ * not checked.
+ */
+@Component
+public class GrantRevocations implements OAuth2TokenValidator<Jwt> {
+
+    public static final String USER_ID_CLAIM = "uid";
+
+    // Changes that can only add grants leave existing tokens under-privileged, never over
+    private static final Set<AuthzChangeType> WIDENING = EnumSet.of(AuthzChangeType.USER_ROLE_GRANTED,
+            AuthzChangeType.USER_ROLE_ACTIVATED, AuthzChangeType.ROLE_PERMISSION_GRANTED,
+            AuthzChangeType.ROLE_PARENT_ADDED, AuthzChangeType.CATEGORY_SCOPE_GRANTED);
+
+    private static final OAuth2Error STALE = new OAuth2Error(OAuth2ErrorCodes.INVALID_TOKEN,
+            "Grants changed after this token was issued", null);
+
+    private final Cache<UUID, Instant> revokedAt;
+
+    public GrantRevocations(@Value("${security.jwt.expiration}") long jwtExpirationMs) {
+        this.revokedAt = Caffeine.newBuilder().expireAfterWrite(jwtExpirationMs, TimeUnit.MILLISECONDS).build();
+    }
+
+    /** Records a change read from the feed against the user and every user it affects. */
+    public void apply(AuthzChange change) {
+        if (change.getChangeType() == null || WIDENING.contains(change.getChangeType())) {
+            return;
+        }
+        LocalDateTime createdAt = change.getCreatedAt() != null ? change.getCreatedAt() : LocalDateTime.now();
+        Instant at = createdAt.atZone(ZoneId.systemDefault()).toInstant();
+        if (change.getUserId() != null) {
+            revoked(change.getUserId(), at);
+        }
+        if (change.getAffectedUserIds() != null) {
+            for (UUID userId : change.getAffectedUserIds()) {
+                revoked(userId, at);
+            }
+        }
+    }
+
+    public void revoked(UUID userId, Instant at) {
+        // iat has second precision, so a token issued in the same second counts as before
+        Instant second = at.truncatedTo(ChronoUnit.SECONDS);
+        revokedAt.asMap().merge(userId, second, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    public boolean isStale(UUID userId, Instant issuedAt) {
+        Instant revoked = revokedAt.getIfPresent(userId);
+        return revoked != null && (issuedAt == null || !issuedAt.isAfter(revoked));
+    }
+
+    @Override
+    public OAuth2TokenValidatorResult validate(Jwt token) {
+        String userId = token.getClaimAsString(USER_ID_CLAIM);
+        if (userId == null) {
+            return OAuth2TokenValidatorResult.success();
+        }
+        try {
+            if (isStale(UUID.fromString(userId), token.getIssuedAt())) {
+                return OAuth2TokenValidatorResult.failure(STALE);
+            }
+        } catch (IllegalArgumentException e) {
+            return OAuth2TokenValidatorResult.failure(new OAuth2Error(OAuth2ErrorCodes.INVALID_TOKEN,
+                    "Malformed uid claim", null));
+        }
+        return OAuth2TokenValidatorResult.success();
+    }
+}
@@ -1,36 +1,94 @@
 package com.aitech.rbac.security;
 
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.Builder;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Decisions are cached per (user, namespace, action, category, resource) in
+ * {@link IamDecisionCache}. Concurrent lookups of the same key share one
+ * in-flight remote call, and failed calls are never cached.
+ */
 @Slf4j
 @Component
 public class IamCenterClient {
 
     private final RestTemplate restTemplate;
+    private final CloseableHttpClient httpClient;
+    private final CircuitBreaker circuitBreaker;
+    private final IamDecisionCache decisionCache;
+    private final ConcurrentMap<DecisionKey, CompletableFuture<EvaluateResponse>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService refreshPool;
+    private final Counter coalesced;
+    private final String iamCenterUrl;
+    private final String serviceName;
+    private final String serviceToken;
 
-    @Value("${iam.center.url:https://iam.internal}")
-    private String iamCenterUrl;
-
-    @Value("${iam.service.name:hyperion-cms}")
-    private String serviceName;
-
-    @Value("${iam.service.token:secret-token}")
-    private String serviceToken;
-
-    public IamCenterClient() {
-        this.restTemplate = new RestTemplate();
+    public IamCenterClient(CircuitBreakerRegistry circuitBreakers, MeterRegistry meterRegistry,
+            IamDecisionCache decisionCache,
+            @Value("${iam.center.url:https://iam.internal}") String iamCenterUrl,
+            @Value("${iam.service.name:hyperion-cms}") String serviceName,
+            @Value("${iam.service.token:secret-token}") String serviceToken,
+            @Value("${iam.center.client.max-connections:50}") int maxConnections,
+            @Value("${iam.center.client.connect-timeout-ms:500}") long connectTimeoutMs,
+            @Value("${iam.center.client.connection-request-timeout-ms:200}") long connectionRequestTimeoutMs,
+            @Value("${iam.center.client.response-timeout-ms:2000}") long responseTimeoutMs,
+            @Value("${iam.center.cache.refresh-threads:2}") int refreshThreads) {
+        this.iamCenterUrl = iamCenterUrl;
+        this.serviceName = serviceName;
+        this.serviceToken = serviceToken;
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        // Every call goes to the one IAM center route
+                        .setMaxConnTotal(maxConnections)
+                        .setMaxConnPerRoute(maxConnections)
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                                .setSocketTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                                .build())
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
+        this.restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        this.circuitBreaker = circuitBreakers.circuitBreaker("iamCenter");
+        this.decisionCache = decisionCache;
+        AtomicInteger threadIds = new AtomicInteger();
+        this.refreshPool = Executors.newFixedThreadPool(refreshThreads, r -> {
+            Thread thread = new Thread(r, "iam-decision-refresh-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.coalesced = meterRegistry.counter("rbac.iam.remote.coalesced");
     }
 
     @Data
@@ -51,11 +109,113 @@ public class IamCenterClient {
         private String matchedRole;
     }
 
-    @Cacheable(value = "iamRemoteDecisions", key = "#request.userId + #request.namespace + #request.action + #request.categoryId")
-    @CircuitBreaker(name = "iamCenter", fallbackMethod = "fallbackEvaluate")
     public EvaluateResponse evaluate(EvaluateRequest request, String correlationId, String userToken) {
-        log.info("Calling Remote IAM for user: {} on {}:{}", request.userId, request.namespace, request.action);
+        return evaluateAll(List.of(request), correlationId, userToken).get(0);
+    }
+
+    /**
+     * Prefetches several decisions with one call to the batch endpoint; only
+     * keys neither cached nor already in flight are sent. Responses are in
+     * request order.
+     */
+    public List<EvaluateResponse> evaluateAll(List<EvaluateRequest> requests, String correlationId,
+            String userToken) {
+        Map<DecisionKey, CompletableFuture<EvaluateResponse>> pending = new HashMap<>();
+        Map<DecisionKey, EvaluateRequest> owned = new LinkedHashMap<>();
+        List<DecisionKey> stale = new ArrayList<>();
+        for (EvaluateRequest request : requests) {
+            DecisionKey key = DecisionKey.of(request);
+            if (!pending.containsKey(key)) {
+                pending.put(key, claim(key, request, owned, stale));
+            }
+        }
+        if (!owned.isEmpty()) {
+            load(owned, pending, correlationId, userToken);
+        }
+        if (!stale.isEmpty()) {
+            refreshAsync(stale);
+        }
+        List<EvaluateResponse> responses = new ArrayList<>(requests.size());
+        for (EvaluateRequest request : requests) {
+            responses.add(await(pending.get(DecisionKey.of(request))));
+        }
+        return responses;
+    }
+
+    // Returns the cached or in-flight decision, or registers this caller as its loader
+    private CompletableFuture<EvaluateResponse> claim(DecisionKey key, EvaluateRequest request,
+            Map<DecisionKey, EvaluateRequest> owned, List<DecisionKey> stale) {
+        IamDecisionCache.Hit hit = decisionCache.get(key);
+        if (hit != null) {
+            if (hit.refresh()) {
+                stale.add(key);
+            }
+            return CompletableFuture.completedFuture(hit.response());
+        }
+        CompletableFuture<EvaluateResponse> mine = new CompletableFuture<>();
+        CompletableFuture<EvaluateResponse> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+        owned.put(key, request);
+        return mine;
+    }
+
+    private void load(Map<DecisionKey, EvaluateRequest> owned,
+            Map<DecisionKey, CompletableFuture<EvaluateResponse>> pending, String correlationId, String userToken) {
+        List<EvaluateRequest> batch = new ArrayList<>(owned.values());
+        try {
+            List<EvaluateResponse> responses = circuitBreaker
+                    .executeSupplier(() -> post(batch, correlationId, userToken));
+            int i = 0;
+            for (DecisionKey key : owned.keySet()) {
+                EvaluateResponse response = responses.get(i++);
+                decisionCache.put(key, response);
+                inFlight.remove(key);
+                pending.get(key).complete(response);
+            }
+        } catch (RuntimeException e) {
+            log.error("IAM Center call failed for {} decision(s). Reason: {}", batch.size(), e.getMessage());
+            for (DecisionKey key : owned.keySet()) {
+                pending.get(key).completeExceptionally(e);
+            }
+        } finally {
+            // Also runs on an Error, so coalesced callers never wait on an orphaned future
+            for (DecisionKey key : owned.keySet()) {
+                inFlight.remove(key);
+                pending.get(key)
+                        .completeExceptionally(new IllegalStateException("IAM Center call did not complete"));
+            }
+        }
+    }
+
+    // Reloads entries nearing expiry; callers were already served the cached decision
+    private void refreshAsync(List<DecisionKey> keys) {
+        try {
+            refreshPool.execute(() -> {
+                List<EvaluateRequest> batch = keys.stream().map(DecisionKey::toRequest).toList();
+                try {
+                    // Refreshes run without a caller, so only the service credentials are sent
+                    List<EvaluateResponse> responses = circuitBreaker
+                            .executeSupplier(() -> post(batch, UUID.randomUUID().toString(), null));
+                    for (int i = 0; i < keys.size(); i++) {
+                        decisionCache.put(keys.get(i), responses.get(i));
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("IAM Center refresh failed for {} decision(s). Reason: {}", keys.size(),
+                            e.getMessage());
+                } finally {
+                    // No-op for keys already put; releases the rest for a later retry
+                    keys.forEach(decisionCache::refreshFailed);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            keys.forEach(decisionCache::refreshFailed);
+        }
+    }
 
+    private List<EvaluateResponse> post(List<EvaluateRequest> batch, String correlationId, String userToken) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.set("X-Service-Name", serviceName);
@@ -65,24 +225,42 @@ public class IamCenterClient {
             headers.set("Authorization", "Bearer " + userToken);
         }
 
-        HttpEntity<EvaluateRequest> entity = new HttpEntity<>(request, headers);
+        if (batch.size() == 1) {
+            EvaluateRequest request = batch.get(0);
+            log.info("Calling Remote IAM for user: {} on {}:{}", request.userId, request.namespace, request.action);
+            EvaluateResponse response = restTemplate.postForObject(iamCenterUrl + "/iam/access/evaluate",
+                    new HttpEntity<>(request, headers), EvaluateResponse.class);
+            if (response == null) {
+                throw new IllegalStateException("Remote IAM returned no decision");
+            }
+            return List.of(response);
+        }
 
-        // This is a placeholder for the actual API call
-        // return restTemplate.postForObject(iamCenterUrl + "/iam/access/evaluate",
-        // entity, EvaluateResponse.class);
+        log.info("Calling Remote IAM for {} decisions", batch.size());
+        EvaluateResponse[] responses = restTemplate.postForObject(iamCenterUrl + "/iam/access/evaluate/batch",
+                new HttpEntity<>(batch, headers), EvaluateResponse[].class);
+        if (responses == null || responses.length != batch.size()
+                || Arrays.stream(responses).anyMatch(Objects::isNull)) {
+            throw new IllegalStateException("Remote IAM returned " + (responses == null ? 0 : responses.length)
+                    + " decisions for " + batch.size() + " requests");
+        }
+        return Arrays.asList(responses);
+    }
 
-        // For demonstration/testing, we return a simulated response if API not
-        // available
-        throw new RuntimeException("Remote IAM API not connected");
+    private static EvaluateResponse await(CompletableFuture<EvaluateResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            EvaluateResponse response = new EvaluateResponse();
+            response.setAllowed(false);
+            response.setReason("REMOTE_IAM_UNAVAILABLE");
+            return response;
+        }
     }
 
-    public EvaluateResponse fallbackEvaluate(EvaluateRequest request, String correlationId, String userToken,
-            Throwable t) {
-        log.error("IAM Center fallback triggered for {}:{}. Reason: {}", request.namespace, request.action,
-                t.getMessage());
-        EvaluateResponse response = new EvaluateResponse();
-        response.setAllowed(false);
-        response.setReason("REMOTE_IAM_UNAVAILABLE");
-        return response;
+    @PreDestroy
+    public void close() {
+        refreshPool.shutdownNow();
+        httpClient.close(CloseMode.GRACEFUL);
     }
 }
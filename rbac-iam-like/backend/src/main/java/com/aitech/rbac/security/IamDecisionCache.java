@@ -0,0 +1,142 @@
+package com.aitech.rbac.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remote IAM decisions, with allows and denies held in separate caches so
+ * each has its own TTL and byte budget. With refresh-ahead enabled, a hit on
+ * an entry past that fraction of its TTL is handed back for an asynchronous
+ * reload, so hot keys never expire under load.
+ */
+@Component
+public class IamDecisionCache {
+
+    private static final String CACHE_NAME = "iamRemoteDecisions";
+
+    private final Cache<DecisionKey, Entry> allowed;
+    private final Cache<DecisionKey, Entry> denied;
+    private final long allowRefreshNanos;
+    private final long denyRefreshNanos;
+    private final Ticker ticker;
+    private final Set<DecisionKey> refreshing = ConcurrentHashMap.newKeySet();
+    private final Counter hits;
+    private final Counter misses;
+
+    private record Entry(IamCenterClient.EvaluateResponse response, long loadedAt) {
+    }
+
+    record Hit(IamCenterClient.EvaluateResponse response, boolean refresh) {
+    }
+
+    @Autowired
+    public IamDecisionCache(MeterRegistry meterRegistry,
+            @Value("${iam.center.cache.allow.ttl-seconds:600}") long allowTtlSeconds,
+            @Value("${iam.center.cache.allow.max-megabytes:64}") long allowMaxMegabytes,
+            @Value("${iam.center.cache.deny.ttl-seconds:60}") long denyTtlSeconds,
+            @Value("${iam.center.cache.deny.max-megabytes:16}") long denyMaxMegabytes,
+            @Value("${iam.center.cache.refresh-ahead:0.8}") double refreshAhead) {
+        this(meterRegistry, Ticker.systemTicker(), allowTtlSeconds, allowMaxMegabytes, denyTtlSeconds,
+                denyMaxMegabytes, refreshAhead);
+    }
+
+    IamDecisionCache(MeterRegistry meterRegistry, Ticker ticker, long allowTtlSeconds, long allowMaxMegabytes,
+            long denyTtlSeconds, long denyMaxMegabytes, double refreshAhead) {
+        if (refreshAhead < 0 || refreshAhead >= 1) {
+            throw new IllegalArgumentException("iam.center.cache.refresh-ahead must be in [0, 1)");
+        }
+        this.ticker = ticker;
+        this.allowed = build(ticker, allowTtlSeconds, allowMaxMegabytes);
+        this.denied = build(ticker, denyTtlSeconds, denyMaxMegabytes);
+        // 0 disables refresh-ahead
+        this.allowRefreshNanos = refreshAhead > 0
+                ? (long) (TimeUnit.SECONDS.toNanos(allowTtlSeconds) * refreshAhead) : Long.MAX_VALUE;
+        this.denyRefreshNanos = refreshAhead > 0
+                ? (long) (TimeUnit.SECONDS.toNanos(denyTtlSeconds) * refreshAhead) : Long.MAX_VALUE;
+
+        CaffeineCacheMetrics.monitor(meterRegistry, allowed, CACHE_NAME, "outcome", "allow");
+        CaffeineCacheMetrics.monitor(meterRegistry, denied, CACHE_NAME, "outcome", "deny");
+        this.hits = meterRegistry.counter("rbac.iam.decisions.lookups", "result", "hit");
+        this.misses = meterRegistry.counter("rbac.iam.decisions.lookups", "result", "miss");
+        Gauge.builder("rbac.iam.decisions.hit.ratio", this, IamDecisionCache::hitRatio).register(meterRegistry);
+    }
+
+    private static Cache<DecisionKey, Entry> build(Ticker ticker, long ttlSeconds, long maxMegabytes) {
+        return Caffeine.newBuilder()
+                .ticker(ticker)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .maximumWeight(maxMegabytes * 1024 * 1024)
+                .weigher(IamDecisionCache::weigh)
+                .recordStats()
+                .build();
+    }
+
+    // Approximate retained bytes: fixed object overhead plus two bytes per character
+    private static int weigh(DecisionKey key, Entry entry) {
+        IamCenterClient.EvaluateResponse response = entry.response();
+        return 200 + 2 * (length(key.userId()) + length(key.namespace()) + length(key.action())
+                + length(key.resourceId()) + length(response.getReason()) + length(response.getMatchedPolicy())
+                + length(response.getMatchedRole()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * A cached decision from either cache, or null. A hit with refresh set
+     * means the entry is past its refresh-ahead point and the caller now owns
+     * its reload, which must end with {@link #put} or {@link #refreshFailed}.
+     */
+    Hit get(DecisionKey key) {
+        // Read through asMap so probing both caches records no Caffeine hit/miss
+        // stats; lookups are counted once below instead
+        Entry entry = allowed.asMap().get(key);
+        if (entry == null) {
+            entry = denied.asMap().get(key);
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        long refreshAfter = entry.response().isAllowed() ? allowRefreshNanos : denyRefreshNanos;
+        boolean refresh = ticker.read() - entry.loadedAt() >= refreshAfter && refreshing.add(key);
+        return new Hit(entry.response(), refresh);
+    }
+
+    void put(DecisionKey key, IamCenterClient.EvaluateResponse response) {
+        Entry entry = new Entry(response, ticker.read());
+        // A refreshed decision may have flipped, so it must leave the other cache
+        if (response.isAllowed()) {
+            allowed.put(key, entry);
+            denied.invalidate(key);
+        } else {
+            denied.put(key, entry);
+            allowed.invalidate(key);
+        }
+        refreshing.remove(key);
+    }
+
+    // The stale entry is kept until it expires; a later hit may retry the refresh
+    void refreshFailed(DecisionKey key) {
+        refreshing.remove(key);
+    }
+
+    private double hitRatio() {
+        double lookups = hits.count() + misses.count();
+        return lookups == 0 ? 0 : hits.count() / lookups;
+    }
+}
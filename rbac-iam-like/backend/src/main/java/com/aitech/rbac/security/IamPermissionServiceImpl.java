@@ -1,5 +1,7 @@
 package com.aitech.rbac.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Primary;
@@ -21,6 +23,7 @@ import java.util.UUID;
 public class IamPermissionServiceImpl implements PermissionService {
 
     private final IamCenterClient iamCenterClient;
+    private final MeterRegistry meterRegistry;
 
     @Override
     public boolean can(String namespace, String action) {
@@ -45,6 +48,7 @@ public class IamPermissionServiceImpl implements PermissionService {
     @Override
     public PermissionDecision evaluate(String namespace, String action, UUID categoryId, String resourceId) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Timer.Sample sample = Timer.start(meterRegistry);
 
         if (authentication instanceof JwtAuthenticationToken jwtAuth) {
             Jwt jwt = jwtAuth.getToken();
@@ -52,12 +56,19 @@ public class IamPermissionServiceImpl implements PermissionService {
 
             if (localDecision != null) {
                 localDecision.setResourceId(resourceId);
-                return localDecision;
+                return record(sample, localDecision);
             }
         }
 
         // Fallback to remote IAM
-        return evaluateViaRemote(authentication, namespace, action, categoryId, resourceId);
+        return record(sample, evaluateViaRemote(authentication, namespace, action, categoryId, resourceId));
+    }
+
+    private PermissionDecision record(Timer.Sample sample, PermissionDecision decision) {
+        sample.stop(meterRegistry.timer("rbac.authz.evaluate",
+                "path", "JWT".equals(decision.getSource()) ? "jwt" : "remote",
+                "outcome", decision.isAllowed() ? "allow" : "deny"));
+        return decision;
     }
 
     private PermissionDecision evaluateViaJwt(Jwt jwt, String namespace, String action, UUID categoryId) {
@@ -73,7 +84,7 @@ public class IamPermissionServiceImpl implements PermissionService {
                     List<String> denied = (List<String>) scope.get("deny");
                     if (denied != null) {
                         for (String p : denied) {
-                            if (p.equals(namespace + ":" + action) || p.equals(namespace + ":*") || p.equals("*:*")) {
+                            if (matches(p, namespace, action)) {
                                 return PermissionDecision.builder()
                                         .allowed(false)
                                         .reasonCode(DecisionReason.DENIED_CATEGORY_SCOPE)
@@ -130,6 +141,19 @@ public class IamPermissionServiceImpl implements PermissionService {
             }
         }
 
+        // 4. Tokens issued by this service carry the user's complete category
+        // scopes, so a category check with no match is denied without a remote call
+        if (categoryId != null && categoryScopes != null) {
+            return PermissionDecision.builder()
+                    .allowed(false)
+                    .reasonCode(DecisionReason.DENIED_BY_DEFAULT)
+                    .source("JWT")
+                    .namespace(namespace)
+                    .action(action)
+                    .categoryId(categoryId)
+                    .build();
+        }
+
         // If we have a JWT but no match found, and we want to fall through to remote,
         // we return null.
         // Or if we consider JWT authoritative for what it contains, we might return
@@ -192,6 +216,8 @@ public class IamPermissionServiceImpl implements PermissionService {
             return true;
         if (permission.equals(namespace + ":" + action))
             return true;
+        if (permission.equals("*:" + action))
+            return true;
         return false;
     }
 
@@ -1,6 +1,9 @@
 package com.aitech.rbac.security;
 
+import com.aitech.rbac.config.ServerTiming;
 import com.aitech.rbac.service.AuditService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
@@ -22,17 +25,24 @@ public class PermissionAspect {
 
     private final PermissionService permissionService;
     private final AuditService auditService;
+    private final MeterRegistry meterRegistry;
     private final ExpressionParser parser = new SpelExpressionParser();
 
     @Before("@annotation(requirePermission)")
     public void checkPermission(JoinPoint joinPoint, RequirePermission requirePermission) {
         String namespace = requirePermission.namespace();
         String action = requirePermission.action();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        PermissionDecision decision;
 
-        PermissionDecision decision = permissionService.evaluate(namespace, action, null, null);
+        try (ServerTiming.Span span = ServerTiming.start("authz")) {
+            decision = permissionService.evaluate(namespace, action, null, null);
 
-        // We need to implement logDecision in AuditService
-        auditService.logDecision(decision);
+            // We need to implement logDecision in AuditService
+            auditService.logDecision(decision);
+        }
+        sample.stop(meterRegistry.timer("rbac.authz.aspect", "scope", "global",
+                "outcome", decision.isAllowed() ? "allow" : "deny"));
 
         if (!decision.isAllowed()) {
             throw new PermissionDeniedException(decision);
@@ -44,12 +54,18 @@ public class PermissionAspect {
         String namespace = requireCategoryPermission.namespace();
         String action = requireCategoryPermission.action();
         String paramName = requireCategoryPermission.categoryIdParam();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        PermissionDecision decision;
 
-        UUID categoryId = resolveCategoryId(joinPoint, paramName);
+        try (ServerTiming.Span span = ServerTiming.start("authz")) {
+            UUID categoryId = resolveCategoryId(joinPoint, paramName);
 
-        PermissionDecision decision = permissionService.evaluate(namespace, action, categoryId, null);
+            decision = permissionService.evaluate(namespace, action, categoryId, null);
 
-        auditService.logDecision(decision);
+            auditService.logDecision(decision);
+        }
+        sample.stop(meterRegistry.timer("rbac.authz.aspect", "scope", "category",
+                "outcome", decision.isAllowed() ? "allow" : "deny"));
 
         if (!decision.isAllowed()) {
             throw new PermissionDeniedException(decision);
@@ -0,0 +1,29 @@
+package com.aitech.rbac.service;
+
+import com.aitech.rbac.dto.AccessReviewEntry;
+import com.aitech.rbac.dto.PageResponse;
+
+import java.util.UUID;
+
+/**
+ * Reverse lookup over the grants the evaluator applies, resource_access pairs
+ * and policy documents: which users can perform an action, instead of whether
+ * one user can.
+ */
+public interface AccessReviewService {
+    /**
+     * Users allowed {@code namespace:action} on {@code resource}, ordered by
+     * username. A statement counts when its resource pattern covers the
+     * requested resource string; explicit unconditional denies remove a user,
+     * conditional denies do not.
+     *
+     * A null resource means any resource: an allow on at least one resource
+     * counts, and only a deny covering every resource removes the user.
+     */
+    PageResponse<AccessReviewEntry> whoCan(String namespace, String action, String resource, int page, int size);
+
+    /** Re-index one permission's grants and document once the current transaction commits. */
+    void refreshPermission(UUID permissionId);
+
+    void rebuild();
+}
@@ -1,7 +1,11 @@
 package com.aitech.rbac.service;
 
-import com.aitech.rbac.model.AuditLog;
-import java.util.List;
+import com.aitech.rbac.dto.AuditExportFormat;
+import com.aitech.rbac.dto.AuditLogPage;
+import com.aitech.rbac.dto.AuditLogQuery;
+
+import java.io.IOException;
+import java.io.OutputStream;
 
 public interface AuditService {
     void logAction(String actionType, String entityType, String entityId, Object oldValue, Object newValue,
@@ -9,5 +13,14 @@ public interface AuditService {
 
     void logDecision(com.aitech.rbac.security.PermissionDecision decision);
 
-    List<AuditLog> getLogs(String entityType, String actionType, String fromDate, String toDate);
+    /** Newest-first keyset page across the monthly audit partitions. */
+    AuditLogPage getLogs(AuditLogQuery query);
+
+    /**
+     * Stream every matching entry, oldest first, to {@code out} without
+     * buffering the result set. Cursor and limit of the query are ignored.
+     *
+     * @return number of rows written
+     */
+    long exportLogs(AuditLogQuery query, AuditExportFormat format, OutputStream out) throws IOException;
 }
@@ -0,0 +1,55 @@
+package com.aitech.rbac.service;
+
+import com.aitech.rbac.dto.AuthzChangePage;
+import com.aitech.rbac.model.AuthzChangeType;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Append-only feed of grant changes. Writers record entries inside their own
+ * transaction; downstream caches follow the feed by cursor and invalidate only
+ * the users each entry affects.
+ */
+public interface AuthzChangeFeedService {
+    /**
+     * Record a single change. Must be called from within the write transaction
+     * that performs the change.
+     */
+    void record(AuthzChangeType changeType, UUID userId, UUID roleId, UUID permissionId);
+
+    /**
+     * Record many changes in one JDBC batch, e.g. a bulk matrix edit. Must be
+     * called from within the write transaction.
+     */
+    void recordAll(java.util.List<com.aitech.rbac.model.AuthzChange> changes);
+
+    /**
+     * Record one entry per current member of the role, e.g. before the role is
+     * deleted and its assignments cascade away.
+     */
+    void recordRoleMembers(AuthzChangeType changeType, UUID roleId);
+
+    /**
+     * Record one entry per role the permission is attached to, e.g. before the
+     * permission is deleted.
+     */
+    void recordPermissionRoles(AuthzChangeType changeType, UUID permissionId);
+
+    /**
+     * Entries after the cursor, oldest first, with affected users resolved.
+     */
+    AuthzChangePage read(long cursor, int limit);
+
+    /**
+     * Cursor of the newest entry; consumers start from here after a full
+     * cache reset.
+     */
+    long head();
+
+    /**
+     * Like {@link #read} but, when nothing is pending, waits up to
+     * {@code waitMillis} for a new entry to be committed.
+     */
+    CompletableFuture<AuthzChangePage> poll(long cursor, int limit, long waitMillis);
+}
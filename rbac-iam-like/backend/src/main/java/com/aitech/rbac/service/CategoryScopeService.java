@@ -0,0 +1,23 @@
+package com.aitech.rbac.service;
+
+import com.aitech.rbac.model.RoleCategoryScope;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public interface CategoryScopeService {
+    List<RoleCategoryScope> getByRoleId(UUID roleId);
+
+    RoleCategoryScope grant(RoleCategoryScope scope);
+
+    void revoke(UUID roleId, UUID scopeId);
+
+    /**
+     * The user's category scopes in the shape of the {@code categoryScopes}
+     * token claim: one entry per category with {@code allow} and {@code deny}
+     * lists of {@code namespace:action}, wildcards collapsed and empty lists
+     * omitted.
+     */
+    List<Map<String, Object>> buildClaim(UUID userId);
+}
@@ -0,0 +1,21 @@
+package com.aitech.rbac.service;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Maintains {@code user_effective_permissions}. The refresh methods must be
+ * called inside the write transaction; affected users are collected and
+ * recomputed once, just before that transaction commits.
+ */
+public interface EffectivePermissionService {
+    void refreshUsers(Collection<UUID> userIds);
+
+    /** Refresh members of the role and of every role inheriting from it. */
+    void refreshRole(UUID roleId);
+
+    void refreshPermission(UUID permissionId);
+
+    /** Recompute the whole table, repairing any drift. */
+    void rebuild();
+}
@@ -0,0 +1,18 @@
+package com.aitech.rbac.service;
+
+import java.util.List;
+
+/** Stock would go below zero; nothing was changed. */
+public class InsufficientStockException extends RuntimeException {
+
+    private final List<String> skus;
+
+    public InsufficientStockException(List<String> skus) {
+        super("Insufficient stock for " + String.join(", ", skus));
+        this.skus = skus;
+    }
+
+    public List<String> getSkus() {
+        return skus;
+    }
+}
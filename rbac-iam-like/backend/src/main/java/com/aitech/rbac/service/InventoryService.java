@@ -0,0 +1,30 @@
+package com.aitech.rbac.service;
+
+import com.aitech.rbac.dto.StockReservationRequest;
+import com.aitech.rbac.model.Product;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Stock mutations that stay correct under concurrent writers without locking
+ * the table: stock moves by atomic deltas guarded in the UPDATE itself, and
+ * full edits carry the version they read.
+ */
+public interface InventoryService {
+    /**
+     * Full edit. Throws OptimisticLockingFailureException when the product
+     * changed since {@code product.version} was read, including by stock
+     * adjustments.
+     */
+    Product update(UUID productId, Product product);
+
+    /** Add {@code delta} to the stock (negative to take); throws InsufficientStockException below zero. */
+    Product adjustStock(UUID productId, int delta);
+
+    /**
+     * Take every requested quantity or none of them. Repeated SKUs are summed.
+     * Throws InsufficientStockException listing the SKUs that are short.
+     */
+    List<Product> reserve(List<StockReservationRequest.Item> items);
+}
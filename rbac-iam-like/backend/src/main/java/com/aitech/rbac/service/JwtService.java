@@ -30,11 +30,21 @@ public class JwtService {
     }
 
     public String generateToken(java.util.Map<String, Object> extraClaims, UserDetails userDetails) {
+        return generateToken(extraClaims, userDetails, null);
+    }
+
+    /** As above, but the token expires no later than {@code notAfter} when given. */
+    public String generateToken(java.util.Map<String, Object> extraClaims, UserDetails userDetails, Date notAfter) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + jwtExpiration;
+        if (notAfter != null) {
+            expiresAt = Math.min(expiresAt, notAfter.getTime());
+        }
         return Jwts.builder()
                 .setClaims(extraClaims)
                 .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(expiresAt))
                 .signWith(getSignInKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
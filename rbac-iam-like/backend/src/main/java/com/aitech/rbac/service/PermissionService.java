@@ -6,6 +6,10 @@ import java.util.*;
 public interface PermissionService {
     List<Permission> getAll();
     Permission getById(UUID id);
+    /**
+     * Permissions of many roles in a single query, keyed by role id.
+     */
+    Map<UUID, List<Permission>> getByRoleIds(Collection<UUID> roleIds);
     void create(Permission entity);
     void update(Permission entity);
     void delete(UUID id);
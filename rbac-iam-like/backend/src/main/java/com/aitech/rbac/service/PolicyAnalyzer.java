@@ -0,0 +1,300 @@
+package com.aitech.rbac.service;
+
+import com.aitech.rbac.dto.PolicyAnalysis;
+import com.aitech.rbac.dto.PolicyAnalysis.Finding;
+import com.aitech.rbac.dto.PolicyAnalysis.FindingType;
+import com.aitech.rbac.model.policy.PolicyDocument;
+import com.aitech.rbac.model.policy.PolicyStatement;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Finds redundant statements in a policy document and produces a smaller
+ * document that evaluates every request the same way (explicit Deny wins, then
+ * any Allow, else deny; '*' and '?' wildcards as in the evaluator).
+ *
+ * Pattern coverage is decided conservatively: a pattern covers another when
+ * it is "*", equal, matches it as a literal, or is a trailing-"*" prefix of
+ * it. Statements using NotAction or NotResource are only ever compared for
+ * equality, so anything the analyzer cannot prove redundant is kept.
+ */
+@Service
+public class PolicyAnalyzer {
+
+    // Accepts both the evaluator's document format and PolicyEngine output
+    private final ObjectMapper lenientMapper = JsonMapper.builder()
+            .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    public PolicyDocument parse(String json) {
+        try {
+            return lenientMapper.readValue(json, PolicyDocument.class);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid policy document JSON", e);
+        }
+    }
+
+    public PolicyAnalysis analyze(PolicyDocument document) {
+        List<Finding> findings = new ArrayList<>();
+        List<PolicyStatement> statements = new ArrayList<>();
+        List<PolicyStatement> original = document.getStatement() != null ? document.getStatement() : List.of();
+        for (int i = 0; i < original.size(); i++) {
+            PolicyStatement copy = copyOf(original.get(i));
+            if (copy.getSid() == null) {
+                copy.setSid("#" + i);
+            }
+            statements.add(copy);
+        }
+
+        for (PolicyStatement statement : statements) {
+            statement.setAction(minimizeEntries(statement, statement.getAction(), "Action", findings));
+            statement.setNotAction(minimizeEntries(statement, statement.getNotAction(), "NotAction", findings));
+            statement.setResource(minimizeEntries(statement, statement.getResource(), "Resource", findings));
+            statement.setNotResource(minimizeEntries(statement, statement.getNotResource(), "NotResource", findings));
+        }
+
+        statements.removeIf(statement -> {
+            boolean unreachable = statement.getAction() != null ? statement.getAction().isEmpty()
+                    : statement.getNotAction() == null;
+            if (unreachable) {
+                findings.add(new Finding(FindingType.UNREACHABLE_STATEMENT, statement.getSid(),
+                        "Statement has no Action to match"));
+            }
+            return unreachable;
+        });
+
+        removeShadowedAllows(statements, findings);
+        removeSubsumedStatements(statements, findings);
+        mergeStatements(statements, findings);
+
+        PolicyDocument minimized = new PolicyDocument();
+        minimized.setVersion(document.getVersion());
+        minimized.setId(document.getId());
+        minimized.setName(document.getName());
+        minimized.setDescription(document.getDescription());
+        minimized.setMeta(document.getMeta());
+        for (PolicyStatement statement : statements) {
+            if (statement.getSid().startsWith("#")) {
+                statement.setSid(null);
+            }
+        }
+        minimized.setStatement(statements);
+
+        PolicyAnalysis analysis = new PolicyAnalysis();
+        analysis.setOriginalStatements(original.size());
+        analysis.setMinimizedStatements(statements.size());
+        analysis.setFindings(findings);
+        analysis.setMinimized(minimized);
+        return analysis;
+    }
+
+    /** Drop duplicates and entries covered by another entry of the same list. */
+    private List<String> minimizeEntries(PolicyStatement statement, List<String> entries, String field,
+            List<Finding> findings) {
+        if (entries == null) {
+            return null;
+        }
+        LinkedHashSet<String> unique = new LinkedHashSet<>();
+        for (String entry : entries) {
+            if (!unique.add(entry)) {
+                findings.add(new Finding(FindingType.DUPLICATE_ENTRY, statement.getSid(),
+                        field + " lists " + entry + " more than once"));
+            }
+        }
+        List<String> kept = new ArrayList<>();
+        for (String entry : unique) {
+            String coveredBy = null;
+            for (String other : unique) {
+                if (!other.equals(entry) && covers(other, entry)) {
+                    coveredBy = other;
+                    break;
+                }
+            }
+            if (coveredBy != null) {
+                findings.add(new Finding(FindingType.SUBSUMED_ENTRY, statement.getSid(),
+                        field + " " + entry + " is covered by " + coveredBy));
+            } else {
+                kept.add(entry);
+            }
+        }
+        return kept;
+    }
+
+    private void removeShadowedAllows(List<PolicyStatement> statements, List<Finding> findings) {
+        statements.removeIf(allow -> {
+            if (allow.getEffect() == PolicyStatement.Effect.Deny) {
+                return false;
+            }
+            for (PolicyStatement deny : statements) {
+                if (deny.getEffect() == PolicyStatement.Effect.Deny && !hasConditions(deny)
+                        && statementCovers(deny, allow)) {
+                    findings.add(new Finding(FindingType.SHADOWED_ALLOW, allow.getSid(),
+                            "Every request it allows is denied by " + deny.getSid()));
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    private void removeSubsumedStatements(List<PolicyStatement> statements, List<Finding> findings) {
+        for (int i = statements.size() - 1; i >= 0; i--) {
+            PolicyStatement candidate = statements.get(i);
+            for (int j = 0; j < statements.size(); j++) {
+                PolicyStatement other = statements.get(j);
+                if (i == j || other.getEffect() != candidate.getEffect()) {
+                    continue;
+                }
+                // A statement that applies whenever the candidate applies makes it redundant
+                boolean conditionsCovered = !hasConditions(other)
+                        || Objects.equals(other.getCondition(), candidate.getCondition());
+                // Identical statements: keep the earlier one
+                boolean mutual = statementCovers(candidate, other)
+                        && Objects.equals(other.getCondition(), candidate.getCondition());
+                if (conditionsCovered && statementCovers(other, candidate) && (!mutual || j < i)) {
+                    findings.add(new Finding(FindingType.SUBSUMED_STATEMENT, candidate.getSid(),
+                            "Covered by " + other.getSid()));
+                    statements.remove(i);
+                    break;
+                }
+            }
+        }
+    }
+
+    /** Combine statements that differ only in their Action lists. */
+    private void mergeStatements(List<PolicyStatement> statements, List<Finding> findings) {
+        Map<List<Object>, PolicyStatement> groups = new LinkedHashMap<>();
+        List<PolicyStatement> merged = new ArrayList<>();
+        for (PolicyStatement statement : statements) {
+            if (statement.getAction() == null) {
+                merged.add(statement);
+                continue;
+            }
+            List<Object> key = Arrays.asList(statement.getEffect(), statement.getCondition(),
+                    sortedOrNull(statement.getResource()), sortedOrNull(statement.getNotResource()));
+            PolicyStatement target = groups.get(key);
+            if (target == null) {
+                groups.put(key, statement);
+                merged.add(statement);
+                continue;
+            }
+            List<String> actions = new ArrayList<>(target.getAction());
+            actions.addAll(statement.getAction());
+            target.setAction(minimizeEntries(target, actions, "Action", new ArrayList<>()));
+            findings.add(new Finding(FindingType.MERGED_STATEMENTS, statement.getSid(),
+                    "Actions merged into " + target.getSid()));
+        }
+        statements.clear();
+        statements.addAll(merged);
+    }
+
+    /** True when {@code outer} matches at least every request {@code inner} matches, ignoring conditions. */
+    private boolean statementCovers(PolicyStatement outer, PolicyStatement inner) {
+        boolean actionsCovered;
+        if (outer.getAction() != null && inner.getAction() != null) {
+            actionsCovered = listCovers(outer.getAction(), inner.getAction());
+        } else {
+            actionsCovered = Objects.equals(outer.getAction(), inner.getAction())
+                    && Objects.equals(sortedOrNull(outer.getNotAction()), sortedOrNull(inner.getNotAction()));
+        }
+        if (!actionsCovered) {
+            return false;
+        }
+        boolean outerAllResources = outer.getResource() == null && outer.getNotResource() == null;
+        if (outerAllResources || outer.getResource() != null && outer.getResource().contains("*")) {
+            return true;
+        }
+        if (outer.getResource() != null && inner.getResource() != null) {
+            return listCovers(outer.getResource(), inner.getResource());
+        }
+        return outer.getNotResource() != null
+                && Objects.equals(sortedOrNull(outer.getNotResource()), sortedOrNull(inner.getNotResource()))
+                && inner.getResource() == null;
+    }
+
+    private boolean listCovers(List<String> outer, List<String> inner) {
+        for (String entry : inner) {
+            boolean covered = false;
+            for (String pattern : outer) {
+                if (covers(pattern, entry)) {
+                    covered = true;
+                    break;
+                }
+            }
+            if (!covered) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Whether every string matched by {@code inner} is also matched by {@code outer}. */
+    static boolean covers(String outer, String inner) {
+        if (outer.equals("*") || outer.equals(inner)) {
+            return true;
+        }
+        boolean outerWildcard = outer.indexOf('*') >= 0 || outer.indexOf('?') >= 0;
+        if (!outerWildcard) {
+            return false;
+        }
+        if (inner.indexOf('*') < 0 && inner.indexOf('?') < 0) {
+            return globMatches(outer, inner);
+        }
+        String prefix = outer.substring(0, outer.length() - 1);
+        boolean trailingStarOnly = outer.endsWith("*") && prefix.indexOf('*') < 0 && prefix.indexOf('?') < 0;
+        return trailingStarOnly && inner.startsWith(prefix);
+    }
+
+    private static boolean globMatches(String pattern, String value) {
+        int p = 0, v = 0, star = -1, mark = 0;
+        while (v < value.length()) {
+            if (p < pattern.length() && (pattern.charAt(p) == '?' || pattern.charAt(p) == value.charAt(v))) {
+                p++;
+                v++;
+            } else if (p < pattern.length() && pattern.charAt(p) == '*') {
+                star = p++;
+                mark = v;
+            } else if (star >= 0) {
+                p = star + 1;
+                v = ++mark;
+            } else {
+                return false;
+            }
+        }
+        while (p < pattern.length() && pattern.charAt(p) == '*') {
+            p++;
+        }
+        return p == pattern.length();
+    }
+
+    private static boolean hasConditions(PolicyStatement statement) {
+        return statement.getCondition() != null && !statement.getCondition().isEmpty();
+    }
+
+    private static List<String> sortedOrNull(List<String> values) {
+        if (values == null) {
+            return null;
+        }
+        List<String> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static PolicyStatement copyOf(PolicyStatement source) {
+        PolicyStatement copy = new PolicyStatement();
+        copy.setSid(source.getSid());
+        copy.setEffect(source.getEffect());
+        copy.setAction(source.getAction() != null ? new ArrayList<>(source.getAction()) : null);
+        copy.setNotAction(source.getNotAction() != null ? new ArrayList<>(source.getNotAction()) : null);
+        copy.setResource(source.getResource() != null ? new ArrayList<>(source.getResource()) : null);
+        copy.setNotResource(source.getNotResource() != null ? new ArrayList<>(source.getNotResource()) : null);
+        copy.setCondition(source.getCondition());
+        return copy;
+    }
+}
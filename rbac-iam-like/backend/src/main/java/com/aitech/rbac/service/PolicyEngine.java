@@ -71,6 +71,34 @@ public class PolicyEngine {
         return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(doc);
     }
 
+    /**
+     * Serialise an evaluator-model document (e.g. a minimized one) in the
+     * format matrixToPolicyDocument produces. Condition, NotAction and
+     * NotResource have no place in this format and must not be present.
+     */
+    public String toDocumentJson(com.aitech.rbac.model.policy.PolicyDocument source) throws JsonProcessingException {
+        PolicyDocument doc = new PolicyDocument();
+        doc.setVersion(source.getVersion());
+        doc.setId(source.getId());
+        doc.setName(source.getName());
+        List<PolicyDocument.Statement> statements = new ArrayList<>();
+        if (source.getStatement() != null) {
+            for (com.aitech.rbac.model.policy.PolicyStatement s : source.getStatement()) {
+                if (s.getCondition() != null || s.getNotAction() != null || s.getNotResource() != null) {
+                    throw new IllegalArgumentException("Statement " + s.getSid() + " cannot be stored as a sealed policy");
+                }
+                PolicyDocument.Statement stmt = new PolicyDocument.Statement();
+                stmt.setSid(s.getSid());
+                stmt.setEffect(s.getEffect().name());
+                stmt.setAction(s.getAction());
+                stmt.setResource(s.getResource());
+                statements.add(stmt);
+            }
+        }
+        doc.setStatement(statements);
+        return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(doc);
+    }
+
     public Map<String, Map<String, Boolean>> policyDocumentToMatrix(String json) throws JsonProcessingException {
         Registry registry = registryService.getRegistry();
         PolicyDocument doc = objectMapper.readValue(json, PolicyDocument.class);
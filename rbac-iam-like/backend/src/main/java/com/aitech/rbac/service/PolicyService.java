@@ -12,9 +12,26 @@ public interface PolicyService {
 
     Map<String, Object> getImpact(UUID permissionId);
 
-    void seal(UUID permissionId, Map<String, Map<String, Boolean>> matrix, boolean confirmImpact);
+    /**
+     * Seal the matrix as the new default version. With {@code minimize} the
+     * stored document is the minimized equivalent from {@link #analyze}.
+     */
+    void seal(UUID permissionId, Map<String, Map<String, Boolean>> matrix, boolean confirmImpact, boolean minimize);
+
+    /**
+     * Redundancy analysis of the document {@code seal} would store for this
+     * matrix, or of the permission's current document (sealed default version,
+     * else its policy document) when the matrix is null. Nothing is written.
+     */
+    com.aitech.rbac.dto.PolicyAnalysis analyze(UUID permissionId, Map<String, Map<String, Boolean>> matrix);
 
     List<PolicyVersion> getVersions(UUID permissionId);
 
+    /**
+     * Versions of many policies in a single query, keyed by permission id and
+     * ordered newest first.
+     */
+    Map<UUID, List<PolicyVersion>> getVersionsByPermissionIds(java.util.Collection<UUID> permissionIds);
+
     void rollback(UUID permissionId, UUID versionId);
 }
@@ -10,4 +10,10 @@ public interface RolePermissionService {
     java.util.List<RolePermission> getByRoleId(java.util.UUID roleId);
 
     java.util.List<RolePermission> listAll();
+
+    /** All roles × all permissions, read in one query. */
+    com.aitech.rbac.dto.RolePermissionMatrix getMatrix();
+
+    /** Apply many grants and revokes in one transaction; affected users are refreshed once. */
+    com.aitech.rbac.dto.RolePermissionDiff.Result applyDiff(com.aitech.rbac.dto.RolePermissionDiff diff);
 }
@@ -13,9 +13,28 @@ public interface RoleService {
 
     List<Role> getByUserId(UUID userId);
 
+    /**
+     * Roles of many users in a single query, keyed by user id. Users without
+     * roles are absent from the map.
+     */
+    Map<UUID, List<Role>> getByUserIds(Collection<UUID> userIds);
+
     void create(Role entity);
 
     void update(Role entity);
 
     void delete(UUID id);
+
+    List<Role> getParents(UUID roleId);
+
+    /** Every role the given role inherits from, directly or transitively. */
+    List<Role> getAncestors(UUID roleId);
+
+    /**
+     * Makes the role inherit the parent's permissions. Rejected with
+     * IllegalArgumentException when the edge would create a cycle.
+     */
+    void addParent(UUID roleId, UUID parentId);
+
+    void removeParent(UUID roleId, UUID parentId);
 }
@@ -0,0 +1,38 @@
+package com.aitech.rbac.service;
+
+import com.aitech.rbac.dto.PageResponse;
+import com.aitech.rbac.dto.RowFilter;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Pushes a user's resource patterns for a namespace action down into list
+ * queries, so row-level authorization runs in the database together with
+ * pagination instead of loading every row and filtering in Java.
+ */
+public interface RowFilterService {
+    /**
+     * Compile the filter for {@code namespace:action}. Unconditional statements
+     * apply as written; conditional allows are ignored and conditional denies
+     * are applied, since the request context is not available to SQL.
+     */
+    RowFilter compile(String username, String namespace, String action);
+
+    /** Run {@code query} for one page under the filter, skipping it when nothing is allowed. */
+    <T> PageResponse<T> page(RowFilter filter, int page, int size, Function<RowFilter, List<T>> query);
+
+    /** IAM wildcard pattern ('*', '?') as a LIKE pattern escaped with '\'. */
+    static String toLikePattern(String pattern) {
+        StringBuilder like = new StringBuilder(pattern.length() + 4);
+        for (char c : pattern.toCharArray()) {
+            switch (c) {
+                case '*' -> like.append('%');
+                case '?' -> like.append('_');
+                case '%', '_', '\\' -> like.append('\\').append(c);
+                default -> like.append(c);
+            }
+        }
+        return like.toString();
+    }
+}
@@ -0,0 +1,22 @@
+package com.aitech.rbac.service;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Attributes of a user (department, region, clearance, ...) that policy
+ * conditions read as {@code principal:<key>}. Reads are served from a bounded
+ * cache that writers invalidate once they commit.
+ */
+public interface UserAttributeService {
+    Map<String, String> getAttributes(UUID userId);
+
+    /**
+     * Replace all attributes of the user.
+     */
+    void replaceAttributes(UUID userId, Map<String, String> attributes);
+
+    void putAttribute(UUID userId, String key, String value);
+
+    void deleteAttribute(UUID userId, String key);
+}
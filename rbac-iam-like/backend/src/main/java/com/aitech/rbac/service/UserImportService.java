@@ -0,0 +1,22 @@
+package com.aitech.rbac.service;
+
+import com.aitech.rbac.dto.UserImportEvent;
+import com.aitech.rbac.dto.UserImportFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Streaming bulk creation of users and their role assignments. Rows are
+ * committed in chunks; a rejected row does not stop the import.
+ */
+public interface UserImportService {
+    /**
+     * Import every row of {@code in}, writing rejected rows and per-chunk
+     * progress to {@code report} as NDJSON {@link UserImportEvent}s.
+     *
+     * @return the final totals, also written as the last report line
+     */
+    UserImportEvent importUsers(InputStream in, UserImportFormat format, OutputStream report) throws IOException;
+}
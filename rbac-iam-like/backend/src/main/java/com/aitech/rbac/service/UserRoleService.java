@@ -1,11 +1,14 @@
 package com.aitech.rbac.service;
 
+import com.aitech.rbac.dto.UserRoleBulkRequest;
 import com.aitech.rbac.model.UserRole;
 
 /**
  * Service layer for managing the relationship between users and roles.
  * This association is represented by a composite key of user and role IDs,
- * so only create and delete operations are supported.
+ * so besides create and delete only its validity window can be changed.
+ * An assignment grants nothing before {@code validFrom} or from
+ * {@code validUntil} on; either bound may be null.
  */
 public interface UserRoleService {
     /**
@@ -13,8 +16,32 @@ public interface UserRoleService {
      */
     void create(UserRole entity);
 
+    /**
+     * Replace the validity window of an existing assignment.
+     */
+    void updateWindow(UserRole entity);
+
     /**
      * Remove a role from a user.
      */
     void delete(UserRole entity);
+
+    /**
+     * When the user's earliest-ending active assignment expires, or null when
+     * none is time-bound. Tokens carrying the user's grants must not outlive it.
+     */
+    java.time.LocalDateTime earliestExpiry(java.util.UUID userId);
+
+    /**
+     * Assign the role to every selected user not already holding it, with no
+     * validity window.
+     */
+    UserRoleBulkRequest.Result bulkAssign(UserRoleBulkRequest request);
+
+    /**
+     * Revoke the role from every selected user holding it. Login tokens those
+     * users were issued before the revoke are refused once the change feed has
+     * been read, so their permission claims do not outlive the role.
+     */
+    UserRoleBulkRequest.Result bulkRevoke(UserRoleBulkRequest request);
 }
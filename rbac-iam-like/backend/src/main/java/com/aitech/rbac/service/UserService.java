@@ -9,6 +9,12 @@ public interface UserService {
 
     PageResponse<User> getAll(int page, int size, String search);
 
+    /**
+     * Page of users without their role collections, for callers that resolve
+     * roles in bulk (see {@link RoleService#getByUserIds}).
+     */
+    PageResponse<User> getSummaries(int page, int size, String search);
+
     User getById(UUID id);
 
     User findByUsername(String username);
@@ -0,0 +1,281 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.dto.AccessReviewEntry;
+import com.aitech.rbac.dto.GrantedAction;
+import com.aitech.rbac.dto.PageResponse;
+import com.aitech.rbac.mapper.AccessReviewMapper;
+import com.aitech.rbac.mapper.PermissionMapper;
+import com.aitech.rbac.model.Permission;
+import com.aitech.rbac.model.policy.PolicyDocument;
+import com.aitech.rbac.model.policy.PolicyStatement;
+import com.aitech.rbac.service.AccessReviewService;
+import com.aitech.rbac.service.PolicyEvaluationService;
+import com.github.pagehelper.PageHelper;
+import com.github.pagehelper.PageInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index from action to compiled policy statements. A permission's
+ * resource_access pairs, the grants login tokens carry and annotations check,
+ * are indexed next to its document statements as unconditional allows on
+ * every resource. The permission to user step goes through
+ * user_effective_permissions, which the grant writers already keep current,
+ * so only document and resource_access changes need to reach this index.
+ *
+ * Statements whose action patterns are literal ("orders:delete") or a plain
+ * namespace wildcard ("orders:*") are keyed directly; anything else ("*",
+ * "*:delete", "?" patterns, NotAction) is kept in a short list that every
+ * lookup scans.
+ */
+@Slf4j
+@Service
+public class AccessReviewServiceImpl implements AccessReviewService {
+
+    /**
+     * {@code indexKeys} is null when the statement has to be scanned on every
+     * lookup. {@code someResource} and {@code everyResource} record whether the
+     * resource clause covers at least one resource and every resource.
+     */
+    private record CompiledStatement(UUID permissionId, boolean allow, boolean conditional, List<String> indexKeys,
+            List<Pattern> actions, boolean notAction, List<Pattern> resources, boolean notResource,
+            boolean someResource, boolean everyResource) {
+
+        /** A null resource asks about any resource; see {@link AccessReviewService#whoCan}. */
+        boolean matches(String action, String resource) {
+            boolean actionMatch = anyMatch(actions, action);
+            if (notAction ? actionMatch : !actionMatch) {
+                return false;
+            }
+            if (resource == null) {
+                return allow ? someResource : everyResource;
+            }
+            if (resources == null) {
+                return true;
+            }
+            boolean resourceMatch = anyMatch(resources, resource);
+            return notResource ? !resourceMatch : resourceMatch;
+        }
+    }
+
+    private record Snapshot(Map<String, List<CompiledStatement>> byAction,
+            Map<String, List<CompiledStatement>> byNamespace, List<CompiledStatement> scanned) {
+    }
+
+    private final PermissionMapper permissionMapper;
+    private final AccessReviewMapper accessReviewMapper;
+    private final PolicyEvaluationService policyEvaluationService;
+    private final CompiledPolicyCache policyCache;
+    private final Map<UUID, List<CompiledStatement>> byPermission = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of(), List.of());
+
+    public AccessReviewServiceImpl(PermissionMapper permissionMapper, AccessReviewMapper accessReviewMapper,
+            PolicyEvaluationService policyEvaluationService, CompiledPolicyCache policyCache) {
+        this.permissionMapper = permissionMapper;
+        this.accessReviewMapper = accessReviewMapper;
+        this.policyEvaluationService = policyEvaluationService;
+        this.policyCache = policyCache;
+    }
+
+    @Override
+    public PageResponse<AccessReviewEntry> whoCan(String namespace, String action, String resource, int page,
+            int size) {
+        if (namespace == null || namespace.isBlank() || action == null || action.isBlank()) {
+            throw new IllegalArgumentException("namespace and action are required");
+        }
+        String requestAction = namespace + ":" + action;
+        String requestResource = resource != null && !resource.isBlank() ? resource : null;
+
+        Snapshot current = snapshot;
+        Set<UUID> allowIds = new HashSet<>();
+        Set<UUID> unconditionalIds = new HashSet<>();
+        Set<UUID> denyIds = new HashSet<>();
+        for (List<CompiledStatement> candidates : List.of(
+                current.byAction().getOrDefault(requestAction, List.of()),
+                current.byNamespace().getOrDefault(namespace, List.of()),
+                current.scanned())) {
+            for (CompiledStatement statement : candidates) {
+                if (!statement.matches(requestAction, requestResource)) {
+                    continue;
+                }
+                if (statement.allow()) {
+                    allowIds.add(statement.permissionId());
+                    if (!statement.conditional()) {
+                        unconditionalIds.add(statement.permissionId());
+                    }
+                } else if (!statement.conditional()) {
+                    denyIds.add(statement.permissionId());
+                }
+            }
+        }
+
+        if (allowIds.isEmpty()) {
+            return new PageResponse<>(List.of(), 0, page, size);
+        }
+        PageHelper.startPage(page, size);
+        List<AccessReviewEntry> users = accessReviewMapper.findUsersByPermissions(allowIds, unconditionalIds,
+                denyIds);
+        PageInfo<AccessReviewEntry> pageInfo = new PageInfo<>(users);
+        return new PageResponse<>(users, pageInfo.getTotal(), page, size);
+    }
+
+    @Override
+    public void refreshPermission(UUID permissionId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reindex(permissionId);
+                }
+            });
+        } else {
+            reindex(permissionId);
+        }
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<UUID, List<GrantedAction>> grants = new HashMap<>();
+        for (GrantedAction grant : accessReviewMapper.findAllGrantedActions()) {
+            grants.computeIfAbsent(grant.getPermissionId(), k -> new ArrayList<>()).add(grant);
+        }
+        Map<UUID, List<CompiledStatement>> compiled = new HashMap<>();
+        for (Permission permission : permissionMapper.findAll()) {
+            compiled.put(permission.getPermissionId(),
+                    compile(permission, grants.getOrDefault(permission.getPermissionId(), List.of())));
+        }
+        synchronized (this) {
+            byPermission.clear();
+            byPermission.putAll(compiled);
+            publish();
+        }
+        log.info("Access review index built from {} permissions", compiled.size());
+    }
+
+    private void reindex(UUID permissionId) {
+        Permission permission = permissionMapper.findById(permissionId);
+        List<GrantedAction> grants = permission != null ? accessReviewMapper.findGrantedActions(permissionId)
+                : List.of();
+        synchronized (this) {
+            if (permission == null) {
+                byPermission.remove(permissionId);
+            } else {
+                byPermission.put(permissionId, compile(permission, grants));
+            }
+            publish();
+        }
+    }
+
+    /** Rebuild the lookup maps from the per-permission statements; callers hold the lock. */
+    private void publish() {
+        Map<String, List<CompiledStatement>> byAction = new HashMap<>();
+        Map<String, List<CompiledStatement>> byNamespace = new HashMap<>();
+        List<CompiledStatement> scanned = new ArrayList<>();
+        for (List<CompiledStatement> statements : byPermission.values()) {
+            for (CompiledStatement statement : statements) {
+                if (statement.indexKeys() == null) {
+                    scanned.add(statement);
+                    continue;
+                }
+                for (String key : statement.indexKeys()) {
+                    if (key.endsWith(":*")) {
+                        byNamespace.computeIfAbsent(key.substring(0, key.length() - 2), k -> new ArrayList<>())
+                                .add(statement);
+                    } else {
+                        byAction.computeIfAbsent(key, k -> new ArrayList<>()).add(statement);
+                    }
+                }
+            }
+        }
+        snapshot = new Snapshot(byAction, byNamespace, scanned);
+    }
+
+    /**
+     * The action patterns themselves when each is literal or "namespace:*",
+     * otherwise null.
+     */
+    private static List<String> indexKeys(List<String> actions) {
+        for (String action : actions) {
+            int colon = action.indexOf(':');
+            String namespace = colon > 0 ? action.substring(0, colon) : null;
+            String verb = colon > 0 ? action.substring(colon + 1) : null;
+            if (namespace == null || hasWildcard(namespace) || verb.indexOf(':') >= 0
+                    || (hasWildcard(verb) && !verb.equals("*"))) {
+                return null;
+            }
+        }
+        return List.copyOf(actions);
+    }
+
+    private static boolean hasWildcard(String pattern) {
+        return pattern.indexOf('*') >= 0 || pattern.indexOf('?') >= 0;
+    }
+
+    private List<CompiledStatement> compile(Permission permission, List<GrantedAction> grants) {
+        List<CompiledStatement> compiled = new ArrayList<>();
+        for (GrantedAction grant : grants) {
+            String action = grant.getNamespaceKey() + ":" + grant.getActionKey();
+            List<String> actions = List.of(action);
+            compiled.add(new CompiledStatement(permission.getPermissionId(), true, false, indexKeys(actions),
+                    compilePatterns(actions), false, null, false, true, true));
+        }
+        if (permission.getPolicyDocument() == null) {
+            return compiled;
+        }
+        PolicyDocument document;
+        try {
+            document = policyEvaluationService.parsePolicyDocument(permission.getPolicyDocument());
+        } catch (RuntimeException e) {
+            log.warn("Skipping unparseable policy document for permission {}", permission.getPermissionId());
+            return compiled;
+        }
+        if (document.getStatement() == null) {
+            return compiled;
+        }
+        for (PolicyStatement statement : document.getStatement()) {
+            boolean notAction = statement.getAction() == null;
+            List<String> actions = notAction ? statement.getNotAction() : statement.getAction();
+            if (actions == null) {
+                continue;
+            }
+            boolean notResource = statement.getResource() == null && statement.getNotResource() != null;
+            List<String> resources = statement.getResource() != null ? statement.getResource()
+                    : statement.getNotResource();
+            // NotResource ["*"] excludes everything; Resource ["*"] (or no clause) includes everything
+            boolean someResource = resources == null
+                    || (notResource ? !resources.contains("*") : !resources.isEmpty());
+            boolean everyResource = resources == null
+                    || (notResource ? resources.isEmpty() : resources.contains("*"));
+            compiled.add(new CompiledStatement(permission.getPermissionId(),
+                    statement.getEffect() != PolicyStatement.Effect.Deny,
+                    statement.getCondition() != null && !statement.getCondition().isEmpty(),
+                    notAction ? null : indexKeys(actions), compilePatterns(actions), notAction,
+                    resources != null ? compilePatterns(resources) : null, notResource, someResource,
+                    everyResource));
+        }
+        return compiled;
+    }
+
+    // The evaluator's compiled matchers, shared rather than rebuilt per document
+    private List<Pattern> compilePatterns(List<String> patterns) {
+        return patterns.stream().map(policyCache::pattern).toList();
+    }
+
+    private static boolean anyMatch(List<Pattern> patterns, String value) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(value).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
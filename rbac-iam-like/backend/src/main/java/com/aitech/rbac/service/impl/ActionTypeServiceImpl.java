@@ -1,19 +1,50 @@
 package com.aitech.rbac.service.impl;
 
 import com.aitech.rbac.mapper.ActionTypeMapper;
+import com.aitech.rbac.mapper.ResourceAccessMapper;
 import com.aitech.rbac.model.ActionType;
 import com.aitech.rbac.service.ActionTypeService;
+import com.aitech.rbac.service.AccessReviewService;
+import com.aitech.rbac.service.EffectivePermissionService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
 
 @Service
 public class ActionTypeServiceImpl implements ActionTypeService {
     private final ActionTypeMapper mapper;
-    public ActionTypeServiceImpl(ActionTypeMapper mapper) { this.mapper = mapper; }
+    private final ResourceAccessMapper resourceAccessMapper;
+    private final EffectivePermissionService effectivePermissions;
+    private final AccessReviewService accessReview;
+    public ActionTypeServiceImpl(ActionTypeMapper mapper, ResourceAccessMapper resourceAccessMapper,
+            EffectivePermissionService effectivePermissions, AccessReviewService accessReview) {
+        this.mapper = mapper;
+        this.resourceAccessMapper = resourceAccessMapper;
+        this.effectivePermissions = effectivePermissions;
+        this.accessReview = accessReview;
+    }
 
     public List<ActionType> getAll() { return mapper.findAll(); }
     public ActionType getById(UUID id) { return mapper.findById(id); }
     public void create(ActionType entity) { mapper.insert(entity); }
-    public void update(ActionType entity) { mapper.update(entity); }
-    public void delete(UUID id) { mapper.delete(id); }
+    // Keys are denormalised into the effective-permission table and the access review
+    // index; only permissions mapped to this action type are recomputed
+    @Transactional
+    public void update(ActionType entity) {
+        mapper.update(entity);
+        refreshHolders(entity.getActionTypeId());
+    }
+    @Transactional
+    public void delete(UUID id) {
+        // Collected first: the resource_access rows cascade away with the action type
+        refreshHolders(id);
+        mapper.delete(id);
+    }
+
+    private void refreshHolders(UUID id) {
+        for (UUID permissionId : resourceAccessMapper.findPermissionIdsByActionType(id)) {
+            effectivePermissions.refreshPermission(permissionId);
+            accessReview.refreshPermission(permissionId);
+        }
+    }
 }
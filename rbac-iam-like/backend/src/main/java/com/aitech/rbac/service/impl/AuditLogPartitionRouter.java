@@ -0,0 +1,98 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.mapper.AuditLogPartitionMapper;
+import com.aitech.rbac.model.AuditLogPartition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes audit entries to monthly tables (audit_logs_YYYYMM) and owns their
+ * lifecycle. The current and next month are created ahead of time; a month
+ * that is still missing is created in its own transaction, because DDL would
+ * otherwise commit the caller's work. Retention drops whole tables.
+ */
+@Slf4j
+@Component
+public class AuditLogPartitionRouter {
+
+    private static final DateTimeFormatter KEY_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final AuditLogPartitionMapper mapper;
+    private final TransactionTemplate newTransaction;
+    private final Map<YearMonth, String> tables = new ConcurrentHashMap<>();
+
+    @Value("${rbac.audit.retention-months:12}")
+    private int retentionMonths;
+
+    public AuditLogPartitionRouter(AuditLogPartitionMapper mapper, PlatformTransactionManager transactionManager) {
+        this.mapper = mapper;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** Table holding entries created at the given time, created if needed. */
+    public String tableFor(LocalDateTime createdAt) {
+        YearMonth month = YearMonth.from(createdAt);
+        String table = tables.get(month);
+        return table != null ? table : create(month);
+    }
+
+    /** Partitions overlapping [from, to), newest first; null bounds are open. */
+    public List<AuditLogPartition> partitionsBetween(LocalDateTime from, LocalDateTime to) {
+        return mapper.findOverlapping(from, to);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${rbac.audit.retention-cron:0 0 4 * * *}")
+    public void maintain() {
+        YearMonth now = YearMonth.now();
+        create(now);
+        create(now.plusMonths(1));
+
+        LocalDateTime cutoff = now.minusMonths(retentionMonths).atDay(1).atStartOfDay();
+        for (AuditLogPartition partition : mapper.findEndingBefore(cutoff)) {
+            newTransaction.executeWithoutResult(status -> {
+                mapper.dropTable(partition.getTableName());
+                mapper.unregister(partition.getPartitionKey());
+            });
+            tables.remove(YearMonth.parse(partition.getPartitionKey(), KEY_FORMAT));
+            log.info("Dropped audit partition {} (retention {} months)", partition.getTableName(), retentionMonths);
+        }
+    }
+
+    private synchronized String create(YearMonth month) {
+        String existing = tables.get(month);
+        if (existing != null) {
+            return existing;
+        }
+        AuditLogPartition partition = new AuditLogPartition();
+        partition.setPartitionKey(month.format(KEY_FORMAT));
+        partition.setTableName("audit_logs_" + partition.getPartitionKey());
+        partition.setRangeStart(month.atDay(1).atStartOfDay());
+        partition.setRangeEnd(month.plusMonths(1).atDay(1).atStartOfDay());
+
+        newTransaction.executeWithoutResult(status -> {
+            mapper.createTable(partition.getTableName());
+            mapper.createActorIndex(partition.getTableName());
+            mapper.createEntityIndex(partition.getTableName());
+            mapper.createTimeIndex(partition.getTableName());
+            mapper.register(partition);
+        });
+        tables.put(month, partition.getTableName());
+        return partition.getTableName();
+    }
+}
@@ -0,0 +1,267 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.mapper.AuditLogMapper;
+import com.aitech.rbac.model.AuditLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes audit entries off the request thread. Entries go into a bounded
+ * queue (after commit when the caller is in a transaction, so rolled back
+ * work leaves no audit trail) and a single writer thread inserts them as JDBC
+ * batches, flushing when a batch fills or the flush interval passes.
+ *
+ * When the queue is full the overflow policy decides: BLOCK the caller, DROP
+ * the entry and count it, or SPILL it as a JSON line to a local file that is
+ * replayed once the queue drains. Shutdown drains the queue before the
+ * datasource goes away.
+ */
+@Slf4j
+@Component
+public class AuditLogWriter {
+
+    public enum OverflowPolicy {
+        BLOCK, DROP, SPILL
+    }
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final AuditLogPartitionRouter partitionRouter;
+    private final ObjectMapper spillMapper;
+    private final ObjectMapper valueMapper = new ObjectMapper();
+    private final BlockingQueue<AuditLog> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final Path spillPath;
+    private final Counter dropped;
+    private final Counter spilled;
+    private final Counter failed;
+    private final Timer flushTimer;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    public AuditLogWriter(SqlSessionFactory sqlSessionFactory, AuditLogPartitionRouter partitionRouter,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${rbac.audit.writer.queue-capacity:10000}") int queueCapacity,
+            @Value("${rbac.audit.writer.batch-size:200}") int batchSize,
+            @Value("${rbac.audit.writer.flush-interval-ms:200}") long flushIntervalMillis,
+            @Value("${rbac.audit.writer.overflow:BLOCK}") OverflowPolicy overflowPolicy,
+            @Value("${rbac.audit.writer.spill-path:${java.io.tmpdir}/rbac-audit-spill.ndjson}") String spillPath) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.partitionRouter = partitionRouter;
+        this.spillMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.overflowPolicy = overflowPolicy;
+        this.spillPath = Paths.get(spillPath);
+        this.dropped = meterRegistry.counter("rbac.audit.writer.dropped");
+        this.spilled = meterRegistry.counter("rbac.audit.writer.spilled");
+        this.failed = meterRegistry.counter("rbac.audit.writer.failed");
+        this.flushTimer = meterRegistry.timer("rbac.audit.writer.flush");
+        meterRegistry.gaugeCollectionSize("rbac.audit.writer.queue.size", List.of(), queue);
+
+        this.writerThread = new Thread(this::run, "audit-log-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queue an entry. The old/new values are serialised here, on the caller's
+     * thread, so later changes to those objects cannot alter the record. Inside
+     * a transaction the entry is only queued once the transaction commits.
+     */
+    public void submit(AuditLog log, Object oldValue, Object newValue) {
+        AuditLog entry = serializeValues(log, oldValue, newValue);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(entry);
+                }
+            });
+        } else {
+            enqueue(entry);
+        }
+    }
+
+    private void enqueue(AuditLog entry) {
+        if (!running) {
+            // Writer already drained for shutdown; write through
+            flush(List.of(entry));
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    queue.put(entry);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.increment();
+                }
+                break;
+            case DROP:
+                if (!queue.offer(entry)) {
+                    dropped.increment();
+                }
+                break;
+            case SPILL:
+                if (!queue.offer(entry)) {
+                    spillLogs(List.of(entry));
+                }
+                break;
+        }
+    }
+
+    private void run() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditLog first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    replaySpill();
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    AuditLog next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Shutdown does not interrupt; stop taking new work and drain whatever is left
+                running = false;
+            } finally {
+                // Entries already taken off the queue are written even when the wait was cut short
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    private void flush(List<AuditLog> logs) {
+        try {
+            flushTimer.record(() -> insert(logs));
+        } catch (RuntimeException e) {
+            log.error("Failed to write {} audit entries", logs.size(), e);
+            if (overflowPolicy == OverflowPolicy.SPILL) {
+                spillLogs(logs);
+            } else {
+                failed.increment(logs.size());
+            }
+        }
+    }
+
+    private void insert(List<AuditLog> logs) {
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+            AuditLogMapper mapper = session.getMapper(AuditLogMapper.class);
+            for (AuditLog entry : logs) {
+                mapper.insert(partitionRouter.tableFor(entry.getCreatedAt()), entry);
+            }
+            session.flushStatements();
+            session.commit();
+        }
+    }
+
+    private AuditLog serializeValues(AuditLog log, Object oldValue, Object newValue) {
+        try {
+            if (oldValue != null)
+                log.setOldValueJson(valueMapper.writeValueAsString(oldValue));
+            if (newValue != null)
+                log.setNewValueJson(valueMapper.writeValueAsString(newValue));
+        } catch (Exception e) {
+            log.setNewValueJson("Error serializing values: " + e.getMessage());
+        }
+        return log;
+    }
+
+    private synchronized void spillLogs(List<AuditLog> logs) {
+        try (BufferedWriter out = Files.newBufferedWriter(spillPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (AuditLog entry : logs) {
+                out.write(spillMapper.writeValueAsString(entry));
+                out.newLine();
+            }
+            spilled.increment(logs.size());
+        } catch (IOException e) {
+            log.error("Failed to spill {} audit entries to {}", logs.size(), spillPath, e);
+            dropped.increment(logs.size());
+        }
+    }
+
+    /** Re-insert spilled entries once the queue has room again. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replaySpill() {
+        List<AuditLog> logs = new ArrayList<>();
+        synchronized (this) {
+            if (!Files.exists(spillPath)) {
+                return;
+            }
+            try {
+                for (String line : Files.readAllLines(spillPath, StandardCharsets.UTF_8)) {
+                    if (!line.isBlank()) {
+                        logs.add(spillMapper.readValue(line, AuditLog.class));
+                    }
+                }
+                Files.delete(spillPath);
+            } catch (IOException e) {
+                log.error("Failed to read audit spill file {}", spillPath, e);
+                return;
+            }
+        }
+        for (int i = 0; i < logs.size(); i += batchSize) {
+            List<AuditLog> chunk = logs.subList(i, Math.min(logs.size(), i + batchSize));
+            try {
+                insert(chunk);
+            } catch (RuntimeException e) {
+                log.error("Failed to replay audit spill, keeping remaining entries", e);
+                spillLogs(logs.subList(i, logs.size()));
+                return;
+            }
+        }
+        log.info("Replayed {} spilled audit entries", logs.size());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // No interrupt: it could abort a batch mid-insert. The poll timeout ends the loop
+        // within about two flush intervals once the queue is empty.
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        // Anything queued after the writer stopped
+        List<AuditLog> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            flush(rest);
+        }
+    }
+}
@@ -1,17 +1,35 @@
 package com.aitech.rbac.service.impl;
 
+import com.aitech.rbac.dto.AuditExportFormat;
+import com.aitech.rbac.dto.AuditLogPage;
+import com.aitech.rbac.dto.AuditLogQuery;
 import com.aitech.rbac.mapper.AuditLogMapper;
+import com.aitech.rbac.model.AuditLogPartition;
 import com.aitech.rbac.model.AuditLog;
 import com.aitech.rbac.service.AuditService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import com.aitech.rbac.config.CorrelationIdFilter;
+import com.aitech.rbac.config.ServerTiming;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
@@ -19,15 +37,33 @@ import java.util.UUID;
 public class AuditServiceImpl implements AuditService {
 
     private final AuditLogMapper auditLogMapper;
-    private final ObjectMapper objectMapper = new ObjectMapper();
-
-    public AuditServiceImpl(AuditLogMapper auditLogMapper) {
+    private final AuditLogPartitionRouter partitionRouter;
+    private final AuditLogWriter auditLogWriter;
+    private final DecisionLogAggregator decisionLogAggregator;
+    private final ObjectMapper exportMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    public AuditServiceImpl(AuditLogMapper auditLogMapper, AuditLogPartitionRouter partitionRouter,
+            AuditLogWriter auditLogWriter, DecisionLogAggregator decisionLogAggregator) {
         this.auditLogMapper = auditLogMapper;
+        this.partitionRouter = partitionRouter;
+        this.auditLogWriter = auditLogWriter;
+        this.decisionLogAggregator = decisionLogAggregator;
     }
 
     @Override
     public void logAction(String actionType, String entityType, String entityId, Object oldValue, Object newValue,
             Integer affectedRoles, Integer affectedUsers) {
+        try (ServerTiming.Span span = ServerTiming.start("audit")) {
+            AuditLog log = buildLog(actionType, entityType, entityId, affectedRoles, affectedUsers);
+            // Request context is captured here; values are serialised and written by the writer thread
+            auditLogWriter.submit(log, oldValue, newValue);
+        }
+    }
+
+    private AuditLog buildLog(String actionType, String entityType, String entityId, Integer affectedRoles,
+            Integer affectedUsers) {
         AuditLog log = new AuditLog();
         log.setLogId(UUID.randomUUID());
         log.setCreatedAt(LocalDateTime.now());
@@ -37,15 +73,6 @@ public class AuditServiceImpl implements AuditService {
         log.setAffectedRolesCount(affectedRoles != null ? affectedRoles : 0);
         log.setAffectedUsersCount(affectedUsers != null ? affectedUsers : 0);
 
-        try {
-            if (oldValue != null)
-                log.setOldValueJson(objectMapper.writeValueAsString(oldValue));
-            if (newValue != null)
-                log.setNewValueJson(objectMapper.writeValueAsString(newValue));
-        } catch (Exception e) {
-            log.setNewValueJson("Error serializing values: " + e.getMessage());
-        }
-
         // Capture Actor
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getPrincipal())) {
@@ -90,7 +117,7 @@ public class AuditServiceImpl implements AuditService {
         // Correlation ID
         log.setCorrelationId(CorrelationIdFilter.getCurrentCorrelationId());
 
-        auditLogMapper.insert(log);
+        return log;
     }
 
     @Override
@@ -101,9 +128,12 @@ public class AuditServiceImpl implements AuditService {
                     decision.getNamespace(), decision.getAction(), decision.getCategoryId(),
                     decision.getSource(), decision.getReasonCode());
 
-            logAction("AUTH_DECISION", "PERMISSION",
-                    decision.getResourceId() != null ? decision.getResourceId() : "N/A",
-                    null, details, null, null);
+            // Repeats within a window are folded into one aggregate row
+            try (ServerTiming.Span span = ServerTiming.start("audit")) {
+                AuditLog log = buildLog("AUTH_DECISION", "PERMISSION",
+                        decision.getResourceId() != null ? decision.getResourceId() : "N/A", null, null);
+                decisionLogAggregator.record(decision, log, details);
+            }
         }
     }
 
@@ -116,7 +146,105 @@ public class AuditServiceImpl implements AuditService {
     }
 
     @Override
-    public List<AuditLog> getLogs(String entityType, String actionType, String fromDate, String toDate) {
-        return auditLogMapper.findAll(entityType, actionType, fromDate, toDate);
+    public AuditLogPage getLogs(AuditLogQuery query) {
+        LocalDateTime cursorAt = null;
+        UUID cursorId = null;
+        if (query.getCursor() != null) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(query.getCursor()), StandardCharsets.UTF_8)
+                        .split("\\|");
+                cursorAt = LocalDateTime.parse(parts[0]);
+                cursorId = UUID.fromString(parts[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid audit log cursor");
+            }
+        }
+
+        // Walk partitions newest first until one row past the page is found
+        List<AuditLog> items = new ArrayList<>();
+        for (AuditLogPartition partition : partitionRouter.partitionsBetween(query.getFrom(), query.getTo())) {
+            if (cursorAt != null && partition.getRangeStart().isAfter(cursorAt)) {
+                continue;
+            }
+            items.addAll(auditLogMapper.findPage(partition.getTableName(), query, cursorAt, cursorId,
+                    query.getLimit() + 1 - items.size()));
+            if (items.size() > query.getLimit()) {
+                break;
+            }
+        }
+
+        boolean hasMore = items.size() > query.getLimit();
+        if (hasMore) {
+            items = items.subList(0, query.getLimit());
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            AuditLog last = items.get(items.size() - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getCreatedAt() + "|" + last.getLogId()).getBytes(StandardCharsets.UTF_8));
+        }
+        return new AuditLogPage(items, nextCursor, hasMore);
+    }
+
+    private static final String CSV_HEADER = "log_id,created_at,actor_user_id,actor_email,action_type,entity_type,"
+            + "entity_id,old_value_json,new_value_json,affected_roles_count,affected_users_count,ip_address,"
+            + "correlation_id";
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportLogs(AuditLogQuery query, AuditExportFormat format, OutputStream out) throws IOException {
+        List<AuditLogPartition> partitions = new ArrayList<>(
+                partitionRouter.partitionsBetween(query.getFrom(), query.getTo()));
+        Collections.reverse(partitions);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == AuditExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        long rows = 0;
+        for (AuditLogPartition partition : partitions) {
+            try (Cursor<AuditLog> cursor = auditLogMapper.streamRange(partition.getTableName(), query)) {
+                for (AuditLog log : cursor) {
+                    if (format == AuditExportFormat.CSV) {
+                        writeCsvRow(writer, log);
+                    } else {
+                        writer.write(exportMapper.writeValueAsString(log));
+                        writer.write('\n');
+                    }
+                    rows++;
+                }
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private void writeCsvRow(Writer writer, AuditLog log) throws IOException {
+        Object[] values = { log.getLogId(), log.getCreatedAt(), log.getActorUserId(), log.getActorEmail(),
+                log.getActionType(), log.getEntityType(), log.getEntityId(), log.getOldValueJson(),
+                log.getNewValueJson(), log.getAffectedRolesCount(), log.getAffectedUsersCount(), log.getIpAddress(),
+                log.getCorrelationId() };
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writeCsvValue(writer, values[i].toString());
+            }
+        }
+        writer.write('\n');
+    }
+
+    private void writeCsvValue(Writer writer, String value) throws IOException {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
     }
 }
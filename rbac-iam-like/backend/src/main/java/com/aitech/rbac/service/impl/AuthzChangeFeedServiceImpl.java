@@ -0,0 +1,218 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.dto.AuthzChangePage;
+import com.aitech.rbac.mapper.AuthzChangeMapper;
+import com.aitech.rbac.mapper.RoleHierarchyMapper;
+import com.aitech.rbac.mapper.RolePermissionMapper;
+import com.aitech.rbac.mapper.UserRoleMapper;
+import com.aitech.rbac.model.AuthzChange;
+import com.aitech.rbac.model.AuthzChangeType;
+import com.aitech.rbac.model.RoleClosure;
+import com.aitech.rbac.model.RolePermission;
+import com.aitech.rbac.model.UserRole;
+import com.aitech.rbac.service.AuthzChangeFeedService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Change feed backed by {@code authz_change_log}.
+ *
+ * Writers take the single-row feed lock before inserting, so change ids are
+ * committed in ascending order and a consumer that has seen cursor N can never
+ * later miss an entry below N. Long-poll waiters are woken after commit; a
+ * waiter that times out re-reads once so entries written by other instances
+ * are still picked up.
+ *
+ * Role-level entries affect the members of the role and of every role that
+ * inherits from it.
+ */
+@Slf4j
+@Service
+public class AuthzChangeFeedServiceImpl implements AuthzChangeFeedService {
+
+    private final AuthzChangeMapper mapper;
+    private final UserRoleMapper userRoleMapper;
+    private final RolePermissionMapper rolePermissionMapper;
+    private final RoleHierarchyMapper roleHierarchyMapper;
+    private final SqlSessionFactory sqlSessionFactory;
+    private final Set<CompletableFuture<Void>> waiters = ConcurrentHashMap.newKeySet();
+    private final ExecutorService pollExecutor = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "authz-feed-poll");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public AuthzChangeFeedServiceImpl(AuthzChangeMapper mapper, UserRoleMapper userRoleMapper,
+            RolePermissionMapper rolePermissionMapper, RoleHierarchyMapper roleHierarchyMapper,
+            SqlSessionFactory sqlSessionFactory) {
+        this.mapper = mapper;
+        this.userRoleMapper = userRoleMapper;
+        this.rolePermissionMapper = rolePermissionMapper;
+        this.roleHierarchyMapper = roleHierarchyMapper;
+        this.sqlSessionFactory = sqlSessionFactory;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(AuthzChangeType changeType, UUID userId, UUID roleId, UUID permissionId) {
+        mapper.lockFeed();
+        AuthzChange change = new AuthzChange();
+        change.setChangeType(changeType);
+        change.setUserId(userId);
+        change.setRoleId(roleId);
+        change.setPermissionId(permissionId);
+        mapper.insert(change);
+        wakeWaitersAfterCommit();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(List<AuthzChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        mapper.lockFeed();
+        // Joins the surrounding transaction's connection; the batch is only flushed here
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            AuthzChangeMapper batch = session.getMapper(AuthzChangeMapper.class);
+            for (AuthzChange change : changes) {
+                batch.insert(change);
+            }
+            session.flushStatements();
+        }
+        wakeWaitersAfterCommit();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordRoleMembers(AuthzChangeType changeType, UUID roleId) {
+        mapper.lockFeed();
+        mapper.insertForRoleMembers(changeType, roleId);
+        wakeWaitersAfterCommit();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordPermissionRoles(AuthzChangeType changeType, UUID permissionId) {
+        mapper.lockFeed();
+        mapper.insertForPermissionRoles(changeType, permissionId);
+        wakeWaitersAfterCommit();
+    }
+
+    @Override
+    public AuthzChangePage read(long cursor, int limit) {
+        List<AuthzChange> changes = mapper.findAfter(cursor, limit + 1);
+        boolean hasMore = changes.size() > limit;
+        if (hasMore) {
+            changes = changes.subList(0, limit);
+        }
+        resolveAffectedUsers(changes);
+        long nextCursor = changes.isEmpty() ? cursor : changes.get(changes.size() - 1).getChangeId();
+        return new AuthzChangePage(changes, nextCursor, hasMore);
+    }
+
+    @Override
+    public long head() {
+        return mapper.findHead();
+    }
+
+    @Override
+    public CompletableFuture<AuthzChangePage> poll(long cursor, int limit, long waitMillis) {
+        AuthzChangePage page = read(cursor, limit);
+        if (!page.getChanges().isEmpty() || waitMillis <= 0) {
+            return CompletableFuture.completedFuture(page);
+        }
+
+        CompletableFuture<Void> signal = new CompletableFuture<>();
+        waiters.add(signal);
+        // A commit may have landed between the read above and registering
+        if (head() > cursor) {
+            signal.complete(null);
+        }
+        return signal.completeOnTimeout(null, waitMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((v, e) -> waiters.remove(signal))
+                .thenApplyAsync(v -> read(cursor, limit), pollExecutor);
+    }
+
+    private void wakeWaitersAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                waiters.forEach(w -> w.complete(null));
+            }
+        });
+    }
+
+    private void resolveAffectedUsers(List<AuthzChange> changes) {
+        Set<UUID> permissionIds = new HashSet<>();
+        Set<UUID> roleIds = new HashSet<>();
+        for (AuthzChange change : changes) {
+            if (change.getUserId() == null && change.getRoleId() != null) {
+                roleIds.add(change.getRoleId());
+            } else if (change.getUserId() == null && change.getPermissionId() != null) {
+                permissionIds.add(change.getPermissionId());
+            }
+        }
+
+        Map<UUID, Set<UUID>> rolesByPermission = new HashMap<>();
+        if (!permissionIds.isEmpty()) {
+            for (RolePermission rp : rolePermissionMapper.findByPermissionIds(permissionIds)) {
+                rolesByPermission.computeIfAbsent(rp.getPermissionId(), k -> new HashSet<>()).add(rp.getRoleId());
+                roleIds.add(rp.getRoleId());
+            }
+        }
+
+        Map<UUID, Set<UUID>> descendantsByRole = new HashMap<>();
+        Set<UUID> memberRoleIds = new HashSet<>();
+        if (!roleIds.isEmpty()) {
+            for (RoleClosure rc : roleHierarchyMapper.findDescendants(roleIds)) {
+                descendantsByRole.computeIfAbsent(rc.getAncestorId(), k -> new HashSet<>()).add(rc.getDescendantId());
+                memberRoleIds.add(rc.getDescendantId());
+            }
+        }
+
+        Map<UUID, Set<UUID>> membersByRole = new HashMap<>();
+        if (!memberRoleIds.isEmpty()) {
+            for (UserRole ur : userRoleMapper.findByRoleIds(memberRoleIds)) {
+                membersByRole.computeIfAbsent(ur.getRoleId(), k -> new HashSet<>()).add(ur.getUserId());
+            }
+        }
+        Map<UUID, Set<UUID>> usersByRole = new HashMap<>();
+        descendantsByRole.forEach((roleId, descendants) -> {
+            Set<UUID> users = new HashSet<>();
+            descendants.forEach(d -> users.addAll(membersByRole.getOrDefault(d, Set.of())));
+            usersByRole.put(roleId, users);
+        });
+
+        for (AuthzChange change : changes) {
+            Set<UUID> affected = new LinkedHashSet<>();
+            if (change.getUserId() != null) {
+                affected.add(change.getUserId());
+            } else if (change.getRoleId() != null) {
+                affected.addAll(usersByRole.getOrDefault(change.getRoleId(), Set.of()));
+            } else if (change.getPermissionId() != null) {
+                for (UUID roleId : rolesByPermission.getOrDefault(change.getPermissionId(), Set.of())) {
+                    affected.addAll(usersByRole.getOrDefault(roleId, Set.of()));
+                }
+            }
+            change.setAffectedUserIds(new ArrayList<>(affected));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        waiters.forEach(w -> w.complete(null));
+        pollExecutor.shutdown();
+    }
+}
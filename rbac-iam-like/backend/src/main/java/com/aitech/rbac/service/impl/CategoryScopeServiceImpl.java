@@ -0,0 +1,122 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.mapper.CategoryScopeMapper;
+import com.aitech.rbac.mapper.RoleMapper;
+import com.aitech.rbac.model.AuthzChangeType;
+import com.aitech.rbac.model.RoleCategoryScope;
+import com.aitech.rbac.service.AuthzChangeFeedService;
+import com.aitech.rbac.service.CategoryScopeService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+@Service
+public class CategoryScopeServiceImpl implements CategoryScopeService {
+
+    private final CategoryScopeMapper mapper;
+    private final RoleMapper roleMapper;
+    private final AuthzChangeFeedService changeFeed;
+
+    public CategoryScopeServiceImpl(CategoryScopeMapper mapper, RoleMapper roleMapper,
+            AuthzChangeFeedService changeFeed) {
+        this.mapper = mapper;
+        this.roleMapper = roleMapper;
+        this.changeFeed = changeFeed;
+    }
+
+    @Override
+    public List<RoleCategoryScope> getByRoleId(UUID roleId) {
+        return mapper.findByRoleId(roleId);
+    }
+
+    @Override
+    @Transactional
+    public RoleCategoryScope grant(RoleCategoryScope scope) {
+        if (scope.getRoleId() == null || roleMapper.findById(scope.getRoleId()) == null) {
+            throw new IllegalArgumentException("Role not found");
+        }
+        if (scope.getCategoryId() == null) {
+            throw new IllegalArgumentException("categoryId is required");
+        }
+        if (scope.getNamespaceKey() == null || scope.getNamespaceKey().isBlank()) {
+            scope.setNamespaceKey("*");
+        }
+        if (scope.getActionKey() == null || scope.getActionKey().isBlank()) {
+            scope.setActionKey("*");
+        }
+        if (scope.getEffect() == null) {
+            scope.setEffect("Allow");
+        } else if (!"Allow".equals(scope.getEffect()) && !"Deny".equals(scope.getEffect())) {
+            throw new IllegalArgumentException("effect must be Allow or Deny");
+        }
+        if (scope.getScopeId() == null) {
+            scope.setScopeId(UUID.randomUUID());
+        }
+        changeFeed.record(AuthzChangeType.CATEGORY_SCOPE_GRANTED, null, scope.getRoleId(), null);
+        mapper.insert(scope);
+        return scope;
+    }
+
+    @Override
+    @Transactional
+    public void revoke(UUID roleId, UUID scopeId) {
+        if (mapper.delete(roleId, scopeId) > 0) {
+            changeFeed.record(AuthzChangeType.CATEGORY_SCOPE_REVOKED, null, roleId, null);
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> buildClaim(UUID userId) {
+        Map<UUID, Set<String>> allowByCategory = new TreeMap<>();
+        Map<UUID, Set<String>> denyByCategory = new TreeMap<>();
+        for (RoleCategoryScope scope : mapper.findEffectiveByUserId(userId)) {
+            Map<UUID, Set<String>> target = "Deny".equals(scope.getEffect()) ? denyByCategory : allowByCategory;
+            target.computeIfAbsent(scope.getCategoryId(), k -> new TreeSet<>())
+                    .add(scope.getNamespaceKey() + ":" + scope.getActionKey());
+        }
+
+        Set<UUID> categories = new TreeSet<>(allowByCategory.keySet());
+        categories.addAll(denyByCategory.keySet());
+        List<Map<String, Object>> claim = new ArrayList<>(categories.size());
+        for (UUID categoryId : categories) {
+            Set<String> deny = denyByCategory.getOrDefault(categoryId, Set.of());
+            Set<String> allow = new TreeSet<>(allowByCategory.getOrDefault(categoryId, Set.of()));
+            // Deny is checked first, so an identical allow entry can never apply
+            allow.removeAll(deny);
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("categoryId", categoryId.toString());
+            if (!allow.isEmpty()) {
+                entry.put("allow", collapse(allow));
+            }
+            if (!deny.isEmpty()) {
+                entry.put("deny", collapse(deny));
+            }
+            if (entry.size() > 1) {
+                claim.add(entry);
+            }
+        }
+        return claim;
+    }
+
+    /** Drop entries already covered by "*:*" or by their namespace's "ns:*". */
+    private static List<String> collapse(Set<String> grants) {
+        if (grants.contains("*:*")) {
+            return List.of("*:*");
+        }
+        Set<String> wildcardNamespaces = new HashSet<>();
+        for (String grant : grants) {
+            if (grant.endsWith(":*")) {
+                wildcardNamespaces.add(grant.substring(0, grant.indexOf(':')));
+            }
+        }
+        List<String> collapsed = new ArrayList<>();
+        for (String grant : grants) {
+            if (grant.endsWith(":*") || !wildcardNamespaces.contains(grant.substring(0, grant.indexOf(':')))) {
+                collapsed.add(grant);
+            }
+        }
+        return collapsed;
+    }
+}
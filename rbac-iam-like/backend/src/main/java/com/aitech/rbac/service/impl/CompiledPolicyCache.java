@@ -0,0 +1,322 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.dto.AuthzChangePage;
+import com.aitech.rbac.mapper.AuditLogMapper;
+import com.aitech.rbac.mapper.PermissionMapper;
+import com.aitech.rbac.mapper.RoleMapper;
+import com.aitech.rbac.model.AuditLogPartition;
+import com.aitech.rbac.model.AuthzChange;
+import com.aitech.rbac.model.AuthzChangeType;
+import com.aitech.rbac.model.Permission;
+import com.aitech.rbac.model.policy.PolicyDocument;
+import com.aitech.rbac.model.policy.PolicyStatement;
+import com.aitech.rbac.security.GrantRevocations;
+import com.aitech.rbac.service.AuthzChangeFeedService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Parsed policy documents, compiled wildcard matchers and per-user effective
+ * snapshots (roles present, permissions held), so evaluation does not parse
+ * JSON or build regexes per request.
+ *
+ * Documents carry the permission's document_version. An edit raises that
+ * permission's floor to the committed version and drops the entry, both after
+ * the local commit and on PERMISSION_CHANGED from the change feed, so other
+ * instances follow too. A load that read an older version than the floor
+ * (or than the entry already cached) is not installed. A TTL bounds anything
+ * that slips through. Snapshots follow the same feed and drop the users each
+ * entry affects; each entry is also passed to {@link GrantRevocations} so
+ * login tokens issued before a narrowing change are refused.
+ *
+ * At startup every permission document is loaded in one query and compiled
+ * on a bounded pool, then the snapshots of the most recently active users
+ * (by audit log actor) are loaded the same way. The application reports
+ * ready only once this warm-up has finished or timed out.
+ */
+@Slf4j
+@Component
+public class CompiledPolicyCache {
+
+    public record CompiledPolicy(UUID permissionId, String permissionName, PolicyDocument document) {
+    }
+
+    public record UserSnapshot(boolean hasRoles, List<UUID> permissionIds) {
+    }
+
+    // Cached for permissions without a usable document, since the map cannot hold null
+    private static final CompiledPolicy NO_DOCUMENT = new CompiledPolicy(null, null, null);
+
+    private record Versioned(CompiledPolicy policy, long version) {
+    }
+
+    private final PermissionMapper permissionMapper;
+    private final RoleMapper roleMapper;
+    private final AuditLogMapper auditLogMapper;
+    private final AuditLogPartitionRouter partitionRouter;
+    private final AuthzChangeFeedService changeFeed;
+    private final GrantRevocations revocations;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Cache<UUID, Versioned> policies;
+    // Lowest document version each permission may be cached at; Long.MAX_VALUE once deleted
+    private final ConcurrentHashMap<UUID, Long> floors = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Pattern> patterns = new ConcurrentHashMap<>();
+    private final Cache<UUID, UserSnapshot> snapshots;
+    private final int parallelism;
+    private final int recentUsers;
+    private final int recentUserDays;
+    private final long warmupTimeoutMs;
+    private volatile long feedCursor = -1;
+
+    public CompiledPolicyCache(PermissionMapper permissionMapper, RoleMapper roleMapper,
+            AuditLogMapper auditLogMapper, AuditLogPartitionRouter partitionRouter,
+            AuthzChangeFeedService changeFeed, GrantRevocations revocations, ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${rbac.policy.cache.max-users:10000}") int maxUsers,
+            @Value("${rbac.policy.cache.snapshot-ttl-minutes:10}") long snapshotTtlMinutes,
+            @Value("${rbac.policy.cache.document-ttl-minutes:60}") long documentTtlMinutes,
+            @Value("${rbac.policy.warmup.parallelism:0}") int parallelism,
+            @Value("${rbac.policy.warmup.recent-users:500}") int recentUsers,
+            @Value("${rbac.policy.warmup.recent-user-days:7}") int recentUserDays,
+            @Value("${rbac.policy.warmup.timeout-ms:120000}") long warmupTimeoutMs) {
+        this.permissionMapper = permissionMapper;
+        this.roleMapper = roleMapper;
+        this.auditLogMapper = auditLogMapper;
+        this.partitionRouter = partitionRouter;
+        this.changeFeed = changeFeed;
+        this.revocations = revocations;
+        this.eventPublisher = eventPublisher;
+        // The TTL bounds a snapshot loaded just before a change it then missed on the feed
+        this.snapshots = Caffeine.newBuilder().maximumSize(maxUsers)
+                .expireAfterWrite(snapshotTtlMinutes, TimeUnit.MINUTES).recordStats().build();
+        this.policies = Caffeine.newBuilder().expireAfterWrite(documentTtlMinutes, TimeUnit.MINUTES).build();
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.recentUsers = recentUsers;
+        this.recentUserDays = recentUserDays;
+        this.warmupTimeoutMs = warmupTimeoutMs;
+        meterRegistry.gauge("rbac.policy.cache.documents", policies, Cache::estimatedSize);
+        meterRegistry.gauge("rbac.policy.cache.snapshots", snapshots, Cache::estimatedSize);
+    }
+
+    /** Parsed document of the permission, or null when it has none (or it does not parse). */
+    public CompiledPolicy policy(UUID permissionId) {
+        Versioned cached = policies.getIfPresent(permissionId);
+        CompiledPolicy policy;
+        if (cached != null) {
+            policy = cached.policy();
+        } else {
+            Permission permission = permissionMapper.findById(permissionId);
+            policy = permission != null ? install(permission) : NO_DOCUMENT;
+        }
+        return policy == NO_DOCUMENT ? null : policy;
+    }
+
+    public UserSnapshot snapshot(UUID userId) {
+        return snapshots.get(userId, this::loadSnapshot);
+    }
+
+    /**
+     * Compiled matcher for an IAM wildcard pattern, with the evaluator's
+     * semantics: case-sensitive, '*' and '?' are wildcards, everything else
+     * is literal.
+     */
+    public Pattern pattern(String wildcard) {
+        return patterns.computeIfAbsent(wildcard, CompiledPolicyCache::compileWildcard);
+    }
+
+    static Pattern compileWildcard(String wildcard) {
+        StringBuilder regex = new StringBuilder();
+        for (String part : wildcard.split("((?<=[*?])|(?=[*?]))")) {
+            switch (part) {
+                case "*" -> regex.append(".*");
+                case "?" -> regex.append('.');
+                default -> regex.append(Pattern.quote(part));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    /** Drop the permission's document once the current transaction commits. */
+    public void invalidatePermission(UUID permissionId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(permissionId);
+                }
+            });
+        } else {
+            evict(permissionId);
+        }
+    }
+
+    /**
+     * Raise the floor to the committed version before dropping the entry, so
+     * a load that read the previous version and installs late is rejected.
+     */
+    private void evict(UUID permissionId) {
+        Long version = permissionMapper.findDocumentVersion(permissionId);
+        floors.merge(permissionId, version != null ? version : Long.MAX_VALUE, Math::max);
+        policies.invalidate(permissionId);
+    }
+
+    /** Compile the row and cache it unless a newer version is cached or known. */
+    private CompiledPolicy install(Permission permission) {
+        CompiledPolicy policy = compile(permission);
+        long version = permission.getDocumentVersion();
+        policies.asMap().compute(permission.getPermissionId(), (id, cached) -> {
+            if (version < floors.getOrDefault(id, 0L) || (cached != null && cached.version() >= version)) {
+                return cached;
+            }
+            return new Versioned(policy, version);
+        });
+        return policy;
+    }
+
+    @Scheduled(fixedDelayString = "${rbac.policy.cache.feed-poll-ms:500}")
+    public void followChangeFeed() {
+        if (feedCursor < 0) {
+            return;
+        }
+        AuthzChangePage page;
+        do {
+            page = changeFeed.read(feedCursor, 500);
+            for (AuthzChange change : page.getChanges()) {
+                if (change.getChangeType() == AuthzChangeType.PERMISSION_CHANGED
+                        && change.getPermissionId() != null) {
+                    evict(change.getPermissionId());
+                }
+                if (change.getUserId() != null) {
+                    snapshots.invalidate(change.getUserId());
+                }
+                if (change.getAffectedUserIds() != null) {
+                    snapshots.invalidateAll(change.getAffectedUserIds());
+                }
+                revocations.apply(change);
+            }
+            feedCursor = page.getNextCursor();
+        } while (page.isHasMore());
+    }
+
+    @Order(0)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        // Changes committed while warming up are replayed by the feed follower
+        feedCursor = changeFeed.head();
+        long started = System.nanoTime();
+        AtomicInteger threadIds = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "policy-warmup-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        int documents = 0;
+        int users = 0;
+        try {
+            List<Callable<Object>> tasks = new ArrayList<>();
+            for (Permission permission : permissionMapper.findAll()) {
+                tasks.add(() -> install(permission));
+            }
+            documents = tasks.size();
+            pool.invokeAll(tasks, warmupTimeoutMs, TimeUnit.MILLISECONDS);
+
+            tasks.clear();
+            for (UUID userId : recentActors()) {
+                tasks.add(() -> snapshot(userId));
+            }
+            users = tasks.size();
+            long remaining = warmupTimeoutMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            pool.invokeAll(tasks, Math.max(remaining, 0), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // Warm-up only saves first-request latency; serve traffic regardless
+            log.warn("Policy warm-up failed", e);
+        } finally {
+            pool.shutdownNow();
+            log.info("Policy warm-up compiled {} documents and {} user snapshots in {} ms", documents, users,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+        }
+    }
+
+    private List<UUID> recentActors() {
+        if (recentUsers <= 0) {
+            return List.of();
+        }
+        LocalDateTime since = LocalDateTime.now().minusDays(recentUserDays);
+        Set<UUID> actors = new LinkedHashSet<>();
+        // Partitions come newest first, so the most recent actors are kept
+        for (AuditLogPartition partition : partitionRouter.partitionsBetween(since, null)) {
+            if (actors.size() >= recentUsers) {
+                break;
+            }
+            actors.addAll(auditLogMapper.findRecentActorIds(partition.getTableName(), since,
+                    recentUsers - actors.size()));
+        }
+        return new ArrayList<>(actors);
+    }
+
+    private UserSnapshot loadSnapshot(UUID userId) {
+        boolean hasRoles = !roleMapper.findByUserId(userId).isEmpty();
+        List<UUID> permissionIds = new ArrayList<>();
+        for (Permission permission : permissionMapper.findEffectiveByUserId(userId)) {
+            permissionIds.add(permission.getPermissionId());
+            // The row is already here, so spare policy() a lookup
+            if (policies.getIfPresent(permission.getPermissionId()) == null) {
+                install(permission);
+            }
+        }
+        return new UserSnapshot(hasRoles, List.copyOf(permissionIds));
+    }
+
+    private CompiledPolicy compile(Permission permission) {
+        if (permission.getPolicyDocument() == null) {
+            return NO_DOCUMENT;
+        }
+        PolicyDocument document;
+        try {
+            document = objectMapper.readValue(permission.getPolicyDocument(), PolicyDocument.class);
+        } catch (Exception e) {
+            log.warn("Failed to parse policy document for permission {}", permission.getPermissionId(), e);
+            return NO_DOCUMENT;
+        }
+        if (document.getStatement() != null) {
+            for (PolicyStatement statement : document.getStatement()) {
+                compileAll(statement.getAction());
+                compileAll(statement.getNotAction());
+                compileAll(statement.getResource());
+                compileAll(statement.getNotResource());
+            }
+        }
+        return new CompiledPolicy(permission.getPermissionId(), permission.getPermissionName(), document);
+    }
+
+    private void compileAll(List<String> wildcards) {
+        if (wildcards != null) {
+            wildcards.forEach(this::pattern);
+        }
+    }
+}
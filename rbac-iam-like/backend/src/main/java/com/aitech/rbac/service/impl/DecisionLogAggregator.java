@@ -0,0 +1,210 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.model.AuditLog;
+import com.aitech.rbac.security.PermissionDecision;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collapses repeated authorization decisions into one audit row per window.
+ *
+ * Decisions are keyed by (actor, namespace, action, resource, outcome). The
+ * first occurrence of a key in a window is always written in full; only
+ * repeats are folded into the window's counter. Repeated allows are
+ * additionally written in full at the configured sample rate, subject to a
+ * global per-second limit. When the window closes, every key that saw more
+ * occurrences than it wrote in full emits a single AUTH_DECISION_AGGREGATE
+ * row carrying the count and the first/last timestamps.
+ *
+ * Once max-keys windows are open, a new key is not tracked: its denies are
+ * still written in full, and its allows go through the per-second limit.
+ */
+@Component
+public class DecisionLogAggregator {
+
+    public static final String AGGREGATE_ACTION = "AUTH_DECISION_AGGREGATE";
+
+    private record Key(String actor, String namespace, String action, String resource, boolean allowed,
+            String reasonCode) {
+    }
+
+    private static final class Window {
+        final AuditLog template;
+        final PermissionDecision decision;
+        final LocalDateTime firstAt;
+        LocalDateTime lastAt;
+        long count;
+        long written;
+
+        Window(AuditLog template, PermissionDecision decision) {
+            this.template = template;
+            this.decision = decision;
+            this.firstAt = template.getCreatedAt();
+            this.lastAt = firstAt;
+        }
+    }
+
+    private final AuditLogWriter auditLogWriter;
+    private final ConcurrentHashMap<Key, Window> windows = new ConcurrentHashMap<>();
+    private final double allowSampleRate;
+    private final int sampledPerSecond;
+    private final int maxKeys;
+    private final AtomicInteger openWindows = new AtomicInteger();
+    private final AtomicLong rateSecond = new AtomicLong();
+    private final AtomicInteger rateCount = new AtomicInteger();
+    private final Counter aggregated;
+    private final Counter sampledOut;
+    private final Counter overflow;
+
+    public DecisionLogAggregator(AuditLogWriter auditLogWriter, MeterRegistry meterRegistry,
+            @Value("${rbac.audit.decisions.allow-sample-rate:0.01}") double allowSampleRate,
+            @Value("${rbac.audit.decisions.sampled-per-second:100}") int sampledPerSecond,
+            @Value("${rbac.audit.decisions.max-keys:100000}") int maxKeys) {
+        this.auditLogWriter = auditLogWriter;
+        this.allowSampleRate = allowSampleRate;
+        this.sampledPerSecond = sampledPerSecond;
+        this.maxKeys = maxKeys;
+        this.aggregated = meterRegistry.counter("rbac.audit.decisions", "written", "aggregated");
+        this.sampledOut = meterRegistry.counter("rbac.audit.decisions", "written", "sampled_out");
+        this.overflow = meterRegistry.counter("rbac.audit.decisions", "written", "overflow");
+        meterRegistry.gaugeMapSize("rbac.audit.decisions.windows", java.util.List.of(), windows);
+    }
+
+    /**
+     * Record a decision. {@code log} already carries the request context
+     * (actor, IP, correlation id) and is written as is when the decision is
+     * logged in full.
+     */
+    public void record(PermissionDecision decision, AuditLog log, String details) {
+        Key key = new Key(actorOf(log), decision.getNamespace(), decision.getAction(), resourceOf(decision),
+                decision.isAllowed(), Objects.toString(decision.getReasonCode(), null));
+
+        boolean[] writeFull = new boolean[1];
+        boolean[] untracked = new boolean[1];
+        windows.compute(key, (k, window) -> {
+            if (window == null) {
+                // The slot is reserved inside compute, so max-keys is never overshot
+                if (openWindows.incrementAndGet() > maxKeys) {
+                    openWindows.decrementAndGet();
+                    untracked[0] = true;
+                    return null;
+                }
+                window = new Window(log, decision);
+                writeFull[0] = true;
+            } else {
+                window.lastAt = log.getCreatedAt();
+                writeFull[0] = decision.isAllowed() && sampled() && tryAcquireSample();
+            }
+            window.count++;
+            if (writeFull[0]) {
+                window.written++;
+            }
+            return window;
+        });
+
+        if (untracked[0]) {
+            overflow.increment();
+            writeFull[0] = !decision.isAllowed() || tryAcquireSample();
+        }
+        if (writeFull[0]) {
+            auditLogWriter.submit(log, null, details);
+        } else if (decision.isAllowed()) {
+            sampledOut.increment();
+        } else {
+            aggregated.increment();
+        }
+    }
+
+    /** Close the current windows and emit one row per key with unwritten occurrences. */
+    @Scheduled(fixedDelayString = "${rbac.audit.decisions.window-ms:60000}")
+    public void flushWindows() {
+        for (Key key : windows.keySet()) {
+            Window window = windows.remove(key);
+            if (window == null) {
+                continue;
+            }
+            openWindows.decrementAndGet();
+            if (window.count <= window.written) {
+                continue;
+            }
+            auditLogWriter.submit(aggregateRow(key, window), null, aggregateValue(window));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushWindows();
+    }
+
+    private AuditLog aggregateRow(Key key, Window window) {
+        AuditLog template = window.template;
+        AuditLog log = new AuditLog();
+        log.setLogId(UUID.randomUUID());
+        log.setCreatedAt(window.lastAt);
+        log.setActionType(AGGREGATE_ACTION);
+        log.setEntityType(template.getEntityType());
+        log.setEntityId(template.getEntityId());
+        log.setActorUserId(template.getActorUserId());
+        log.setActorEmail(template.getActorEmail());
+        log.setIpAddress(template.getIpAddress());
+        log.setCorrelationId(template.getCorrelationId());
+        log.setAffectedRolesCount(0);
+        log.setAffectedUsersCount(0);
+        return log;
+    }
+
+    private Map<String, Object> aggregateValue(Window window) {
+        PermissionDecision decision = window.decision;
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("namespace", decision.getNamespace());
+        value.put("action", decision.getAction());
+        value.put("categoryId", decision.getCategoryId() != null ? decision.getCategoryId().toString() : null);
+        value.put("resourceId", decision.getResourceId());
+        value.put("allowed", decision.isAllowed());
+        value.put("source", decision.getSource());
+        value.put("reasonCode", Objects.toString(decision.getReasonCode(), null));
+        value.put("count", window.count);
+        value.put("loggedIndividually", window.written);
+        value.put("firstAt", window.firstAt.toString());
+        value.put("lastAt", window.lastAt.toString());
+        return value;
+    }
+
+    private boolean sampled() {
+        return allowSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < allowSampleRate;
+    }
+
+    private boolean tryAcquireSample() {
+        long second = System.currentTimeMillis() / 1000;
+        long current = rateSecond.get();
+        if (current != second && rateSecond.compareAndSet(current, second)) {
+            rateCount.set(0);
+        }
+        return rateCount.incrementAndGet() <= sampledPerSecond;
+    }
+
+    private static String actorOf(AuditLog log) {
+        return log.getActorUserId() != null ? log.getActorUserId().toString() : log.getActorEmail();
+    }
+
+    private static String resourceOf(PermissionDecision decision) {
+        if (decision.getResourceId() != null) {
+            return decision.getResourceId();
+        }
+        return decision.getCategoryId() != null ? decision.getCategoryId().toString() : null;
+    }
+}
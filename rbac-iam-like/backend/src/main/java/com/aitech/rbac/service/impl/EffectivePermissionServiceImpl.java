@@ -0,0 +1,114 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.mapper.AuthzChangeMapper;
+import com.aitech.rbac.mapper.EffectivePermissionMapper;
+import com.aitech.rbac.service.EffectivePermissionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * Refreshes are delete-and-reinsert per affected user, deferred to
+ * before-commit so a transaction that touches many grants (e.g. a seal
+ * rewriting its resource matrix) recomputes each user once. The flush takes
+ * the change-feed lock, so concurrent writers touching the same users are
+ * serialised and never leave duplicate rows behind.
+ */
+@Slf4j
+@Service
+public class EffectivePermissionServiceImpl implements EffectivePermissionService {
+
+    private final EffectivePermissionMapper mapper;
+    private final AuthzChangeMapper changeMapper;
+
+    public EffectivePermissionServiceImpl(EffectivePermissionMapper mapper, AuthzChangeMapper changeMapper) {
+        this.mapper = mapper;
+        this.changeMapper = changeMapper;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refreshUsers(Collection<UUID> userIds) {
+        pending().userIds.addAll(userIds);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refreshRole(UUID roleId) {
+        pending().roleIds.add(roleId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refreshPermission(UUID permissionId) {
+        pending().permissionIds.add(permissionId);
+    }
+
+    @Override
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${rbac.effective-permissions.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() {
+        changeMapper.lockFeed();
+        int removed = mapper.deleteAll();
+        int inserted = mapper.insertAll();
+        log.info("Rebuilt user_effective_permissions: {} rows replaced by {}", removed, inserted);
+    }
+
+    private Pending pending() {
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new Pending();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    private void refreshPending(Pending pending) {
+        Set<UUID> userIds = new HashSet<>(pending.userIds);
+        if (!pending.roleIds.isEmpty()) {
+            userIds.addAll(mapper.findUserIdsByRoles(pending.roleIds));
+        }
+        for (UUID permissionId : pending.permissionIds) {
+            userIds.addAll(mapper.findUserIdsByPermission(permissionId));
+        }
+        if (userIds.isEmpty()) {
+            return;
+        }
+        changeMapper.lockFeed();
+        mapper.deleteByUserIds(userIds);
+        mapper.insertByUserIds(userIds);
+    }
+
+    private class Pending implements TransactionSynchronization {
+        private final Set<UUID> userIds = new HashSet<>();
+        private final Set<UUID> roleIds = new HashSet<>();
+        private final Set<UUID> permissionIds = new HashSet<>();
+
+        @Override
+        public int getOrder() {
+            // Run before MyBatis releases its session for the transaction
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            refreshPending(this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(EffectivePermissionServiceImpl.this);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.aitech.rbac.service.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Hierarchical timing wheel: level 0 has {@code wheelSize} buckets of
+ * {@code tickMs}, each further level (created on demand) has buckets as wide
+ * as the whole level below it. Scheduling is O(1); only non-empty buckets are
+ * queued, so the driver sleeps until the next bucket is due instead of
+ * ticking through empty ones. When a higher-level bucket comes due its
+ * entries cascade down until they reach level 0.
+ *
+ * Deadlines are rounded up to the tick, so an item is never returned before
+ * its deadline and at most one tick after it.
+ *
+ * Not thread-safe on its own; callers synchronize on the wheel.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private record Entry<T>(long dueMs, T item) {
+    }
+
+    private static final class Bucket<T> {
+        long expiration = -1;
+        List<Entry<T>> entries = new ArrayList<>();
+    }
+
+    private final class Level {
+        final long tickMs;
+        final long intervalMs;
+        final Bucket<T>[] buckets;
+        long currentTime;
+        Level overflow;
+
+        @SuppressWarnings("unchecked")
+        Level(long tickMs, long startMs) {
+            this.tickMs = tickMs;
+            this.intervalMs = tickMs * wheelSize;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>();
+            }
+            this.currentTime = startMs - (startMs % tickMs);
+        }
+
+        /** False when the entry is already due. */
+        boolean add(Entry<T> entry) {
+            if (entry.dueMs() < currentTime + tickMs) {
+                return false;
+            }
+            if (entry.dueMs() < currentTime + intervalMs) {
+                long virtualId = entry.dueMs() / tickMs;
+                Bucket<T> bucket = buckets[(int) (virtualId % wheelSize)];
+                bucket.entries.add(entry);
+                long expiration = virtualId * tickMs;
+                if (bucket.expiration != expiration) {
+                    bucket.expiration = expiration;
+                    queue.add(bucket);
+                }
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level(intervalMs, currentTime);
+            }
+            return overflow.add(entry);
+        }
+
+        void advanceClock(long timeMs) {
+            if (timeMs >= currentTime + tickMs) {
+                currentTime = timeMs - (timeMs % tickMs);
+                if (overflow != null) {
+                    overflow.advanceClock(currentTime);
+                }
+            }
+        }
+    }
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final PriorityQueue<Bucket<T>> queue = new PriorityQueue<>(Comparator.comparingLong(b -> b.expiration));
+    private final List<T> ready = new ArrayList<>();
+    private final Level root;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("tickMs must be positive and wheelSize greater than 1");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.root = new Level(tickMs, startMs);
+    }
+
+    public void schedule(long deadlineMs, T item) {
+        long dueMs = Math.floorDiv(deadlineMs + tickMs - 1, tickMs) * tickMs;
+        if (!root.add(new Entry<>(dueMs, item))) {
+            ready.add(item);
+        }
+        size++;
+    }
+
+    /** Time at which {@link #advance} next has something to return; {@code Long.MAX_VALUE} when empty. */
+    public long nextExpiration() {
+        if (!ready.isEmpty()) {
+            return Long.MIN_VALUE;
+        }
+        Bucket<T> next = queue.peek();
+        return next == null ? Long.MAX_VALUE : next.expiration;
+    }
+
+    /** Items whose deadline is at or before {@code nowMs}, in deadline order across buckets. */
+    public List<T> advance(long nowMs) {
+        List<T> due = new ArrayList<>(ready);
+        ready.clear();
+        while (!queue.isEmpty() && queue.peek().expiration <= nowMs) {
+            Bucket<T> bucket = queue.poll();
+            root.advanceClock(bucket.expiration);
+            List<Entry<T>> entries = bucket.entries;
+            bucket.entries = new ArrayList<>();
+            bucket.expiration = -1;
+            for (Entry<T> entry : entries) {
+                if (!root.add(entry)) {
+                    due.add(entry.item());
+                }
+            }
+        }
+        root.advanceClock(nowMs);
+        size -= due.size();
+        return due;
+    }
+
+    public int size() {
+        return size;
+    }
+}
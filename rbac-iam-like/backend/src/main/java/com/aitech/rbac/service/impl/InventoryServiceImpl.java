@@ -0,0 +1,92 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.dto.StockReservationRequest;
+import com.aitech.rbac.mapper.ProductMapper;
+import com.aitech.rbac.model.Product;
+import com.aitech.rbac.service.InsufficientStockException;
+import com.aitech.rbac.service.InventoryService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+@Service
+public class InventoryServiceImpl implements InventoryService {
+
+    private final ProductMapper mapper;
+    private final TransactionTemplate transaction;
+
+    public InventoryServiceImpl(ProductMapper mapper, PlatformTransactionManager transactionManager) {
+        this.mapper = mapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public Product update(UUID productId, Product product) {
+        if (product.getVersion() == null) {
+            throw new IllegalArgumentException("version is required");
+        }
+        product.setProductId(productId);
+        if (mapper.update(product) == 0) {
+            if (mapper.findById(productId) == null) {
+                throw new IllegalArgumentException("Product not found");
+            }
+            throw new OptimisticLockingFailureException("Product " + productId + " was modified concurrently");
+        }
+        return mapper.findById(productId);
+    }
+
+    @Override
+    public Product adjustStock(UUID productId, int delta) {
+        if (mapper.adjustStock(productId, delta) == 0) {
+            Product current = mapper.findById(productId);
+            if (current == null) {
+                throw new IllegalArgumentException("Product not found");
+            }
+            throw new InsufficientStockException(List.of(current.getSku()));
+        }
+        return mapper.findById(productId);
+    }
+
+    @Override
+    public List<Product> reserve(List<StockReservationRequest.Item> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("items are required");
+        }
+        // Sorted so concurrent reservations meet the rows in the same order
+        Map<String, Integer> quantities = new TreeMap<>();
+        for (StockReservationRequest.Item item : items) {
+            if (item.getSku() == null || item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Each item needs a sku and a positive quantity");
+            }
+            quantities.merge(item.getSku(), item.getQuantity(), Integer::sum);
+        }
+
+        Boolean reserved = transaction.execute(status -> {
+            if (mapper.reserveStock(quantities) == quantities.size()) {
+                return true;
+            }
+            // Some rows did not qualify: undo the ones that did
+            status.setRollbackOnly();
+            return false;
+        });
+        if (Boolean.TRUE.equals(reserved)) {
+            return mapper.findBySkus(quantities.keySet());
+        }
+
+        // Read after the rollback, only to name the short SKUs in the error
+        Map<String, Integer> stock = new HashMap<>();
+        for (Product product : mapper.findBySkus(quantities.keySet())) {
+            stock.put(product.getSku(), product.getStockQuantity());
+        }
+        List<String> shortSkus = new ArrayList<>();
+        quantities.forEach((sku, quantity) -> {
+            if (stock.getOrDefault(sku, 0) < quantity) {
+                shortSkus.add(sku);
+            }
+        });
+        throw new InsufficientStockException(shortSkus.isEmpty() ? List.copyOf(quantities.keySet()) : shortSkus);
+    }
+}
@@ -1,19 +1,50 @@
 package com.aitech.rbac.service.impl;
 
 import com.aitech.rbac.mapper.NamespaceMapper;
+import com.aitech.rbac.mapper.ResourceAccessMapper;
 import com.aitech.rbac.model.Namespace;
+import com.aitech.rbac.service.AccessReviewService;
+import com.aitech.rbac.service.EffectivePermissionService;
 import com.aitech.rbac.service.NamespaceService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
 
 @Service
 public class NamespaceServiceImpl implements NamespaceService {
     private final NamespaceMapper mapper;
-    public NamespaceServiceImpl(NamespaceMapper mapper) { this.mapper = mapper; }
+    private final ResourceAccessMapper resourceAccessMapper;
+    private final EffectivePermissionService effectivePermissions;
+    private final AccessReviewService accessReview;
+    public NamespaceServiceImpl(NamespaceMapper mapper, ResourceAccessMapper resourceAccessMapper,
+            EffectivePermissionService effectivePermissions, AccessReviewService accessReview) {
+        this.mapper = mapper;
+        this.resourceAccessMapper = resourceAccessMapper;
+        this.effectivePermissions = effectivePermissions;
+        this.accessReview = accessReview;
+    }
 
     public List<Namespace> getAll() { return mapper.findAll(); }
     public Namespace getById(UUID id) { return mapper.findById(id); }
     public void create(Namespace entity) { mapper.insert(entity); }
-    public void update(Namespace entity) { mapper.update(entity); }
-    public void delete(UUID id) { mapper.delete(id); }
+    // Keys are denormalised into the effective-permission table and the access review
+    // index; only permissions mapped to this namespace are recomputed
+    @Transactional
+    public void update(Namespace entity) {
+        mapper.update(entity);
+        refreshHolders(entity.getNamespaceId());
+    }
+    @Transactional
+    public void delete(UUID id) {
+        // Collected first: the resource_access rows cascade away with the namespace
+        refreshHolders(id);
+        mapper.delete(id);
+    }
+
+    private void refreshHolders(UUID id) {
+        for (UUID permissionId : resourceAccessMapper.findPermissionIdsByNamespace(id)) {
+            effectivePermissions.refreshPermission(permissionId);
+            accessReview.refreshPermission(permissionId);
+        }
+    }
 }
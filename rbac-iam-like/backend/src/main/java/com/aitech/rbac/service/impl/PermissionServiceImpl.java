@@ -1,8 +1,13 @@
 package com.aitech.rbac.service.impl;
 
+import com.aitech.rbac.dto.RolePermissionBindingDTO;
 import com.aitech.rbac.mapper.PermissionMapper;
 import com.aitech.rbac.mapper.PolicyVersionMapper;
+import com.aitech.rbac.model.AuthzChangeType;
 import com.aitech.rbac.model.Permission;
+import com.aitech.rbac.service.AccessReviewService;
+import com.aitech.rbac.service.AuthzChangeFeedService;
+import com.aitech.rbac.service.EffectivePermissionService;
 import com.aitech.rbac.service.PermissionService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,10 +17,20 @@ import java.util.*;
 public class PermissionServiceImpl implements PermissionService {
     private final PermissionMapper mapper;
     private final PolicyVersionMapper policyVersionMapper;
+    private final AuthzChangeFeedService changeFeed;
+    private final AccessReviewService accessReview;
+    private final CompiledPolicyCache policyCache;
+    private final EffectivePermissionService effectivePermissions;
 
-    public PermissionServiceImpl(PermissionMapper mapper, PolicyVersionMapper policyVersionMapper) {
+    public PermissionServiceImpl(PermissionMapper mapper, PolicyVersionMapper policyVersionMapper,
+            AuthzChangeFeedService changeFeed, AccessReviewService accessReview, CompiledPolicyCache policyCache,
+            EffectivePermissionService effectivePermissions) {
         this.mapper = mapper;
         this.policyVersionMapper = policyVersionMapper;
+        this.changeFeed = changeFeed;
+        this.accessReview = accessReview;
+        this.policyCache = policyCache;
+        this.effectivePermissions = effectivePermissions;
     }
 
     public List<Permission> getAll() {
@@ -26,20 +41,52 @@ public class PermissionServiceImpl implements PermissionService {
         return mapper.findById(id);
     }
 
+    public Map<UUID, List<Permission>> getByRoleIds(Collection<UUID> roleIds) {
+        Map<UUID, List<Permission>> result = new HashMap<>();
+        if (roleIds.isEmpty()) {
+            return result;
+        }
+        for (RolePermissionBindingDTO binding : mapper.findByRoleIds(roleIds)) {
+            result.computeIfAbsent(binding.getRoleId(), k -> new ArrayList<>()).add(binding.getPermission());
+        }
+        return result;
+    }
+
+    @Transactional
     public void create(Permission entity) {
         if (entity.getPermissionId() == null) {
             entity.setPermissionId(UUID.randomUUID());
         }
         mapper.insert(entity);
+        if (entity.getPolicyDocument() != null) {
+            changeFeed.record(AuthzChangeType.PERMISSION_CHANGED, null, null, entity.getPermissionId());
+        }
+        accessReview.refreshPermission(entity.getPermissionId());
+        policyCache.invalidatePermission(entity.getPermissionId());
     }
 
+    @Transactional
     public void update(Permission entity) {
+        Permission current = mapper.findById(entity.getPermissionId());
         mapper.update(entity);
+        // The evaluator reads policy_document, so its followers must hear of every edit
+        if (current != null && !Objects.equals(current.getPolicyDocument(), entity.getPolicyDocument())) {
+            changeFeed.record(AuthzChangeType.PERMISSION_CHANGED, null, null, entity.getPermissionId());
+            // Materialized rows carry a pattern and effect only while there is no document
+            effectivePermissions.refreshPermission(entity.getPermissionId());
+        }
+        accessReview.refreshPermission(entity.getPermissionId());
+        policyCache.invalidatePermission(entity.getPermissionId());
     }
 
     @Transactional
     public void delete(UUID id) {
+        changeFeed.recordPermissionRoles(AuthzChangeType.ROLE_PERMISSION_REVOKED, id);
+        // Lets other instances drop the compiled document
+        changeFeed.record(AuthzChangeType.PERMISSION_CHANGED, null, null, id);
         policyVersionMapper.deleteByPermissionId(id);
         mapper.delete(id);
+        accessReview.refreshPermission(id);
+        policyCache.invalidatePermission(id);
     }
 }
@@ -5,18 +5,15 @@ import com.aitech.rbac.service.PolicyEvaluationService;
 import com.aitech.rbac.mapper.UserMapper;
 import com.aitech.rbac.mapper.RoleMapper;
 import com.aitech.rbac.mapper.PermissionMapper;
-import com.aitech.rbac.mapper.RolePermissionMapper;
 import com.aitech.rbac.model.User;
-import com.aitech.rbac.model.Role;
-import com.aitech.rbac.model.Permission;
-import com.aitech.rbac.model.RolePermission;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -34,24 +31,37 @@ public class PolicyEvaluationServiceImpl implements PolicyEvaluationService {
     private final UserMapper userMapper;
     private final RoleMapper roleMapper;
     private final PermissionMapper permissionMapper;
-    private final RolePermissionMapper rolePermissionMapper;
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final CompiledPolicyCache policyCache;
+    private final com.aitech.rbac.service.UserAttributeService userAttributes;
 
     public PolicyEvaluationServiceImpl(
             UserMapper userMapper,
             RoleMapper roleMapper,
             PermissionMapper permissionMapper,
-            RolePermissionMapper rolePermissionMapper) {
+            MeterRegistry meterRegistry,
+            CompiledPolicyCache policyCache,
+            com.aitech.rbac.service.UserAttributeService userAttributes) {
         this.userMapper = userMapper;
         this.roleMapper = roleMapper;
         this.permissionMapper = permissionMapper;
-        this.rolePermissionMapper = rolePermissionMapper;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        this.meterRegistry = meterRegistry;
+        this.policyCache = policyCache;
+        this.userAttributes = userAttributes;
     }
 
     @Override
     public AccessDecision evaluateAccess(AccessRequest request) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        AccessDecision decision = evaluate(request);
+        sample.stop(meterRegistry.timer("rbac.policy.evaluate", "outcome", decision.isAllowed() ? "allow" : "deny"));
+        return decision;
+    }
+
+    private AccessDecision evaluate(AccessRequest request) {
         AccessDecision decision = new AccessDecision();
         decision.setMatchedStatements(new ArrayList<>());
         decision.setAppliedPolicies(new ArrayList<>());
@@ -65,30 +75,21 @@ public class PolicyEvaluationServiceImpl implements PolicyEvaluationService {
                 return decision;
             }
 
-            // Step 2: Get all user's roles
-            List<Role> roles = roleMapper.findByUserId(user.getUserId());
-            if (roles.isEmpty()) {
+            // Step 2: Get all user's roles (from the cached effective snapshot)
+            CompiledPolicyCache.UserSnapshot snapshot = policyCache.snapshot(user.getUserId());
+            if (!snapshot.hasRoles()) {
                 decision.setAllowed(false);
                 decision.setReason("User has no assigned roles");
                 return decision;
             }
 
-            // Step 3: Get all policies from all roles
+            // Step 3: Get all policies from all roles, inherited ones included; parsed once and cached
             List<PolicyDocument> policies = new ArrayList<>();
-            for (Role role : roles) {
-                List<RolePermission> rolePerms = rolePermissionMapper.findByRoleId(role.getRoleId());
-                for (RolePermission rp : rolePerms) {
-                    Permission permission = permissionMapper.findById(rp.getPermissionId());
-                    if (permission != null && permission.getPolicyDocument() != null) {
-                        try {
-                            PolicyDocument policy = parsePolicyDocument(permission.getPolicyDocument());
-                            policies.add(policy);
-                            decision.getAppliedPolicies().add(permission.getPermissionName());
-                        } catch (Exception e) {
-                            log.warn("Failed to parse policy document for permission {}", permission.getPermissionId(),
-                                    e);
-                        }
-                    }
+            for (UUID permissionId : snapshot.permissionIds()) {
+                CompiledPolicyCache.CompiledPolicy policy = policyCache.policy(permissionId);
+                if (policy != null) {
+                    policies.add(policy.document());
+                    decision.getAppliedPolicies().add(policy.permissionName());
                 }
             }
 
@@ -102,13 +103,16 @@ public class PolicyEvaluationServiceImpl implements PolicyEvaluationService {
             boolean hasExplicitDeny = false;
             boolean hasExplicitAllow = false;
             String denyReason = null;
+            int statementsVisited = 0;
+            ConditionContext conditionContext = new ConditionContext(request.getContext(), user.getUserId());
 
             for (PolicyDocument policy : policies) {
                 if (policy.getStatement() == null)
                     continue;
 
                 for (PolicyStatement statement : policy.getStatement()) {
-                    if (statementMatches(statement, request)) {
+                    statementsVisited++;
+                    if (statementMatches(statement, request, conditionContext)) {
                         String stmtId = statement.getSid() != null ? statement.getSid() : "unnamed";
                         decision.getMatchedStatements().add(policy.getName() + ":" + stmtId);
 
@@ -123,6 +127,8 @@ public class PolicyEvaluationServiceImpl implements PolicyEvaluationService {
                 }
             }
 
+            meterRegistry.summary("rbac.policy.statements.visited").record(statementsVisited);
+
             // AWS IAM Rule: Explicit Deny ALWAYS wins
             if (hasExplicitDeny) {
                 decision.setAllowed(false);
@@ -153,7 +159,8 @@ public class PolicyEvaluationServiceImpl implements PolicyEvaluationService {
     /**
      * Check if a statement matches the access request
      */
-    private boolean statementMatches(PolicyStatement statement, AccessRequest request) {
+    private boolean statementMatches(PolicyStatement statement, AccessRequest request,
+            ConditionContext conditionContext) {
         // Check Action match
         boolean actionMatch = false;
         String requestAction = request.getNamespace() + ":" + request.getAction();
@@ -183,7 +190,7 @@ public class PolicyEvaluationServiceImpl implements PolicyEvaluationService {
 
         // Check Conditions (if specified)
         if (statement.getCondition() != null && !statement.getCondition().isEmpty()) {
-            if (!evaluateConditions(statement.getCondition(), request.getContext())) {
+            if (!evaluateConditions(statement.getCondition(), conditionContext)) {
                 return false;
             }
         }
@@ -229,24 +236,15 @@ public class PolicyEvaluationServiceImpl implements PolicyEvaluationService {
             return true;
         }
 
-        // Convert wildcard pattern to regex
-        String regex = pattern
-                .replace(".", "\\.")
-                .replace("*", ".*")
-                .replace("?", ".");
-
-        return Pattern.matches(regex, value);
+        // Compiled once per distinct pattern
+        return policyCache.pattern(pattern).matcher(value).matches();
     }
 
     /**
      * Evaluate IAM-style conditions
      * Examples: IpAddress, DateGreaterThan, StringLike, etc.
      */
-    private boolean evaluateConditions(Map<String, Map<String, Object>> conditions, Map<String, Object> context) {
-        if (context == null) {
-            context = new HashMap<>();
-        }
-
+    private boolean evaluateConditions(Map<String, Map<String, Object>> conditions, ConditionContext context) {
         for (Map.Entry<String, Map<String, Object>> conditionEntry : conditions.entrySet()) {
             String conditionOperator = conditionEntry.getKey();
             Map<String, Object> conditionKeyValues = conditionEntry.getValue();
@@ -265,6 +263,34 @@ public class PolicyEvaluationServiceImpl implements PolicyEvaluationService {
         return true;
     }
 
+    /**
+     * Condition keys of one evaluation. {@code principal:<attr>} keys come from
+     * the user attribute store, never from the caller's context, and are only
+     * fetched once a matching statement's condition references one.
+     */
+    private final class ConditionContext {
+        private static final String PRINCIPAL_PREFIX = "principal:";
+
+        private final Map<String, Object> request;
+        private final UUID userId;
+        private Map<String, String> principal;
+
+        ConditionContext(Map<String, Object> request, UUID userId) {
+            this.request = request != null ? request : Map.of();
+            this.userId = userId;
+        }
+
+        Object get(String key) {
+            if (!key.startsWith(PRINCIPAL_PREFIX)) {
+                return request.get(key);
+            }
+            if (principal == null) {
+                principal = userAttributes.getAttributes(userId);
+            }
+            return principal.get(key.substring(PRINCIPAL_PREFIX.length()));
+        }
+    }
+
     /**
      * Evaluate individual condition operators
      */
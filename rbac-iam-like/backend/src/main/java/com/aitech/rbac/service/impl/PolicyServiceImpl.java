@@ -3,8 +3,10 @@ package com.aitech.rbac.service.impl;
 import com.aitech.rbac.dto.PageResponse;
 import com.aitech.rbac.mapper.PolicyMapper;
 import com.aitech.rbac.mapper.PolicyVersionMapper;
+import com.aitech.rbac.model.AuthzChangeType;
 import com.aitech.rbac.model.PolicyVersion;
 import com.aitech.rbac.service.AuditService;
+import com.aitech.rbac.service.AuthzChangeFeedService;
 import com.aitech.rbac.service.PolicyEngine;
 import com.aitech.rbac.service.PolicyService;
 import com.github.pagehelper.PageHelper;
@@ -29,12 +31,20 @@ public class PolicyServiceImpl implements PolicyService {
     private final com.aitech.rbac.service.ResourceAccessService resourceAccessService;
     private final com.aitech.rbac.mapper.NamespaceMapper namespaceMapper;
     private final com.aitech.rbac.mapper.ActionTypeMapper actionTypeMapper;
+    private final AuthzChangeFeedService changeFeed;
+    private final com.aitech.rbac.service.EffectivePermissionService effectivePermissions;
+    private final com.aitech.rbac.service.PolicyAnalyzer policyAnalyzer;
+    private final com.aitech.rbac.mapper.PermissionMapper permissionMapper;
 
     public PolicyServiceImpl(PolicyMapper policyMapper, PolicyVersionMapper versionMapper,
             PolicyEngine policyEngine, AuditService auditService,
             com.aitech.rbac.service.ResourceAccessService resourceAccessService,
             com.aitech.rbac.mapper.NamespaceMapper namespaceMapper,
-            com.aitech.rbac.mapper.ActionTypeMapper actionTypeMapper) {
+            com.aitech.rbac.mapper.ActionTypeMapper actionTypeMapper,
+            AuthzChangeFeedService changeFeed,
+            com.aitech.rbac.service.EffectivePermissionService effectivePermissions,
+            com.aitech.rbac.service.PolicyAnalyzer policyAnalyzer,
+            com.aitech.rbac.mapper.PermissionMapper permissionMapper) {
         this.policyMapper = policyMapper;
         this.versionMapper = versionMapper;
         this.policyEngine = policyEngine;
@@ -42,6 +52,10 @@ public class PolicyServiceImpl implements PolicyService {
         this.resourceAccessService = resourceAccessService;
         this.namespaceMapper = namespaceMapper;
         this.actionTypeMapper = actionTypeMapper;
+        this.changeFeed = changeFeed;
+        this.effectivePermissions = effectivePermissions;
+        this.policyAnalyzer = policyAnalyzer;
+        this.permissionMapper = permissionMapper;
     }
 
     @Override
@@ -63,7 +77,8 @@ public class PolicyServiceImpl implements PolicyService {
 
     @Override
     @Transactional
-    public void seal(UUID permissionId, Map<String, Map<String, Boolean>> matrix, boolean confirmImpact) {
+    public void seal(UUID permissionId, Map<String, Map<String, Boolean>> matrix, boolean confirmImpact,
+            boolean minimize) {
         Integer boundRoles = policyMapper.countBoundRoles(permissionId);
 
         if (boundRoles > 0 && !confirmImpact) {
@@ -76,6 +91,9 @@ public class PolicyServiceImpl implements PolicyService {
         try {
             // Convert Matrix to JSON
             String json = policyEngine.matrixToPolicyDocument(matrix, permissionName, permissionId.toString());
+            if (minimize) {
+                json = policyEngine.toDocumentJson(policyAnalyzer.analyze(policyAnalyzer.parse(json)).getMinimized());
+            }
 
             // Sync resource_access table with matrix
             syncResourceAccess(permissionId, matrix);
@@ -96,6 +114,8 @@ public class PolicyServiceImpl implements PolicyService {
             pv.setCreatedBy("ADMIN"); // Sould be current user via SecurityContext
 
             versionMapper.insert(pv);
+            changeFeed.record(AuthzChangeType.POLICY_SEALED, null, null, permissionId);
+            effectivePermissions.refreshPermission(permissionId);
 
             // Audit
             Integer affectedUsers = policyMapper.countAffectedUsers(permissionId);
@@ -107,6 +127,32 @@ public class PolicyServiceImpl implements PolicyService {
         }
     }
 
+    @Override
+    public com.aitech.rbac.dto.PolicyAnalysis analyze(UUID permissionId, Map<String, Map<String, Boolean>> matrix) {
+        String json;
+        if (matrix != null) {
+            try {
+                json = policyEngine.matrixToPolicyDocument(matrix, policyMapper.getPermissionName(permissionId),
+                        permissionId.toString());
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Failed to generate policy document", e);
+            }
+        } else {
+            // Current sealed version, else the document the evaluator reads
+            PolicyVersion current = versionMapper.findDefaultByPermissionId(permissionId);
+            com.aitech.rbac.model.Permission permission = current == null ? permissionMapper.findById(permissionId)
+                    : null;
+            if (current != null) {
+                json = current.getDocumentJson();
+            } else if (permission != null && permission.getPolicyDocument() != null) {
+                json = permission.getPolicyDocument();
+            } else {
+                throw new IllegalArgumentException("Permission has no policy document");
+            }
+        }
+        return policyAnalyzer.analyze(policyAnalyzer.parse(json));
+    }
+
     private void syncResourceAccess(UUID permissionId, Map<String, Map<String, Boolean>> matrix) {
         // Get current resource access entries for this permission
         List<com.aitech.rbac.model.ResourceAccess> currentAccess = resourceAccessService
@@ -167,6 +213,18 @@ public class PolicyServiceImpl implements PolicyService {
         return versionMapper.findByPermissionId(permissionId);
     }
 
+    @Override
+    public Map<UUID, List<PolicyVersion>> getVersionsByPermissionIds(java.util.Collection<UUID> permissionIds) {
+        Map<UUID, List<PolicyVersion>> result = new HashMap<>();
+        if (permissionIds.isEmpty()) {
+            return result;
+        }
+        for (PolicyVersion version : versionMapper.findByPermissionIds(permissionIds)) {
+            result.computeIfAbsent(version.getPermissionId(), k -> new java.util.ArrayList<>()).add(version);
+        }
+        return result;
+    }
+
     @Override
     @Transactional
     public void rollback(UUID permissionId, UUID versionId) {
@@ -177,6 +235,8 @@ public class PolicyServiceImpl implements PolicyService {
 
         versionMapper.clearDefaults(permissionId);
         versionMapper.setAsDefault(versionId);
+        changeFeed.record(AuthzChangeType.POLICY_ROLLED_BACK, null, null, permissionId);
+        effectivePermissions.refreshPermission(permissionId);
 
         // Audit
         Integer boundRoles = policyMapper.countBoundRoles(permissionId);
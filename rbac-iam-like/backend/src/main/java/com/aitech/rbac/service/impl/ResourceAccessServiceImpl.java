@@ -2,28 +2,42 @@ package com.aitech.rbac.service.impl;
 
 import com.aitech.rbac.mapper.ResourceAccessMapper;
 import com.aitech.rbac.model.ResourceAccess;
+import com.aitech.rbac.service.AccessReviewService;
+import com.aitech.rbac.service.EffectivePermissionService;
 import com.aitech.rbac.service.ResourceAccessService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class ResourceAccessServiceImpl implements ResourceAccessService {
     private final ResourceAccessMapper mapper;
+    private final EffectivePermissionService effectivePermissions;
+    private final AccessReviewService accessReview;
 
-    public ResourceAccessServiceImpl(ResourceAccessMapper mapper) {
+    public ResourceAccessServiceImpl(ResourceAccessMapper mapper, EffectivePermissionService effectivePermissions,
+            AccessReviewService accessReview) {
         this.mapper = mapper;
+        this.effectivePermissions = effectivePermissions;
+        this.accessReview = accessReview;
     }
 
     @Override
+    @Transactional
     public void create(ResourceAccess entity) {
         if (entity.getMappingId() == null) {
             entity.setMappingId(java.util.UUID.randomUUID());
         }
         mapper.insert(entity);
+        effectivePermissions.refreshPermission(entity.getPermissionId());
+        accessReview.refreshPermission(entity.getPermissionId());
     }
 
     @Override
+    @Transactional
     public void delete(ResourceAccess entity) {
         mapper.delete(entity);
+        effectivePermissions.refreshPermission(entity.getPermissionId());
+        accessReview.refreshPermission(entity.getPermissionId());
     }
 
     @Override
@@ -0,0 +1,215 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.mapper.UserRoleMapper;
+import com.aitech.rbac.model.AuthzChangeType;
+import com.aitech.rbac.model.UserRole;
+import com.aitech.rbac.service.AuthzChangeFeedService;
+import com.aitech.rbac.service.EffectivePermissionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the start and end of time-bound role assignments as they happen.
+ *
+ * Every pending valid_from/valid_until is held in a hierarchical timing wheel,
+ * loaded from user_roles at startup and kept current by the assignment writers.
+ * When a transition comes due the affected users' effective permissions are
+ * recomputed and a feed entry is recorded, so caches following the feed drop
+ * them at that moment; nothing polls the database for expiries.
+ *
+ * Transitions made stale by a later write (window changed, assignment
+ * removed) stay in the wheel and are discarded when they fire.
+ */
+@Slf4j
+@Component
+public class RoleAssignmentExpiry {
+
+    private record Key(UUID userId, UUID roleId) {
+    }
+
+    private record Transition(Key key, long atMillis, boolean activation) {
+    }
+
+    // Upper bound on a single wait, so wall-clock adjustments are picked up
+    private static final long MAX_WAIT_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long RETRY_DELAY_MS = TimeUnit.SECONDS.toMillis(1);
+
+    private final UserRoleMapper mapper;
+    private final AuthzChangeFeedService changeFeed;
+    private final EffectivePermissionService effectivePermissions;
+    private final TransactionTemplate transactionTemplate;
+    private final HierarchicalTimingWheel<Transition> wheel;
+    private final ConcurrentHashMap<Key, UserRole> windows = new ConcurrentHashMap<>();
+    private final Thread timerThread;
+    private volatile boolean running = true;
+
+    public RoleAssignmentExpiry(UserRoleMapper mapper, AuthzChangeFeedService changeFeed,
+            EffectivePermissionService effectivePermissions, PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${rbac.user-roles.expiry.tick-ms:100}") long tickMs,
+            @Value("${rbac.user-roles.expiry.wheel-size:64}") int wheelSize) {
+        this.mapper = mapper;
+        this.changeFeed = changeFeed;
+        this.effectivePermissions = effectivePermissions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.wheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+        meterRegistry.gauge("rbac.user-roles.expiry.pending", wheel, w -> {
+            synchronized (w) {
+                return w.size();
+            }
+        });
+        this.timerThread = new Thread(this::run, "role-assignment-expiry");
+        this.timerThread.setDaemon(true);
+        this.timerThread.start();
+    }
+
+    /**
+     * Runs before the effective-permission rebuild, which covers everything
+     * that came due while the application was down.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<UserRole> scheduled = mapper.findScheduled(LocalDateTime.now());
+        scheduled.forEach(this::schedule);
+        log.info("Scheduled {} role assignment transitions", scheduled.size());
+    }
+
+    /** Schedule the assignment's start and expiry once the current transaction commits. */
+    public void track(UserRole assignment) {
+        afterCommit(() -> schedule(assignment));
+    }
+
+    /** Forget the assignment once the current transaction commits. */
+    public void untrack(UUID userId, UUID roleId) {
+        afterCommit(() -> windows.remove(new Key(userId, roleId)));
+    }
+
+    /** Forget the role's assignments to these users once the current transaction commits. */
+    public void untrack(Collection<UUID> userIds, UUID roleId) {
+        afterCommit(() -> userIds.forEach(userId -> windows.remove(new Key(userId, roleId))));
+    }
+
+    private void schedule(UserRole assignment) {
+        Key key = new Key(assignment.getUserId(), assignment.getRoleId());
+        if (assignment.getValidFrom() == null && assignment.getValidUntil() == null) {
+            windows.remove(key);
+            return;
+        }
+        windows.put(key, assignment);
+        long now = System.currentTimeMillis();
+        synchronized (wheel) {
+            if (assignment.getValidFrom() != null && toMillis(assignment.getValidFrom()) > now) {
+                wheel.schedule(toMillis(assignment.getValidFrom()),
+                        new Transition(key, toMillis(assignment.getValidFrom()), true));
+            }
+            if (assignment.getValidUntil() != null) {
+                wheel.schedule(toMillis(assignment.getValidUntil()),
+                        new Transition(key, toMillis(assignment.getValidUntil()), false));
+            }
+            wheel.notifyAll();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            List<Transition> due;
+            try {
+                synchronized (wheel) {
+                    long wait = wheel.nextExpiration() - System.currentTimeMillis();
+                    if (wait > 0) {
+                        wheel.wait(Math.min(wait, MAX_WAIT_MS));
+                        continue;
+                    }
+                    due = wheel.advance(System.currentTimeMillis());
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            apply(due);
+        }
+    }
+
+    private void apply(List<Transition> due) {
+        // Window each transition was scheduled for, captured before a concurrent write can replace it
+        Map<Transition, UserRole> live = new LinkedHashMap<>();
+        for (Transition transition : due) {
+            UserRole window = windows.get(transition.key());
+            LocalDateTime at = window == null ? null
+                    : transition.activation() ? window.getValidFrom() : window.getValidUntil();
+            if (at != null && toMillis(at) == transition.atMillis()) {
+                live.put(transition, window);
+            }
+        }
+        if (live.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<UUID> userIds = new HashSet<>();
+                for (Transition transition : live.keySet()) {
+                    changeFeed.record(transition.activation() ? AuthzChangeType.USER_ROLE_ACTIVATED
+                            : AuthzChangeType.USER_ROLE_EXPIRED, transition.key().userId(),
+                            transition.key().roleId(), null);
+                    userIds.add(transition.key().userId());
+                }
+                effectivePermissions.refreshUsers(userIds);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Applying {} role assignment transitions failed, retrying", live.size(), e);
+            synchronized (wheel) {
+                for (Transition transition : live.keySet()) {
+                    wheel.schedule(System.currentTimeMillis() + RETRY_DELAY_MS, transition);
+                }
+                wheel.notifyAll();
+            }
+            return;
+        }
+        live.forEach((transition, window) -> {
+            if (!transition.activation() || window.getValidUntil() == null) {
+                windows.remove(transition.key(), window);
+            }
+        });
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        timerThread.interrupt();
+        timerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+}
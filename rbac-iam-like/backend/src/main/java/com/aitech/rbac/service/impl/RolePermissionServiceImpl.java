@@ -1,27 +1,58 @@
 package com.aitech.rbac.service.impl;
 
+import com.aitech.rbac.dto.RolePermissionDiff;
+import com.aitech.rbac.dto.RolePermissionMatrix;
 import com.aitech.rbac.mapper.RolePermissionMapper;
+import com.aitech.rbac.model.AuthzChange;
+import com.aitech.rbac.model.AuthzChangeType;
 import com.aitech.rbac.model.RolePermission;
+import com.aitech.rbac.service.AuthzChangeFeedService;
+import com.aitech.rbac.service.EffectivePermissionService;
 import com.aitech.rbac.service.RolePermissionService;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
 
 @Service
 public class RolePermissionServiceImpl implements RolePermissionService {
 
+    // Statements per JDBC batch flush when applying a matrix diff
+    private static final int BATCH_SIZE = 1000;
+
     private final RolePermissionMapper mapper;
+    private final AuthzChangeFeedService changeFeed;
+    private final EffectivePermissionService effectivePermissions;
+    private final SqlSessionFactory sqlSessionFactory;
 
-    public RolePermissionServiceImpl(RolePermissionMapper mapper) {
+    public RolePermissionServiceImpl(RolePermissionMapper mapper, AuthzChangeFeedService changeFeed,
+            EffectivePermissionService effectivePermissions, SqlSessionFactory sqlSessionFactory) {
         this.mapper = mapper;
+        this.changeFeed = changeFeed;
+        this.effectivePermissions = effectivePermissions;
+        this.sqlSessionFactory = sqlSessionFactory;
     }
 
     @Override
+    @Transactional
     public void create(RolePermission entity) {
         mapper.insert(entity);
+        changeFeed.record(AuthzChangeType.ROLE_PERMISSION_GRANTED, null, entity.getRoleId(),
+                entity.getPermissionId());
+        effectivePermissions.refreshRole(entity.getRoleId());
     }
 
     @Override
+    @Transactional
     public void delete(RolePermission entity) {
         mapper.delete(entity);
+        changeFeed.record(AuthzChangeType.ROLE_PERMISSION_REVOKED, null, entity.getRoleId(),
+                entity.getPermissionId());
+        effectivePermissions.refreshRole(entity.getRoleId());
     }
 
     @Override
@@ -33,4 +64,117 @@ public class RolePermissionServiceImpl implements RolePermissionService {
     public java.util.List<RolePermission> listAll() {
         return mapper.findAll();
     }
+
+    @Override
+    public RolePermissionMatrix getMatrix() {
+        RolePermissionMatrix matrix = new RolePermissionMatrix();
+        Map<UUID, BitSet> bitsByRole = new HashMap<>();
+        Map<UUID, Integer> column = new HashMap<>();
+        for (RolePermissionMatrix.Row row : mapper.findMatrixRows()) {
+            switch (row.getKind()) {
+                case 0 -> {
+                    matrix.getRoles().add(new RolePermissionMatrix.Axis(row.getId(), row.getName(), row.getItemKey()));
+                    bitsByRole.put(row.getId(), new BitSet());
+                }
+                case 1 -> {
+                    column.put(row.getId(), matrix.getPermissions().size());
+                    matrix.getPermissions()
+                            .add(new RolePermissionMatrix.Axis(row.getId(), row.getName(), row.getItemKey()));
+                }
+                default -> bitsByRole.get(row.getId()).set(column.get(row.getPermissionId()));
+            }
+        }
+        Base64.Encoder encoder = Base64.getEncoder();
+        for (RolePermissionMatrix.Axis role : matrix.getRoles()) {
+            matrix.getGrants().add(encoder.encodeToString(bitsByRole.get(role.getId()).toByteArray()));
+        }
+        return matrix;
+    }
+
+    @Override
+    @Transactional
+    public RolePermissionDiff.Result applyDiff(RolePermissionDiff diff) {
+        Set<RolePermissionKey> grants = keys(diff.getGrant());
+        Set<RolePermissionKey> revokes = keys(diff.getRevoke());
+        for (RolePermissionKey key : grants) {
+            if (revokes.contains(key)) {
+                throw new IllegalArgumentException(
+                        "Role " + key.roleId() + " is both granted and revoked permission " + key.permissionId());
+            }
+        }
+        Set<UUID> roleIds = new HashSet<>();
+        grants.forEach(key -> roleIds.add(key.roleId()));
+        revokes.forEach(key -> roleIds.add(key.roleId()));
+        if (roleIds.isEmpty()) {
+            return new RolePermissionDiff.Result(0, 0);
+        }
+
+        // Only pairs whose state actually changes are written and recorded
+        Set<RolePermissionKey> current = new HashSet<>();
+        for (RolePermission held : mapper.findByRoleIds(roleIds)) {
+            current.add(new RolePermissionKey(held.getRoleId(), held.getPermissionId()));
+        }
+        grants.removeAll(current);
+        revokes.retainAll(current);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<AuthzChange> changes = new ArrayList<>(grants.size() + revokes.size());
+        // Joins the surrounding transaction's connection; flushed in chunks
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            RolePermissionMapper batch = session.getMapper(RolePermissionMapper.class);
+            int pending = 0;
+            for (RolePermissionKey key : revokes) {
+                batch.delete(key.toEntity(null));
+                changes.add(change(AuthzChangeType.ROLE_PERMISSION_REVOKED, key));
+                if (++pending % BATCH_SIZE == 0) {
+                    session.flushStatements();
+                }
+            }
+            for (RolePermissionKey key : grants) {
+                batch.insert(key.toEntity(now));
+                changes.add(change(AuthzChangeType.ROLE_PERMISSION_GRANTED, key));
+                if (++pending % BATCH_SIZE == 0) {
+                    session.flushStatements();
+                }
+            }
+            session.flushStatements();
+        }
+        changeFeed.recordAll(changes);
+        // Refreshes are deferred to commit, so every affected user is recomputed once
+        for (AuthzChange change : changes) {
+            effectivePermissions.refreshRole(change.getRoleId());
+        }
+        return new RolePermissionDiff.Result(grants.size(), revokes.size());
+    }
+
+    private record RolePermissionKey(UUID roleId, UUID permissionId) {
+        RolePermission toEntity(LocalDateTime assignedAt) {
+            RolePermission entity = new RolePermission();
+            entity.setRoleId(roleId);
+            entity.setPermissionId(permissionId);
+            entity.setAssignedAt(assignedAt);
+            return entity;
+        }
+    }
+
+    private static Set<RolePermissionKey> keys(List<RolePermission> entries) {
+        Set<RolePermissionKey> keys = new LinkedHashSet<>();
+        if (entries != null) {
+            for (RolePermission entry : entries) {
+                if (entry.getRoleId() == null || entry.getPermissionId() == null) {
+                    throw new IllegalArgumentException("roleId and permissionId are required");
+                }
+                keys.add(new RolePermissionKey(entry.getRoleId(), entry.getPermissionId()));
+            }
+        }
+        return keys;
+    }
+
+    private static AuthzChange change(AuthzChangeType type, RolePermissionKey key) {
+        AuthzChange change = new AuthzChange();
+        change.setChangeType(type);
+        change.setRoleId(key.roleId());
+        change.setPermissionId(key.permissionId());
+        return change;
+    }
 }
@@ -1,20 +1,33 @@
 package com.aitech.rbac.service.impl;
 
 import com.aitech.rbac.dto.PageResponse;
+import com.aitech.rbac.dto.UserRoleBindingDTO;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
+import com.aitech.rbac.mapper.RoleHierarchyMapper;
 import com.aitech.rbac.mapper.RoleMapper;
+import com.aitech.rbac.model.AuthzChangeType;
 import com.aitech.rbac.model.Role;
+import com.aitech.rbac.service.AuthzChangeFeedService;
+import com.aitech.rbac.service.EffectivePermissionService;
 import com.aitech.rbac.service.RoleService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
 
 @Service
 public class RoleServiceImpl implements RoleService {
     private final RoleMapper mapper;
+    private final RoleHierarchyMapper hierarchyMapper;
+    private final AuthzChangeFeedService changeFeed;
+    private final EffectivePermissionService effectivePermissions;
 
-    public RoleServiceImpl(RoleMapper mapper) {
+    public RoleServiceImpl(RoleMapper mapper, RoleHierarchyMapper hierarchyMapper,
+            AuthzChangeFeedService changeFeed, EffectivePermissionService effectivePermissions) {
         this.mapper = mapper;
+        this.hierarchyMapper = hierarchyMapper;
+        this.changeFeed = changeFeed;
+        this.effectivePermissions = effectivePermissions;
     }
 
     public List<Role> getAll() {
@@ -36,18 +49,76 @@ public class RoleServiceImpl implements RoleService {
         return mapper.findByUserId(userId);
     }
 
+    public Map<UUID, List<Role>> getByUserIds(Collection<UUID> userIds) {
+        Map<UUID, List<Role>> result = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return result;
+        }
+        for (UserRoleBindingDTO binding : mapper.findByUserIds(userIds)) {
+            result.computeIfAbsent(binding.getUserId(), k -> new ArrayList<>()).add(binding.getRole());
+        }
+        return result;
+    }
+
+    @Transactional
     public void create(Role entity) {
         if (entity.getRoleId() == null) {
             entity.setRoleId(UUID.randomUUID());
         }
         mapper.insert(entity);
+        hierarchyMapper.insertSelf(entity.getRoleId());
     }
 
     public void update(Role entity) {
         mapper.update(entity);
     }
 
+    @Transactional
     public void delete(UUID id) {
+        // Unlink the role first so paths running through it leave the closure
+        for (UUID childId : hierarchyMapper.findChildIds(id)) {
+            removeParent(childId, id);
+        }
+        for (UUID parentId : hierarchyMapper.findParentIds(id)) {
+            removeParent(id, parentId);
+        }
+        // Assignments cascade away with the role, so capture its members first
+        changeFeed.recordRoleMembers(AuthzChangeType.USER_ROLE_REVOKED, id);
         mapper.delete(id);
     }
+
+    public List<Role> getParents(UUID roleId) {
+        return hierarchyMapper.findParents(roleId);
+    }
+
+    public List<Role> getAncestors(UUID roleId) {
+        return hierarchyMapper.findAncestors(roleId);
+    }
+
+    @Transactional
+    public void addParent(UUID roleId, UUID parentId) {
+        if (mapper.findById(roleId) == null || mapper.findById(parentId) == null) {
+            throw new IllegalArgumentException("Role not found");
+        }
+        // Recording first takes the feed lock, which also serialises hierarchy
+        // edits so two concurrent edges cannot close a cycle between them
+        changeFeed.record(AuthzChangeType.ROLE_PARENT_ADDED, null, roleId, null);
+        if (hierarchyMapper.isAncestor(roleId, parentId)) {
+            throw new IllegalArgumentException("Role hierarchy cycle: role already inherits into " + parentId);
+        }
+        hierarchyMapper.insertEdge(roleId, parentId);
+        hierarchyMapper.addPaths(roleId, parentId);
+        effectivePermissions.refreshRole(roleId);
+    }
+
+    @Transactional
+    public void removeParent(UUID roleId, UUID parentId) {
+        if (hierarchyMapper.deleteEdge(roleId, parentId) == 0) {
+            return;
+        }
+        changeFeed.record(AuthzChangeType.ROLE_PARENT_REMOVED, null, roleId, null);
+        hierarchyMapper.removePaths(roleId, parentId);
+        hierarchyMapper.deleteEmptyPaths();
+        effectivePermissions.refreshRole(roleId);
+    }
 }
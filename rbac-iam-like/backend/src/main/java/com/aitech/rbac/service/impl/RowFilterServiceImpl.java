@@ -0,0 +1,144 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.dto.PageResponse;
+import com.aitech.rbac.dto.RowFilter;
+import com.aitech.rbac.dto.RowFilter.ResourceClause;
+import com.aitech.rbac.mapper.EffectivePermissionMapper;
+import com.aitech.rbac.mapper.UserMapper;
+import com.aitech.rbac.model.User;
+import com.aitech.rbac.model.policy.PolicyDocument;
+import com.aitech.rbac.model.policy.PolicyStatement;
+import com.aitech.rbac.service.RowFilterService;
+import com.github.pagehelper.PageHelper;
+import com.github.pagehelper.PageInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Slf4j
+@Service
+public class RowFilterServiceImpl implements RowFilterService {
+
+    private final UserMapper userMapper;
+    private final EffectivePermissionMapper effectivePermissionMapper;
+    private final CompiledPolicyCache policyCache;
+
+    public RowFilterServiceImpl(UserMapper userMapper, EffectivePermissionMapper effectivePermissionMapper,
+            CompiledPolicyCache policyCache) {
+        this.userMapper = userMapper;
+        this.effectivePermissionMapper = effectivePermissionMapper;
+        this.policyCache = policyCache;
+    }
+
+    @Override
+    public RowFilter compile(String username, String namespace, String action) {
+        try (com.aitech.rbac.config.ServerTiming.Span span = com.aitech.rbac.config.ServerTiming.start("authz")) {
+            return compileFilter(username, namespace, action);
+        }
+    }
+
+    private RowFilter compileFilter(String username, String namespace, String action) {
+        RowFilter filter = new RowFilter();
+        User user = username != null ? userMapper.findByUsername(username) : null;
+        if (user == null || !user.isActive()) {
+            filter.setDenyAll(true);
+            return filter;
+        }
+
+        boolean allowAll = false;
+        boolean denyAll = false;
+
+        // Grants through permissions without a policy document (resource_access)
+        List<String> allowPatterns = effectivePermissionMapper.findResourcePatterns(user.getUserId(), namespace,
+                action, "Allow");
+        allowAll |= addClause(filter.getAllow(), allowPatterns, false);
+        denyAll |= addClause(filter.getDeny(),
+                effectivePermissionMapper.findResourcePatterns(user.getUserId(), namespace, action, "Deny"), false);
+
+        // Statements of the policy documents the evaluator applies
+        String requestAction = namespace + ":" + action;
+        for (java.util.UUID permissionId : policyCache.snapshot(user.getUserId()).permissionIds()) {
+            CompiledPolicyCache.CompiledPolicy policy = policyCache.policy(permissionId);
+            if (policy == null || policy.document().getStatement() == null) {
+                continue;
+            }
+            PolicyDocument document = policy.document();
+            for (PolicyStatement statement : document.getStatement()) {
+                if (!actionMatches(statement, requestAction)) {
+                    continue;
+                }
+                boolean deny = statement.getEffect() == PolicyStatement.Effect.Deny;
+                boolean conditional = statement.getCondition() != null && !statement.getCondition().isEmpty();
+                if (conditional && !deny) {
+                    continue;
+                }
+                List<ResourceClause> target = deny ? filter.getDeny() : filter.getAllow();
+                boolean all;
+                if (statement.getResource() != null) {
+                    all = addClause(target, statement.getResource(), false);
+                } else if (statement.getNotResource() != null) {
+                    all = addClause(target, statement.getNotResource(), true);
+                } else {
+                    all = true;
+                }
+                if (deny) {
+                    denyAll |= all;
+                } else {
+                    allowAll |= all;
+                }
+            }
+        }
+
+        if (denyAll || (!allowAll && filter.getAllow().isEmpty())) {
+            filter.setDenyAll(true);
+        } else if (allowAll) {
+            filter.getAllow().clear();
+        }
+        return filter;
+    }
+
+    @Override
+    public <T> PageResponse<T> page(RowFilter filter, int page, int size, Function<RowFilter, List<T>> query) {
+        if (filter.isDenyAll()) {
+            return new PageResponse<>(List.of(), 0, page, size);
+        }
+        PageHelper.startPage(page, size);
+        List<T> rows = query.apply(filter);
+        PageInfo<T> pageInfo = new PageInfo<>(rows);
+        return new PageResponse<>(rows, pageInfo.getTotal(), page, size);
+    }
+
+    /**
+     * Add a clause for {@code patterns}; returns true when it matches every
+     * resource. A NotResource list containing "*" matches nothing and is dropped.
+     */
+    private static boolean addClause(List<ResourceClause> target, List<String> patterns, boolean negated) {
+        if (patterns.isEmpty()) {
+            return false;
+        }
+        if (patterns.contains("*")) {
+            return !negated;
+        }
+        target.add(new ResourceClause(patterns.stream().map(RowFilterService::toLikePattern).toList(), negated));
+        return false;
+    }
+
+    private boolean actionMatches(PolicyStatement statement, String requestAction) {
+        if (statement.getAction() != null) {
+            return anyMatch(statement.getAction(), requestAction);
+        }
+        return statement.getNotAction() != null && !anyMatch(statement.getNotAction(), requestAction);
+    }
+
+    // The evaluator's matcher, so a statement applies here exactly when it applies there
+    private boolean anyMatch(List<String> patterns, String value) {
+        for (String pattern : patterns) {
+            if (policyCache.pattern(pattern).matcher(value).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,100 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.mapper.UserAttributeMapper;
+import com.aitech.rbac.model.UserAttribute;
+import com.aitech.rbac.service.UserAttributeService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cache is local; the TTL bounds how long another instance can serve an
+ * attribute that was changed elsewhere.
+ */
+@Service
+public class UserAttributeServiceImpl implements UserAttributeService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final UserAttributeMapper mapper;
+    private final Cache<UUID, Map<String, String>> cache;
+
+    public UserAttributeServiceImpl(UserAttributeMapper mapper, MeterRegistry meterRegistry,
+            @Value("${rbac.principal-attributes.cache.max-users:10000}") int maxUsers,
+            @Value("${rbac.principal-attributes.cache.ttl-minutes:5}") long ttlMinutes) {
+        this.mapper = mapper;
+        this.cache = Caffeine.newBuilder().maximumSize(maxUsers).expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+                .recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "principalAttributes");
+    }
+
+    @Override
+    public Map<String, String> getAttributes(UUID userId) {
+        return cache.get(userId, this::load);
+    }
+
+    @Override
+    @Transactional
+    public void replaceAttributes(UUID userId, Map<String, String> attributes) {
+        attributes.keySet().forEach(UserAttributeServiceImpl::validateKey);
+        mapper.deleteByUserId(userId);
+        attributes.forEach((key, value) -> mapper.upsert(attribute(userId, key, value)));
+        invalidateAfterCommit(userId);
+    }
+
+    @Override
+    @Transactional
+    public void putAttribute(UUID userId, String key, String value) {
+        validateKey(key);
+        mapper.upsert(attribute(userId, key, value));
+        invalidateAfterCommit(userId);
+    }
+
+    @Override
+    @Transactional
+    public void deleteAttribute(UUID userId, String key) {
+        mapper.delete(userId, key);
+        invalidateAfterCommit(userId);
+    }
+
+    private Map<String, String> load(UUID userId) {
+        Map<String, String> attributes = new HashMap<>();
+        for (UserAttribute attribute : mapper.findByUserId(userId)) {
+            attributes.put(attribute.getAttrKey(), attribute.getAttrValue());
+        }
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    private void invalidateAfterCommit(UUID userId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidate(userId);
+            }
+        });
+    }
+
+    private static void validateKey(String key) {
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH || key.contains(":")) {
+            throw new IllegalArgumentException("Attribute key must be 1-" + MAX_KEY_LENGTH
+                    + " characters without ':'");
+        }
+    }
+
+    private static UserAttribute attribute(UUID userId, String key, String value) {
+        UserAttribute attribute = new UserAttribute();
+        attribute.setUserId(userId);
+        attribute.setAttrKey(key);
+        attribute.setAttrValue(value);
+        return attribute;
+    }
+}
@@ -0,0 +1,463 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.dto.UserImportEvent;
+import com.aitech.rbac.dto.UserImportFormat;
+import com.aitech.rbac.dto.UserImportRow;
+import com.aitech.rbac.mapper.RoleMapper;
+import com.aitech.rbac.mapper.UserMapper;
+import com.aitech.rbac.mapper.UserRoleMapper;
+import com.aitech.rbac.model.AuthzChange;
+import com.aitech.rbac.model.AuthzChangeType;
+import com.aitech.rbac.model.Role;
+import com.aitech.rbac.model.User;
+import com.aitech.rbac.model.UserRole;
+import com.aitech.rbac.service.AuthzChangeFeedService;
+import com.aitech.rbac.service.EffectivePermissionService;
+import com.aitech.rbac.service.UserImportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rows are read, validated and written one chunk at a time, so memory use is
+ * bounded by the chunk size plus the usernames and emails imported so far.
+ *
+ * Per chunk: one set-based query rejects names and emails already taken,
+ * passwords are hashed on a shared fixed pool (bcrypt is the dominant cost and
+ * the pool caps how many cores concurrent imports can take), and users, role
+ * assignments and feed entries are written as JDBC batches in one transaction.
+ * A chunk that fails to commit is reported row by row and the import goes on;
+ * its names stay free for later rows.
+ */
+@Slf4j
+@Service
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final int MAX_USERNAME_LENGTH = 50;
+    private static final int MAX_EMAIL_LENGTH = 100;
+
+    private record ParsedRow(long line, UserImportRow row, String error) {
+    }
+
+    private record Candidate(long line, User user, List<UUID> roleIds) {
+    }
+
+    private final UserMapper userMapper;
+    private final RoleMapper roleMapper;
+    private final PasswordEncoder passwordEncoder;
+    private final AuthzChangeFeedService changeFeed;
+    private final EffectivePermissionService effectivePermissions;
+    private final SqlSessionFactory sqlSessionFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService hashPool;
+    private final int chunkSize;
+    private final ObjectMapper rowMapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final ObjectMapper reportMapper = new ObjectMapper();
+
+    public UserImportServiceImpl(UserMapper userMapper, RoleMapper roleMapper, PasswordEncoder passwordEncoder,
+            AuthzChangeFeedService changeFeed, EffectivePermissionService effectivePermissions,
+            SqlSessionFactory sqlSessionFactory, PlatformTransactionManager transactionManager,
+            @Value("${rbac.user-import.chunk-size:1000}") int chunkSize,
+            @Value("${rbac.user-import.hash-threads:0}") int hashThreads) {
+        this.userMapper = userMapper;
+        this.roleMapper = roleMapper;
+        this.passwordEncoder = passwordEncoder;
+        this.changeFeed = changeFeed;
+        this.effectivePermissions = effectivePermissions;
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        AtomicInteger threadIds = new AtomicInteger();
+        this.hashPool = Executors.newFixedThreadPool(
+                hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors(), r -> {
+                    Thread thread = new Thread(r, "user-import-hash-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public UserImportEvent importUsers(InputStream in, UserImportFormat format, OutputStream out)
+            throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        Writer report = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        RowSource source = format == UserImportFormat.CSV ? new CsvRowSource(reader) : new NdjsonRowSource(reader);
+
+        Map<String, UUID> roleIdsByKey = new HashMap<>();
+        for (Role role : roleMapper.findAll(null)) {
+            roleIdsByKey.put(role.getRoleKey(), role.getRoleId());
+        }
+        Set<String> seenUsernames = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+        long started = System.nanoTime();
+        long processed = 0;
+        long created = 0;
+        long failed = 0;
+
+        List<ParsedRow> chunk = new ArrayList<>(chunkSize);
+        ParsedRow parsed;
+        do {
+            parsed = source.next();
+            if (parsed != null) {
+                chunk.add(parsed);
+            }
+            if (chunk.size() == chunkSize || (parsed == null && !chunk.isEmpty())) {
+                int inserted = importChunk(chunk, roleIdsByKey, seenUsernames, seenEmails, report);
+                processed += chunk.size();
+                created += inserted;
+                failed += chunk.size() - inserted;
+                chunk.clear();
+                write(report, UserImportEvent.totals(UserImportEvent.Type.PROGRESS, processed, created, failed));
+                report.flush();
+            }
+        } while (parsed != null);
+
+        UserImportEvent done = UserImportEvent.totals(UserImportEvent.Type.DONE, processed, created, failed);
+        write(report, done);
+        report.flush();
+        log.info("Imported {} of {} users ({} rejected) in {} ms", created, processed, failed,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return done;
+    }
+
+    /** @return rows created */
+    private int importChunk(List<ParsedRow> chunk, Map<String, UUID> roleIdsByKey, Set<String> seenUsernames,
+            Set<String> seenEmails, Writer report) throws IOException {
+        List<ParsedRow> valid = new ArrayList<>(chunk.size());
+        for (ParsedRow parsed : chunk) {
+            String error = parsed.error() != null ? parsed.error() : validate(parsed.row(), roleIdsByKey);
+            if (error != null) {
+                write(report, UserImportEvent.error(parsed.line(), username(parsed), error));
+            } else {
+                valid.add(parsed);
+            }
+        }
+        if (valid.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> takenUsernames = new HashSet<>();
+        Set<String> takenEmails = new HashSet<>();
+        List<String> usernames = new ArrayList<>(valid.size());
+        List<String> emails = new ArrayList<>(valid.size());
+        for (ParsedRow parsed : valid) {
+            usernames.add(parsed.row().getUsername());
+            emails.add(parsed.row().getEmail());
+        }
+        for (User taken : userMapper.findTaken(usernames, emails)) {
+            takenUsernames.add(taken.getUsername());
+            takenEmails.add(taken.getEmail());
+        }
+
+        // Names claimed by this chunk's candidates; they join the seen sets only once the chunk commits,
+        // so a rejected row or a chunk that fails does not block a later row with the same name
+        Set<String> chunkUsernames = new HashSet<>();
+        Set<String> chunkEmails = new HashSet<>();
+        LocalDateTime now = LocalDateTime.now();
+        List<Candidate> candidates = new ArrayList<>(valid.size());
+        List<Callable<Object>> hashes = new ArrayList<>(valid.size());
+        for (ParsedRow parsed : valid) {
+            UserImportRow row = parsed.row();
+            String error = null;
+            if (seenUsernames.contains(row.getUsername()) || chunkUsernames.contains(row.getUsername())) {
+                error = "Duplicate username in import";
+            } else if (seenEmails.contains(row.getEmail()) || chunkEmails.contains(row.getEmail())) {
+                error = "Duplicate email in import";
+            } else if (takenUsernames.contains(row.getUsername())) {
+                error = "Username already exists";
+            } else if (takenEmails.contains(row.getEmail())) {
+                error = "Email already exists";
+            }
+            if (error != null) {
+                write(report, UserImportEvent.error(parsed.line(), row.getUsername(), error));
+                continue;
+            }
+            chunkUsernames.add(row.getUsername());
+            chunkEmails.add(row.getEmail());
+            User user = new User();
+            user.setUserId(UUID.randomUUID());
+            user.setUsername(row.getUsername());
+            user.setEmail(row.getEmail());
+            user.setActive(row.getActive() == null || row.getActive());
+            user.setCreatedAt(now);
+            user.setUpdatedAt(now);
+            // Same rule as UserServiceImpl.create: existing bcrypt hashes are kept
+            if (row.getPassword().startsWith("$2")) {
+                user.setPasswordHash(row.getPassword());
+            } else {
+                hashes.add(() -> {
+                    user.setPasswordHash(passwordEncoder.encode(row.getPassword()));
+                    return null;
+                });
+            }
+            candidates.add(new Candidate(parsed.line(), user,
+                    row.getRoles().stream().distinct().map(roleIdsByKey::get).toList()));
+        }
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            for (Future<Object> hash : hashPool.invokeAll(hashes)) {
+                hash.get();
+            }
+            transactionTemplate.executeWithoutResult(status -> insert(candidates, now));
+            seenUsernames.addAll(chunkUsernames);
+            seenEmails.addAll(chunkEmails);
+            return candidates.size();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("User import interrupted");
+        } catch (ExecutionException | RuntimeException e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            while (cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            log.warn("User import chunk of {} rows failed", candidates.size(), e);
+            for (Candidate candidate : candidates) {
+                write(report, UserImportEvent.error(candidate.line(), candidate.user().getUsername(),
+                        "Chunk not imported: " + cause.getMessage()));
+            }
+            return 0;
+        }
+    }
+
+    private void insert(List<Candidate> candidates, LocalDateTime now) {
+        List<AuthzChange> changes = new ArrayList<>();
+        List<UUID> withRoles = new ArrayList<>();
+        // Joins the surrounding transaction's connection; users first, then their assignments
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            UserMapper users = session.getMapper(UserMapper.class);
+            for (Candidate candidate : candidates) {
+                users.insert(candidate.user());
+            }
+            session.flushStatements();
+            UserRoleMapper userRoles = session.getMapper(UserRoleMapper.class);
+            for (Candidate candidate : candidates) {
+                UUID userId = candidate.user().getUserId();
+                for (UUID roleId : candidate.roleIds()) {
+                    UserRole assignment = new UserRole();
+                    assignment.setUserId(userId);
+                    assignment.setRoleId(roleId);
+                    assignment.setAssignedAt(now);
+                    userRoles.insert(assignment);
+
+                    AuthzChange change = new AuthzChange();
+                    change.setChangeType(AuthzChangeType.USER_ROLE_GRANTED);
+                    change.setUserId(userId);
+                    change.setRoleId(roleId);
+                    changes.add(change);
+                }
+                if (!candidate.roleIds().isEmpty()) {
+                    withRoles.add(userId);
+                }
+            }
+            session.flushStatements();
+        }
+        changeFeed.recordAll(changes);
+        if (!withRoles.isEmpty()) {
+            effectivePermissions.refreshUsers(withRoles);
+        }
+    }
+
+    private static String validate(UserImportRow row, Map<String, UUID> roleIdsByKey) {
+        if (row.getUsername() == null || row.getUsername().isBlank()
+                || row.getUsername().length() > MAX_USERNAME_LENGTH) {
+            return "username must be 1-" + MAX_USERNAME_LENGTH + " characters";
+        }
+        if (row.getEmail() == null || row.getEmail().length() > MAX_EMAIL_LENGTH
+                || row.getEmail().indexOf('@') <= 0) {
+            return "email must be a valid address of at most " + MAX_EMAIL_LENGTH + " characters";
+        }
+        if (row.getPassword() == null || row.getPassword().isEmpty()) {
+            return "password is required";
+        }
+        if (row.getRoles() == null) {
+            row.setRoles(new ArrayList<>());
+        }
+        for (String roleKey : row.getRoles()) {
+            if (!roleIdsByKey.containsKey(roleKey)) {
+                return "Unknown role: " + roleKey;
+            }
+        }
+        return null;
+    }
+
+    private static String username(ParsedRow parsed) {
+        return parsed.row() != null ? parsed.row().getUsername() : null;
+    }
+
+    private void write(Writer report, UserImportEvent event) throws IOException {
+        report.write(reportMapper.writeValueAsString(event));
+        report.write('\n');
+    }
+
+    private interface RowSource {
+        /** @return the next non-blank row, or null at end of input */
+        ParsedRow next() throws IOException;
+    }
+
+    private final class NdjsonRowSource implements RowSource {
+        private final BufferedReader reader;
+        private long line;
+
+        NdjsonRowSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ParsedRow next() throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    return new ParsedRow(line, rowMapper.readValue(text, UserImportRow.class), null);
+                } catch (JsonProcessingException e) {
+                    return new ParsedRow(line, null, "Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header row naming the columns; quoted fields may
+     * span lines. Unknown columns are ignored.
+     */
+    private static final class CsvRowSource implements RowSource {
+        private final Reader reader;
+        private long line = 1;
+        private Map<String, Integer> columns;
+
+        CsvRowSource(Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public ParsedRow next() throws IOException {
+            if (columns == null) {
+                List<String> header = readRecord();
+                if (header == null) {
+                    return null;
+                }
+                columns = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    String name = i == 0 ? header.get(i).replace("\uFEFF", "") : header.get(i);
+                    columns.put(name.trim().toLowerCase(Locale.ROOT), i);
+                }
+                for (String required : List.of("username", "email", "password")) {
+                    if (!columns.containsKey(required)) {
+                        throw new IllegalArgumentException("CSV header is missing column: " + required);
+                    }
+                }
+            }
+            while (true) {
+                long start = line;
+                List<String> record = readRecord();
+                if (record == null) {
+                    return null;
+                }
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                UserImportRow row = new UserImportRow();
+                row.setUsername(field(record, "username"));
+                row.setEmail(field(record, "email"));
+                row.setPassword(field(record, "password"));
+                String active = field(record, "active");
+                if (active != null && !active.isBlank()) {
+                    if (!active.equalsIgnoreCase("true") && !active.equalsIgnoreCase("false")) {
+                        return new ParsedRow(start, row, "active must be true or false");
+                    }
+                    row.setActive(Boolean.parseBoolean(active));
+                }
+                String roles = field(record, "roles");
+                if (roles != null) {
+                    for (String roleKey : roles.split("\\|")) {
+                        if (!roleKey.isBlank()) {
+                            row.getRoles().add(roleKey.trim());
+                        }
+                    }
+                }
+                return new ParsedRow(start, row, null);
+            }
+        }
+
+        private String field(List<String> record, String column) {
+            Integer index = columns.get(column);
+            return index == null || index >= record.size() ? null : record.get(index);
+        }
+
+        private List<String> readRecord() throws IOException {
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == '"') {
+                        c = reader.read();
+                        if (c == '"') {
+                            field.append('"');
+                            c = reader.read();
+                        } else {
+                            quoted = false;
+                        }
+                        continue;
+                    }
+                    if (c != -1) {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                        c = reader.read();
+                        continue;
+                    }
+                    // Unterminated quote: the field runs to end of input
+                }
+                if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    line++;
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashPool.shutdownNow();
+    }
+}
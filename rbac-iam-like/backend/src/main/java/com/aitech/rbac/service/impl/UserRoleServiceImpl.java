@@ -1,25 +1,150 @@
 package com.aitech.rbac.service.impl;
 
+import com.aitech.rbac.dto.UserRoleBulkRequest;
 import com.aitech.rbac.mapper.UserRoleMapper;
+import com.aitech.rbac.model.AuthzChange;
+import com.aitech.rbac.model.AuthzChangeType;
 import com.aitech.rbac.model.UserRole;
+import com.aitech.rbac.service.AuthzChangeFeedService;
+import com.aitech.rbac.service.EffectivePermissionService;
 import com.aitech.rbac.service.UserRoleService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 
 @Service
 public class UserRoleServiceImpl implements UserRoleService {
+    // Keeps the IN lists of the bulk writes within what the databases accept
+    static final int BULK_CHUNK = 1000;
+
     private final UserRoleMapper mapper;
+    private final AuthzChangeFeedService changeFeed;
+    private final EffectivePermissionService effectivePermissions;
+    private final RoleAssignmentExpiry expiry;
 
-    public UserRoleServiceImpl(UserRoleMapper mapper) {
+    public UserRoleServiceImpl(UserRoleMapper mapper, AuthzChangeFeedService changeFeed,
+            EffectivePermissionService effectivePermissions, RoleAssignmentExpiry expiry) {
         this.mapper = mapper;
+        this.changeFeed = changeFeed;
+        this.effectivePermissions = effectivePermissions;
+        this.expiry = expiry;
     }
 
     @Override
+    @Transactional
     public void create(UserRole entity) {
+        validateWindow(entity);
         mapper.insert(entity);
+        changeFeed.record(AuthzChangeType.USER_ROLE_GRANTED, entity.getUserId(), entity.getRoleId(), null);
+        effectivePermissions.refreshUsers(List.of(entity.getUserId()));
+        expiry.track(entity);
+    }
+
+    @Override
+    @Transactional
+    public void updateWindow(UserRole entity) {
+        validateWindow(entity);
+        if (mapper.updateWindow(entity) == 0) {
+            throw new IllegalArgumentException("Role assignment not found");
+        }
+        changeFeed.record(AuthzChangeType.USER_ROLE_WINDOW_CHANGED, entity.getUserId(), entity.getRoleId(), null);
+        effectivePermissions.refreshUsers(List.of(entity.getUserId()));
+        expiry.track(entity);
     }
 
     @Override
+    @Transactional
     public void delete(UserRole entity) {
         mapper.delete(entity);
+        changeFeed.record(AuthzChangeType.USER_ROLE_REVOKED, entity.getUserId(), entity.getRoleId(), null);
+        effectivePermissions.refreshUsers(List.of(entity.getUserId()));
+        expiry.untrack(entity.getUserId(), entity.getRoleId());
+    }
+
+    @Override
+    public LocalDateTime earliestExpiry(UUID userId) {
+        return mapper.findEarliestExpiry(userId);
+    }
+
+    @Override
+    @Transactional
+    public UserRoleBulkRequest.Result bulkAssign(UserRoleBulkRequest request) {
+        validateBulk(request);
+        List<UUID> userIds = mapper.findBulkTargets(request.getRoleId(), request, true);
+        if (userIds.isEmpty()) {
+            return new UserRoleBulkRequest.Result(0);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int inserted = 0;
+        for (List<UUID> chunk : chunks(userIds)) {
+            inserted += mapper.insertBulk(request.getRoleId(), chunk, now);
+        }
+        changeFeed.recordAll(changes(AuthzChangeType.USER_ROLE_GRANTED, userIds, request.getRoleId()));
+        effectivePermissions.refreshUsers(userIds);
+        return new UserRoleBulkRequest.Result(inserted);
+    }
+
+    @Override
+    @Transactional
+    public UserRoleBulkRequest.Result bulkRevoke(UserRoleBulkRequest request) {
+        validateBulk(request);
+        List<UUID> userIds = mapper.findBulkTargets(request.getRoleId(), request, false);
+        if (userIds.isEmpty()) {
+            return new UserRoleBulkRequest.Result(0);
+        }
+        int deleted = 0;
+        for (List<UUID> chunk : chunks(userIds)) {
+            deleted += mapper.deleteBulk(request.getRoleId(), chunk);
+        }
+        changeFeed.recordAll(changes(AuthzChangeType.USER_ROLE_REVOKED, userIds, request.getRoleId()));
+        effectivePermissions.refreshUsers(userIds);
+        expiry.untrack(userIds, request.getRoleId());
+        return new UserRoleBulkRequest.Result(deleted);
+    }
+
+    private static void validateBulk(UserRoleBulkRequest request) {
+        if (request.getRoleId() == null) {
+            throw new IllegalArgumentException("roleId is required");
+        }
+        boolean byIds = request.getUserIds() != null && !request.getUserIds().isEmpty();
+        boolean bySearch = request.getSearch() != null && !request.getSearch().isBlank();
+        // A blank search would select every user
+        if (byIds == bySearch) {
+            throw new IllegalArgumentException("Exactly one of userIds or a non-blank search is required");
+        }
+    }
+
+    private static List<List<UUID>> chunks(List<UUID> userIds) {
+        List<List<UUID>> chunks = new ArrayList<>();
+        for (int i = 0; i < userIds.size(); i += BULK_CHUNK) {
+            chunks.add(userIds.subList(i, Math.min(userIds.size(), i + BULK_CHUNK)));
+        }
+        return chunks;
+    }
+
+    private static List<AuthzChange> changes(AuthzChangeType type, List<UUID> userIds, UUID roleId) {
+        List<AuthzChange> changes = new ArrayList<>(userIds.size());
+        for (UUID userId : userIds) {
+            AuthzChange change = new AuthzChange();
+            change.setChangeType(type);
+            change.setUserId(userId);
+            change.setRoleId(roleId);
+            changes.add(change);
+        }
+        return changes;
+    }
+
+    private static void validateWindow(UserRole entity) {
+        if (entity.getValidFrom() != null && entity.getValidUntil() != null
+                && !entity.getValidUntil().isAfter(entity.getValidFrom())) {
+            throw new IllegalArgumentException("validUntil must be after validFrom");
+        }
+        if (entity.getValidUntil() != null && !entity.getValidUntil().isAfter(LocalDateTime.now())) {
+            throw new IllegalArgumentException("validUntil must be in the future");
+        }
     }
 }
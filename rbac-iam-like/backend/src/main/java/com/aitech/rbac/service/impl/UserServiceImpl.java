@@ -4,10 +4,13 @@ import com.aitech.rbac.dto.PageResponse;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
 import com.aitech.rbac.mapper.UserMapper;
+import com.aitech.rbac.model.AuthzChangeType;
 import com.aitech.rbac.model.User;
+import com.aitech.rbac.service.AuthzChangeFeedService;
 import com.aitech.rbac.service.UserService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
 
 @Service
@@ -17,14 +20,17 @@ public class UserServiceImpl implements UserService {
 
     private final com.aitech.rbac.security.PermissionService permissionService;
     private final com.aitech.rbac.service.UserAccessService userAccessService;
+    private final AuthzChangeFeedService changeFeed;
 
     public UserServiceImpl(UserMapper mapper, PasswordEncoder passwordEncoder,
             @org.springframework.beans.factory.annotation.Qualifier("iamPermissionService") com.aitech.rbac.security.PermissionService permissionService,
-            com.aitech.rbac.service.UserAccessService userAccessService) {
+            com.aitech.rbac.service.UserAccessService userAccessService,
+            AuthzChangeFeedService changeFeed) {
         this.mapper = mapper;
         this.passwordEncoder = passwordEncoder;
         this.permissionService = permissionService;
         this.userAccessService = userAccessService;
+        this.changeFeed = changeFeed;
     }
 
     public List<User> getAll() {
@@ -38,6 +44,13 @@ public class UserServiceImpl implements UserService {
         return new PageResponse<>(users, pageInfo.getTotal(), page, size);
     }
 
+    public PageResponse<User> getSummaries(int page, int size, String search) {
+        PageHelper.startPage(page, size);
+        List<User> users = mapper.findSummaries(search);
+        PageInfo<User> pageInfo = new PageInfo<>(users);
+        return new PageResponse<>(users, pageInfo.getTotal(), page, size);
+    }
+
     public User getById(UUID id) {
         return mapper.findById(id);
     }
@@ -116,9 +129,11 @@ public class UserServiceImpl implements UserService {
         mapper.update(user);
     }
 
+    @Transactional
     public void delete(UUID id) {
         checkPrivilegeModification(id);
         mapper.delete(id);
+        changeFeed.record(AuthzChangeType.USER_DELETED, id, null, null);
     }
 
     private void checkPrivilegeModification(UUID targetUserId) {
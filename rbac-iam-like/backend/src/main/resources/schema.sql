@@ -1,3 +1,6 @@
+-- Every foreign key and reverse lookup has an index declared after its table,
+-- not left to databases that index foreign keys implicitly. MapperQueryPlanTest
+-- fails when a mapper statement scans a large table instead.
 CREATE TABLE "users" (
     user_id UUID DEFAULT RANDOM_UUID() PRIMARY KEY,
     username VARCHAR(50) UNIQUE NOT NULL,
@@ -22,6 +25,8 @@ CREATE TABLE permissions (
     permission_key VARCHAR(100) UNIQUE NOT NULL,
     description TEXT,
     policy_document TEXT, -- Legacy/Quick Access
+    -- Bumped on every update, so caches can tell a stale load from a fresh one
+    document_version BIGINT NOT NULL DEFAULT 0,
     lifecycle_status VARCHAR(20) DEFAULT 'ACTIVE',
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
@@ -35,20 +40,15 @@ CREATE TABLE policy_versions (
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     created_by VARCHAR(100)
 );
-CREATE TABLE audit_logs (
-    log_id UUID DEFAULT RANDOM_UUID() PRIMARY KEY,
-    actor_user_id UUID, -- nullable in case of system action or user deletion
-    actor_email VARCHAR(100),
-    action_type VARCHAR(50) NOT NULL,
-    entity_type VARCHAR(50) NOT NULL,
-    entity_id VARCHAR(50),
-    old_value_json TEXT,
-    new_value_json TEXT,
-    affected_roles_count INT DEFAULT 0,
-    affected_users_count INT DEFAULT 0,
-    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    ip_address VARCHAR(50),
-    correlation_id VARCHAR(255)
+CREATE INDEX idx_policy_versions_default ON policy_versions (permission_id, is_default);
+CREATE INDEX idx_policy_versions_number ON policy_versions (permission_id, version_number);
+-- Audit entries live in monthly tables (audit_logs_YYYYMM, created on demand
+-- with the audit_logs columns); this registry routes reads and retention
+CREATE TABLE audit_log_partitions (
+    partition_key CHAR(6) PRIMARY KEY,
+    table_name VARCHAR(30) NOT NULL,
+    range_start TIMESTAMP NOT NULL,
+    range_end TIMESTAMP NOT NULL
 );
 CREATE TABLE namespaces (
     namespace_id UUID DEFAULT RANDOM_UUID() PRIMARY KEY,
@@ -67,24 +67,73 @@ CREATE TABLE resource_access (
     namespace_id UUID REFERENCES namespaces(namespace_id) ON DELETE CASCADE,
     action_type_id UUID REFERENCES action_types(action_type_id) ON DELETE CASCADE
 );
+CREATE INDEX idx_resource_access_permission ON resource_access (permission_id, namespace_id, action_type_id);
+CREATE INDEX idx_resource_access_namespace ON resource_access (namespace_id);
+CREATE INDEX idx_resource_access_action ON resource_access (action_type_id);
+-- valid_from/valid_until bound temporary assignments; NULL means unbounded
 CREATE TABLE user_roles (
     user_id UUID REFERENCES "users"(user_id) ON DELETE CASCADE,
     role_id UUID REFERENCES roles(role_id) ON DELETE CASCADE,
     assigned_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    valid_from TIMESTAMP,
+    valid_until TIMESTAMP,
     PRIMARY KEY (user_id, role_id)
 );
+CREATE INDEX idx_user_roles_valid_until ON user_roles (valid_until);
+CREATE INDEX idx_user_roles_role ON user_roles (role_id, user_id);
 CREATE TABLE role_permissions (
     role_id UUID REFERENCES roles(role_id) ON DELETE CASCADE,
     permission_id UUID REFERENCES permissions(permission_id) ON DELETE CASCADE,
     assigned_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     PRIMARY KEY (role_id, permission_id)
 );
+CREATE INDEX idx_role_permissions_permission ON role_permissions (permission_id, role_id);
+-- Attributes of a user, read by policy conditions as principal:<attr_key>
+CREATE TABLE user_attributes (
+    user_id UUID NOT NULL REFERENCES "users"(user_id) ON DELETE CASCADE,
+    attr_key VARCHAR(100) NOT NULL,
+    attr_value VARCHAR(1000),
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_id, attr_key)
+);
+-- Role inheritance: a role inherits every permission of its parents
+CREATE TABLE role_parents (
+    role_id UUID REFERENCES roles(role_id) ON DELETE CASCADE,
+    parent_role_id UUID REFERENCES roles(role_id) ON DELETE CASCADE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (role_id, parent_role_id)
+);
+CREATE INDEX idx_role_parents_parent ON role_parents (parent_role_id);
+-- Transitive closure of role_parents, including a self row per role.
+-- path_count is the number of distinct paths, so edges can be removed
+-- incrementally when a role has several parents.
+CREATE TABLE role_closure (
+    ancestor_id UUID REFERENCES roles(role_id) ON DELETE CASCADE,
+    descendant_id UUID REFERENCES roles(role_id) ON DELETE CASCADE,
+    path_count BIGINT NOT NULL DEFAULT 1,
+    PRIMARY KEY (ancestor_id, descendant_id)
+);
+CREATE INDEX idx_role_closure_descendant ON role_closure (descendant_id, ancestor_id);
+-- Grants limited to one CMS category. namespace_key/action_key may be '*';
+-- a Deny row overrides any allow for that category. Inherited like
+-- role_permissions through role_closure and issued in the login token.
+CREATE TABLE role_category_scopes (
+    scope_id UUID DEFAULT RANDOM_UUID() PRIMARY KEY,
+    role_id UUID NOT NULL REFERENCES roles(role_id) ON DELETE CASCADE,
+    category_id UUID NOT NULL,
+    namespace_key VARCHAR(50) NOT NULL DEFAULT '*',
+    action_key VARCHAR(50) NOT NULL DEFAULT '*',
+    effect VARCHAR(10) NOT NULL DEFAULT 'Allow',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (role_id, category_id, namespace_key, action_key, effect)
+);
 CREATE TABLE orders (
     order_id UUID DEFAULT RANDOM_UUID() PRIMARY KEY,
     customer_name VARCHAR(100) NOT NULL,
     total_amount DECIMAL(10, 2) NOT NULL,
     status VARCHAR(20) NOT NULL,
-    order_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    order_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0
 );
 CREATE TABLE products (
     product_id UUID DEFAULT RANDOM_UUID() PRIMARY KEY,
@@ -92,5 +141,40 @@ CREATE TABLE products (
     sku VARCHAR(50) UNIQUE NOT NULL,
     price DECIMAL(10, 2) NOT NULL,
     stock_quantity INT NOT NULL,
-    category VARCHAR(50)
+    category VARCHAR(50),
+    version BIGINT NOT NULL DEFAULT 0
+);
+-- Append-only feed of grant changes, consumed by downstream decision caches.
+-- change_id is the consumer cursor.
+CREATE TABLE authz_change_log (
+    change_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    change_type VARCHAR(50) NOT NULL,
+    user_id UUID,
+    role_id UUID,
+    permission_id UUID,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+-- Single-row lock serializing feed writers so change_ids become visible in order
+CREATE TABLE authz_change_lock (
+    lock_id INT PRIMARY KEY,
+    touched_at TIMESTAMP
+);
+INSERT INTO authz_change_lock (lock_id, touched_at) VALUES (1, CURRENT_TIMESTAMP);
+-- Materialized effective grants per user (user_roles x role_closure x
+-- role_permissions x resource_access), kept current by the writers and
+-- rebuilt periodically for drift repair. resource_pattern and effect are only
+-- set for permissions without a policy document; otherwise they are NULL and
+-- the document decides both
+CREATE TABLE user_effective_permissions (
+    user_id UUID NOT NULL REFERENCES "users"(user_id) ON DELETE CASCADE,
+    role_id UUID NOT NULL REFERENCES roles(role_id) ON DELETE CASCADE,
+    permission_id UUID NOT NULL REFERENCES permissions(permission_id) ON DELETE CASCADE,
+    namespace_key VARCHAR(50),
+    action_key VARCHAR(50),
+    resource_pattern VARCHAR(255),
+    effect VARCHAR(10),
+    policy_version_id UUID
 );
+CREATE INDEX idx_uep_user ON user_effective_permissions (user_id, role_id);
+CREATE INDEX idx_uep_permission ON user_effective_permissions (permission_id, user_id);
+CREATE INDEX idx_uep_role ON user_effective_permissions (role_id);
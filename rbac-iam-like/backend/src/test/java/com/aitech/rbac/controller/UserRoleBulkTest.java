@@ -0,0 +1,240 @@
+package com.aitech.rbac.controller;
+
+import com.aitech.rbac.dto.UserRoleBulkRequest;
+import com.aitech.rbac.mapper.RoleHierarchyMapper;
+import com.aitech.rbac.mapper.RoleMapper;
+import com.aitech.rbac.mapper.UserMapper;
+import com.aitech.rbac.mapper.UserRoleMapper;
+import com.aitech.rbac.model.AuthzChange;
+import com.aitech.rbac.model.AuthzChangeType;
+import com.aitech.rbac.model.Role;
+import com.aitech.rbac.model.User;
+import com.aitech.rbac.model.UserRole;
+import com.aitech.rbac.service.AuthzChangeFeedService;
+import com.aitech.rbac.service.impl.CompiledPolicyCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Bulk role assignment through the REST endpoints: the rows written, the
+ * change feed entries recorded for them, the search predicate, and login
+ * tokens of users who lost the role.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-role-bulk-${random.uuid};DB_CLOSE_DELAY=-1",
+        "logging.level.root=WARN"
+})
+@AutoConfigureMockMvc
+class UserRoleBulkTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private RoleMapper roleMapper;
+    @Autowired
+    private RoleHierarchyMapper roleHierarchyMapper;
+    @Autowired
+    private UserRoleMapper userRoleMapper;
+    @Autowired
+    private AuthzChangeFeedService changeFeed;
+    @Autowired
+    private CompiledPolicyCache policyCache;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private final ObjectMapper json = new ObjectMapper();
+    // Keeps each test's search away from the seeded users and the other tests
+    private final String prefix = "bulk" + UUID.randomUUID().toString().substring(0, 8);
+    private Role role;
+
+    @BeforeEach
+    void setUp() {
+        role = new Role();
+        role.setRoleId(UUID.randomUUID());
+        role.setRoleName(prefix);
+        role.setRoleKey(prefix.toUpperCase());
+        roleMapper.insert(role);
+        roleHierarchyMapper.insertSelf(role.getRoleId());
+    }
+
+    @Test
+    void bulkAssign_ByIds_InsertsMissingAssignmentsAndRecordsThem() throws Exception {
+        User holder = user("holder", "holder@example.com");
+        User other = user("other", "other@example.com");
+        assign(holder);
+        long cursor = changeFeed.head();
+
+        mockMvc.perform(post("/api/user-roles/bulk").with(jwt())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json.writeValueAsString(Map.of("roleId", role.getRoleId(),
+                                "userIds", List.of(holder.getUserId(), other.getUserId())))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(1));
+
+        assertEquals(Set.of(holder.getUserId(), other.getUserId()), holders());
+        assertEquals(Set.of(other.getUserId()), changedUsers(cursor, AuthzChangeType.USER_ROLE_GRANTED));
+    }
+
+    @Test
+    void bulkRevoke_BySearch_RemovesOnlyMatchingAssignments() throws Exception {
+        User first = user("alpha", "alpha@example.com");
+        User second = user("beta", "shared-ALPHA@example.com");
+        User kept = user("gamma", "gamma@example.com");
+        assign(first);
+        assign(second);
+        assign(kept);
+        long cursor = changeFeed.head();
+
+        mockMvc.perform(delete("/api/user-roles/bulk").with(jwt())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json.writeValueAsString(Map.of("roleId", role.getRoleId(), "search", "Alpha"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(2));
+
+        assertEquals(Set.of(kept.getUserId()), holders());
+        assertEquals(Set.of(first.getUserId(), second.getUserId()),
+                changedUsers(cursor, AuthzChangeType.USER_ROLE_REVOKED));
+    }
+
+    @Test
+    void bulkRequest_WithoutUsers_IsRejected() {
+        ServletException thrown = assertThrows(ServletException.class, () ->
+                mockMvc.perform(post("/api/user-roles/bulk").with(jwt())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json.writeValueAsString(Map.of("roleId", role.getRoleId(), "search", " ")))));
+
+        // A blank search would otherwise select every user
+        assertInstanceOf(IllegalArgumentException.class, thrown.getCause());
+        assertTrue(holders().isEmpty());
+    }
+
+    @Test
+    void bulkAssign_WildcardSearch_MatchesLiterally() throws Exception {
+        User literal = user("50%_off", "promo@example.com");
+        user("plain", "plain@example.com");
+
+        // A literal '_' also matches seeded names such as sales_rep, so only '%' is used here
+        for (String search : List.of("%", "%_")) {
+            mockMvc.perform(post("/api/user-roles/bulk").with(jwt())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(json.writeValueAsString(Map.of("roleId", role.getRoleId(), "search", search))))
+                    .andExpect(status().isOk());
+        }
+
+        assertEquals(Set.of(literal.getUserId()), holders());
+    }
+
+    @Test
+    void searchPredicate_SelectsTheSameUsersAsTheUserList() {
+        user("carol", "carol@example.com");
+        user("dave", "CAROL.backup@example.com");
+        user("erin", "erin@example.com");
+        UserRoleBulkRequest query = new UserRoleBulkRequest();
+
+        for (String search : List.of("CAROL", prefix + "-dave", "@EXAMPLE", "_", "%", "\\")) {
+            query.setSearch(search);
+            Set<UUID> listed = userMapper.findAll(search).stream().map(User::getUserId).collect(Collectors.toSet());
+            Set<UUID> targets = Set.copyOf(userRoleMapper.findBulkTargets(role.getRoleId(), query, true));
+            assertEquals(listed, targets, search);
+        }
+        query.setSearch("carol");
+        assertEquals(2, userRoleMapper.findBulkTargets(role.getRoleId(), query, true).size());
+    }
+
+    @Test
+    void bulkRevoke_RejectsLoginTokensIssuedBeforeIt() throws Exception {
+        User revoked = user("revoked", "revoked@example.com");
+        assign(revoked);
+        String token = login(revoked);
+        mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/user-roles/bulk").with(jwt())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json.writeValueAsString(Map.of("roleId", role.getRoleId(),
+                                "userIds", List.of(revoked.getUserId())))))
+                .andExpect(status().isOk());
+        policyCache.followChangeFeed();
+
+        mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+
+        // iat has second precision; a token from a later second carries the current grants
+        Thread.sleep(1100);
+        mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + login(revoked)))
+                .andExpect(status().isOk());
+    }
+
+    private User user(String name, String email) {
+        User user = new User();
+        user.setUserId(UUID.randomUUID());
+        user.setUsername(prefix + "-" + name);
+        user.setEmail(email.replace("@", "+" + prefix + "@"));
+        user.setPasswordHash(passwordEncoder.encode("secret"));
+        user.setActive(true);
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now());
+        userMapper.insert(user);
+        return user;
+    }
+
+    private void assign(User user) {
+        UserRole userRole = new UserRole();
+        userRole.setUserId(user.getUserId());
+        userRole.setRoleId(role.getRoleId());
+        userRole.setAssignedAt(LocalDateTime.now());
+        userRoleMapper.insert(userRole);
+    }
+
+    private String login(User user) throws Exception {
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json.writeValueAsString(Map.of("username", user.getUsername(),
+                                "password", "secret"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return json.readTree(body).get("token").asText();
+    }
+
+    private Set<UUID> holders() {
+        return userRoleMapper.findByRoleIds(List.of(role.getRoleId())).stream()
+                .map(UserRole::getUserId)
+                .collect(Collectors.toSet());
+    }
+
+    private Set<UUID> changedUsers(long cursor, AuthzChangeType type) {
+        return changeFeed.read(cursor, 100).getChanges().stream()
+                .filter(change -> change.getChangeType() == type)
+                .filter(change -> role.getRoleId().equals(change.getRoleId()))
+                .map(AuthzChange::getUserId)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,159 @@
+package com.aitech.rbac.loadtest;
+
+import com.aitech.rbac.dto.AuditExportFormat;
+import com.aitech.rbac.dto.AuditLogQuery;
+import com.aitech.rbac.service.AuditService;
+import com.aitech.rbac.service.impl.AuditLogPartitionRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exports a large audit partition through {@link AuditService#exportLogs}
+ * under a fixed heap. Part of the loadtest group; run on its own with
+ * {@code mvn -Ploadtest test -Dtest=AuditExportBenchmark}. The heap is pinned
+ * by the profile's {@code loadtest.max-heap}; an export that buffered rows
+ * would fail with an OutOfMemoryError long before 10M rows.
+ *
+ * The rows, bytes, throughput and peak heap are written as JSON to
+ * {@code loadtest.export.report}.
+ *
+ * Uses a throwaway file-backed H2 database with lazy query execution so the
+ * seeded rows live on disk rather than in the heap being measured.
+ */
+@Tag("loadtest")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/audit-export-bench/${random.uuid};LAZY_QUERY_EXECUTION=1",
+        "spring.sql.init.mode=always",
+        "logging.level.root=WARN"
+})
+class AuditExportBenchmark {
+
+    @Autowired
+    private AuditService auditService;
+    @Autowired
+    private AuditLogPartitionRouter partitionRouter;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${loadtest.export.rows:10000000}")
+    private long rows;
+    @Value("${loadtest.export.format:csv}")
+    private String format;
+    @Value("${loadtest.export.gzip:false}")
+    private boolean gzip;
+    @Value("${loadtest.export.max-heap-mb:512}")
+    private long maxHeapMb;
+    @Value("${loadtest.export.report:target/audit-export-report.json}")
+    private String reportPath;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void exportsWithinFixedHeap() throws Exception {
+        long heapMb = Runtime.getRuntime().maxMemory() / (1024 * 1024);
+        assertTrue(heapMb <= maxHeapMb,
+                "Benchmark must run under a fixed heap of at most " + maxHeapMb + " MB, got " + heapMb + " MB");
+
+        LocalDateTime start = LocalDate.now().withDayOfMonth(1).atStartOfDay();
+        seed(partitionRouter.tableFor(start), start);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicLong peakUsed = new AtomicLong();
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peakUsed.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "heap-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+
+        CountingOutputStream counter = new CountingOutputStream();
+        OutputStream out = gzip ? new GZIPOutputStream(counter, 64 * 1024) : counter;
+        long began = System.nanoTime();
+        long exported = auditService.exportLogs(new AuditLogQuery(),
+                AuditExportFormat.valueOf(format.toUpperCase(Locale.ROOT)), out);
+        out.close();
+        double seconds = (System.nanoTime() - began) / (double) TimeUnit.SECONDS.toNanos(1);
+        sampler.interrupt();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("rows", exported);
+        report.put("format", format);
+        report.put("gzip", gzip);
+        report.put("bytes", counter.bytes);
+        report.put("seconds", seconds);
+        report.put("rowsPerSecond", exported / seconds);
+        report.put("peakHeapMb", peakUsed.get() / (1024 * 1024));
+        report.put("maxHeapMb", heapMb);
+        File reportFile = new File(reportPath);
+        if (reportFile.getParentFile() != null) {
+            reportFile.getParentFile().mkdirs();
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportFile, report);
+
+        assertEquals(rows, exported, "Audit export: " + report);
+    }
+
+    /**
+     * Set-based insert in chunks, spreading rows one millisecond apart from the
+     * start of the month. Ids are sequential so the primary key index is
+     * appended to rather than split at random.
+     */
+    private void seed(String table, LocalDateTime start) {
+        long chunk = 500_000;
+        for (long from = 1; from <= rows; from += chunk) {
+            jdbcTemplate.update("INSERT INTO " + table + " (log_id, actor_email, action_type, entity_type, entity_id,"
+                    + " new_value_json, affected_roles_count, affected_users_count, created_at, ip_address,"
+                    + " correlation_id)"
+                    + " SELECT CAST('00000000-0000-4000-8000-' || LPAD(CAST(X AS VARCHAR), 12, '0') AS UUID),"
+                    + " 'load.user' || MOD(X, 2000) || '@aitech.com', 'AUTH_DECISION',"
+                    + " 'PERMISSION', 'order-' || MOD(X, 5000),"
+                    + " '\"Namespace: orders, Action: read, Category: null, Source: JWT, Reason: NO_MATCHING_POLICY\"',"
+                    + " 0, 0, DATEADD(MILLISECOND, X, CAST(? AS TIMESTAMP)), '10.0.0.' || MOD(X, 250),"
+                    + " CAST(RANDOM_UUID() AS VARCHAR)"
+                    + " FROM SYSTEM_RANGE(CAST(? AS BIGINT), CAST(? AS BIGINT))",
+                    Timestamp.valueOf(start), from, Math.min(rows, from + chunk - 1));
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.aitech.rbac.loadtest;
+
+import com.aitech.rbac.mapper.*;
+import com.aitech.rbac.service.EffectivePermissionService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concurrent load test against the full application on an in-memory H2
+ * database. Excluded from the default build; run with
+ * {@code mvn -Ploadtest test}. Settings are plain properties, e.g.
+ * {@code -Dloadtest.threads=64 -Dloadtest.duration-seconds=60
+ * -Dloadtest.mix=login=1,me=20,users=5,seal=1,inventory=20,orders=20
+ * -Dloadtest.baseline=loadtest-baseline.json}.
+ *
+ * Throughput and latency percentiles per operation are written to
+ * {@code loadtest.report}; the test fails when the error rate, overall
+ * throughput or p99 latency cross their thresholds, or when an operation
+ * regresses against the baseline report by more than the tolerance.
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "logging.level.root=WARN"
+})
+class LoadTest {
+
+    enum Operation {
+        LOGIN, ME, USERS, SEAL, INVENTORY, ORDERS
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private RoleMapper roleMapper;
+    @Autowired
+    private UserRoleMapper userRoleMapper;
+    @Autowired
+    private PermissionMapper permissionMapper;
+    @Autowired
+    private ProductMapper productMapper;
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private EffectivePermissionService effectivePermissions;
+
+    @Value("${loadtest.threads:32}")
+    private int threads;
+    @Value("${loadtest.duration-seconds:20}")
+    private int durationSeconds;
+    @Value("${loadtest.warmup-seconds:5}")
+    private int warmupSeconds;
+    @Value("${loadtest.users:2000}")
+    private int users;
+    @Value("${loadtest.products:500}")
+    private int products;
+    @Value("${loadtest.mix:login=1,me=20,users=5,seal=1,inventory=20,orders=20}")
+    private String mix;
+    @Value("${loadtest.report:target/loadtest-report.json}")
+    private String reportPath;
+    @Value("${loadtest.baseline:}")
+    private String baselinePath;
+    @Value("${loadtest.tolerance:0.25}")
+    private double tolerance;
+    @Value("${loadtest.max-error-rate:0.01}")
+    private double maxErrorRate;
+    @Value("${loadtest.min-throughput:0}")
+    private double minThroughput;
+    @Value("${loadtest.max-p99-ms:0}")
+    private double maxP99Millis;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private LoadTestDataset dataset;
+    private String adminToken;
+    private List<String> userTokens;
+
+    @Test
+    void sustainsThroughputWithinThresholds() throws Exception {
+        dataset = new LoadTestDataset(userMapper, roleMapper, userRoleMapper, permissionMapper, productMapper,
+                orderMapper, passwordEncoder, users, products, threads);
+        // The dataset is written through the mappers, so materialise its grants once
+        effectivePermissions.rebuild();
+        adminToken = login("admin", "admin123");
+        userTokens = new ArrayList<>();
+        for (int i = 0; i < Math.min(users, 20); i++) {
+            userTokens.add(login(dataset.getUsernames().get(i), LoadTestDataset.PASSWORD));
+        }
+
+        Map<Operation, Integer> weights = parseMix(mix);
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long deadline = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        List<Worker> workers = new ArrayList<>();
+        ExecutorService executor = newWorkerExecutor(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Worker worker = new Worker(i, weights, warmupEnd, deadline);
+                workers.add(worker);
+                futures.add(executor.submit(worker));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, Object> report = buildReport(workers, weights);
+        List<String> violations = checkThresholds(report);
+        report.put("violations", violations);
+
+        File reportFile = new File(reportPath);
+        if (reportFile.getParentFile() != null) {
+            reportFile.getParentFile().mkdirs();
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportFile, report);
+
+        assertTrue(violations.isEmpty(), "Load test regressions: " + violations);
+    }
+
+    private class Worker implements Runnable {
+        private final int index;
+        private final List<Operation> wheel = new ArrayList<>();
+        private final long warmupEnd;
+        private final long deadline;
+        private final Map<Operation, List<Long>> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, Integer> errors = new EnumMap<>(Operation.class);
+
+        Worker(int index, Map<Operation, Integer> weights, long warmupEnd, long deadline) {
+            this.index = index;
+            this.warmupEnd = warmupEnd;
+            this.deadline = deadline;
+            weights.forEach((op, weight) -> {
+                for (int i = 0; i < weight; i++) {
+                    wheel.add(op);
+                }
+            });
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                Operation op = wheel.get(random.nextInt(wheel.size()));
+                long start = System.nanoTime();
+                boolean ok;
+                try {
+                    ok = execute(op, random) < 400;
+                } catch (Exception e) {
+                    ok = false;
+                }
+                long end = System.nanoTime();
+                if (start < warmupEnd) {
+                    continue;
+                }
+                latencies.computeIfAbsent(op, k -> new ArrayList<>()).add(end - start);
+                if (!ok) {
+                    errors.merge(op, 1, Integer::sum);
+                }
+            }
+        }
+
+        private int execute(Operation op, ThreadLocalRandom random) throws Exception {
+            String userToken = userTokens.get(random.nextInt(userTokens.size()));
+            switch (op) {
+                case LOGIN:
+                    String username = dataset.getUsernames().get(random.nextInt(dataset.getUsernames().size()));
+                    return send("POST", "/api/auth/login", null,
+                            "{\"username\":\"" + username + "\",\"password\":\"" + LoadTestDataset.PASSWORD + "\"}");
+                case ME:
+                    return send("GET", "/api/auth/me", userToken, null);
+                case USERS:
+                    return send("GET", "/api/users?page=" + (1 + random.nextInt(10)) + "&size=20", adminToken, null);
+                case SEAL:
+                    // One permission per worker, so seals never race on the version number
+                    UUID permissionId = dataset.getSealPermissionIds().get(index);
+                    return send("POST", "/api/policies/" + permissionId + "/seal", adminToken,
+                            "{\"matrix\":{\"orders\":{\"read\":true,\"create\":" + random.nextBoolean()
+                                    + "}},\"confirmImpact\":true}");
+                case INVENTORY:
+                    return send("GET", "/api/inventory", userToken, null);
+                case ORDERS:
+                    return send("GET", "/api/orders", userToken, null);
+                default:
+                    throw new IllegalStateException("Unknown operation " + op);
+            }
+        }
+    }
+
+    private int send(String method, String path, String token, String body) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        if (body != null) {
+            builder.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(body));
+        } else {
+            builder.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        return http.send(builder.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private String login(String username, String password) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"))
+                .build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed for " + username + ": " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).get("token").asText();
+    }
+
+    private Map<String, Object> buildReport(List<Worker> workers, Map<Operation, Integer> weights) {
+        Map<String, Object> operations = new LinkedHashMap<>();
+        long totalCount = 0;
+        long totalErrors = 0;
+        List<Long> all = new ArrayList<>();
+
+        for (Operation op : weights.keySet()) {
+            List<Long> samples = new ArrayList<>();
+            int errors = 0;
+            for (Worker w : workers) {
+                samples.addAll(w.latencies.getOrDefault(op, List.of()));
+                errors += w.errors.getOrDefault(op, 0);
+            }
+            totalCount += samples.size();
+            totalErrors += errors;
+            all.addAll(samples);
+            operations.put(op.name().toLowerCase(), stats(samples, errors));
+        }
+
+        Map<String, Object> totals = stats(all, totalErrors);
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("threads", threads);
+        config.put("executor", executorKind());
+        config.put("durationSeconds", durationSeconds);
+        config.put("warmupSeconds", warmupSeconds);
+        config.put("users", users);
+        config.put("products", products);
+        config.put("mix", mix);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("finishedAt", Instant.now().toString());
+        report.put("config", config);
+        report.put("totals", totals);
+        report.put("operations", operations);
+        return report;
+    }
+
+    private Map<String, Object> stats(List<Long> samples, long errors) {
+        long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", sorted.length);
+        stats.put("errors", errors);
+        stats.put("errorRate", sorted.length == 0 ? 0.0 : (double) errors / sorted.length);
+        stats.put("throughput", (double) sorted.length / durationSeconds);
+        stats.put("p50Ms", percentileMillis(sorted, 0.50));
+        stats.put("p90Ms", percentileMillis(sorted, 0.90));
+        stats.put("p99Ms", percentileMillis(sorted, 0.99));
+        stats.put("maxMs", sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1_000_000.0);
+        return stats;
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> checkThresholds(Map<String, Object> report) throws Exception {
+        List<String> violations = new ArrayList<>();
+        Map<String, Object> totals = (Map<String, Object>) report.get("totals");
+        double errorRate = (double) totals.get("errorRate");
+        double throughput = (double) totals.get("throughput");
+        double p99 = (double) totals.get("p99Ms");
+
+        if (errorRate > maxErrorRate) {
+            violations.add(String.format("error rate %.4f above %.4f", errorRate, maxErrorRate));
+        }
+        if (minThroughput > 0 && throughput < minThroughput) {
+            violations.add(String.format("throughput %.1f req/s below %.1f", throughput, minThroughput));
+        }
+        if (maxP99Millis > 0 && p99 > maxP99Millis) {
+            violations.add(String.format("p99 %.1f ms above %.1f ms", p99, maxP99Millis));
+        }
+
+        if (baselinePath.isBlank()) {
+            return violations;
+        }
+        File baselineFile = new File(baselinePath);
+        if (!baselineFile.exists()) {
+            violations.add("baseline report not found: " + baselinePath);
+            return violations;
+        }
+        JsonNode baseline = objectMapper.readTree(baselineFile).path("operations");
+        Map<String, Object> operations = (Map<String, Object>) report.get("operations");
+        operations.forEach((name, value) -> {
+            Map<String, Object> current = (Map<String, Object>) value;
+            JsonNode previous = baseline.path(name);
+            if (previous.isMissingNode()) {
+                return;
+            }
+            double baseThroughput = previous.path("throughput").asDouble();
+            double baseP99 = previous.path("p99Ms").asDouble();
+            double opThroughput = (double) current.get("throughput");
+            double opP99 = (double) current.get("p99Ms");
+            if (opThroughput < baseThroughput * (1 - tolerance)) {
+                violations.add(String.format("%s throughput %.1f req/s regressed from %.1f", name, opThroughput,
+                        baseThroughput));
+            }
+            if (baseP99 > 0 && opP99 > baseP99 * (1 + tolerance)) {
+                violations.add(String.format("%s p99 %.1f ms regressed from %.1f ms", name, opP99, baseP99));
+            }
+        });
+        return violations;
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid load mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Load mix has no operations: " + mix);
+        }
+        return weights;
+    }
+
+    private static ExecutorService newWorkerExecutor(int threads) {
+        // Virtual threads when the build runs on Java 21+, platform threads otherwise
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+
+    private static String executorKind() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return "virtual";
+        } catch (NoSuchMethodException e) {
+            return "platform";
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.aitech.rbac.loadtest;
+
+import com.aitech.rbac.mapper.OrderMapper;
+import com.aitech.rbac.mapper.PermissionMapper;
+import com.aitech.rbac.mapper.ProductMapper;
+import com.aitech.rbac.mapper.RoleMapper;
+import com.aitech.rbac.mapper.UserMapper;
+import com.aitech.rbac.mapper.UserRoleMapper;
+import com.aitech.rbac.model.*;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Generates the load-test dataset on top of the regular seed data: users
+ * holding the warehouse clerk role, products, orders, and one standalone
+ * permission per worker so concurrent seals never contend on a version.
+ */
+class LoadTestDataset {
+
+    static final String PASSWORD = "loadtest123";
+
+    private final List<String> usernames = new ArrayList<>();
+    private final List<UUID> sealPermissionIds = new ArrayList<>();
+
+    LoadTestDataset(UserMapper userMapper, RoleMapper roleMapper, UserRoleMapper userRoleMapper,
+            PermissionMapper permissionMapper, ProductMapper productMapper, OrderMapper orderMapper,
+            PasswordEncoder passwordEncoder, int users, int products, int sealPermissions) {
+        UUID clerkRoleId = roleMapper.findAll(null).stream()
+                .filter(r -> "CLERK".equals(r.getRoleKey()))
+                .map(Role::getRoleId)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Seed data missing the CLERK role"));
+        String passwordHash = passwordEncoder.encode(PASSWORD);
+
+        for (int i = 0; i < users; i++) {
+            User u = new User();
+            u.setUserId(UUID.randomUUID());
+            u.setUsername("load.user" + i);
+            u.setEmail("load.user" + i + "@example.com");
+            u.setPasswordHash(passwordHash);
+            u.setActive(true);
+            u.setCreatedAt(LocalDateTime.now());
+            u.setUpdatedAt(LocalDateTime.now());
+            userMapper.insert(u);
+
+            UserRole ur = new UserRole();
+            ur.setUserId(u.getUserId());
+            ur.setRoleId(clerkRoleId);
+            ur.setAssignedAt(LocalDateTime.now());
+            userRoleMapper.insert(ur);
+            usernames.add(u.getUsername());
+        }
+
+        for (int i = 0; i < products; i++) {
+            Product p = new Product();
+            p.setProductId(UUID.randomUUID());
+            p.setProductName("Load Product " + i);
+            p.setSku("LOAD-" + i);
+            p.setPrice(BigDecimal.valueOf(10 + i % 90));
+            p.setStockQuantity(1000);
+            p.setCategory("load");
+            productMapper.insert(p);
+
+            Order o = new Order();
+            o.setOrderId(UUID.randomUUID());
+            o.setCustomerName("Load Customer " + i);
+            o.setTotalAmount(BigDecimal.valueOf(100 + i % 900));
+            o.setStatus("PENDING");
+            o.setOrderDate(LocalDateTime.now());
+            orderMapper.insert(o);
+        }
+
+        for (int i = 0; i < sealPermissions; i++) {
+            Permission p = new Permission();
+            p.setPermissionId(UUID.randomUUID());
+            p.setPermissionName("LOADTEST_POLICY_" + i);
+            p.setPermissionKey("loadtest:policy:" + i);
+            p.setDescription("Sealed repeatedly by the load test");
+            permissionMapper.insert(p);
+            sealPermissionIds.add(p.getPermissionId());
+        }
+    }
+
+    List<String> getUsernames() {
+        return usernames;
+    }
+
+    List<UUID> getSealPermissionIds() {
+        return sealPermissionIds;
+    }
+}
@@ -0,0 +1,328 @@
+package com.aitech.rbac.mapper;
+
+import com.aitech.rbac.dto.UserRoleBulkRequest;
+import com.aitech.rbac.model.AuthzChangeType;
+import com.aitech.rbac.model.Permission;
+import com.aitech.rbac.model.ResourceAccess;
+import com.aitech.rbac.model.Role;
+import com.aitech.rbac.model.RolePermission;
+import com.aitech.rbac.model.User;
+import com.aitech.rbac.model.UserRole;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs EXPLAIN on the authorization mapper statements against a seeded
+ * database and fails when one reads a whole table that grows with users,
+ * roles or permissions. Every select, update and delete of the covered
+ * mappers must either have a case here or be listed as an intended scan.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-plan-${random.uuid};DB_CLOSE_DELAY=-1",
+        "logging.level.root=WARN"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MapperQueryPlanTest {
+
+    private static final List<String> MAPPERS = List.of("AccessReviewMapper", "AuthzChangeMapper",
+            "CategoryScopeMapper", "EffectivePermissionMapper", "PermissionMapper", "PolicyMapper",
+            "PolicyVersionMapper", "ResourceAccessMapper", "RoleHierarchyMapper", "RoleMapper",
+            "RolePermissionMapper", "UserAccessMapper", "UserAttributeMapper", "UserMapper", "UserRoleMapper");
+
+    // Fixed-size lookup tables a plan may scan freely
+    private static final Set<String> SMALL_TABLES = Set.of("NAMESPACES", "ACTION_TYPES", "AUTHZ_CHANGE_LOCK");
+
+    // Statements that read the whole table by design
+    private static final Map<String, String> INTENDED_SCANS = Map.ofEntries(
+            Map.entry("AccessReviewMapper.findAllGrantedActions", "startup build of the access review index"),
+            Map.entry("AuthzChangeMapper.lockFeed", "single-row lock table"),
+            Map.entry("AuthzChangeMapper.findHead", "MAX over the primary key"),
+            Map.entry("EffectivePermissionMapper.deleteAll", "periodic full rebuild"),
+            Map.entry("PermissionMapper.findAll", "full listing"),
+            Map.entry("RoleMapper.findAll", "full listing, optional substring search"),
+            Map.entry("RolePermissionMapper.findAll", "full listing"),
+            Map.entry("RolePermissionMapper.findMatrixRows", "full role x permission matrix"),
+            Map.entry("ResourceAccessMapper.findAll", "full listing"),
+            Map.entry("RoleHierarchyMapper.deleteEmptyPaths", "follows a hierarchy edit; closure is per-role small"),
+            Map.entry("UserMapper.findAll", "paged listing, optional substring search"),
+            Map.entry("UserMapper.findSummaries", "paged listing, optional substring search"),
+            Map.entry("UserRoleMapper.findScheduled", "startup load of pending validity transitions"));
+
+    // Large tables a checked statement reads whole by design
+    private static final Map<String, Set<String>> ALLOWED_SCANS = Map.of(
+            "PolicyMapper.searchPolicies", Set.of("PERMISSIONS"));
+
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\* PUBLIC\\.(\\w+)\\.tableScan");
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbc;
+    private UUID userId;
+    private UUID roleId;
+    private UUID otherRoleId;
+    private UUID permissionId;
+    private UUID namespaceId;
+    private UUID actionTypeId;
+
+    @BeforeAll
+    void seed() {
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("INSERT INTO \"users\"(username, email, password_hash) "
+                + "SELECT 'plan_user_' || X, 'plan_user_' || X || '@example.com', 'x' FROM SYSTEM_RANGE(1, 5000)");
+        jdbc.execute("INSERT INTO roles(role_name, role_key) "
+                + "SELECT 'Plan Role ' || X, 'PLAN_ROLE_' || X FROM SYSTEM_RANGE(1, 300)");
+        jdbc.execute("INSERT INTO role_closure(ancestor_id, descendant_id) "
+                + "SELECT role_id, role_id FROM roles WHERE role_key LIKE 'PLAN_ROLE_%'");
+        jdbc.execute("INSERT INTO permissions(permission_name, permission_key) "
+                + "SELECT 'Plan Permission ' || X, 'plan:permission_' || X FROM SYSTEM_RANGE(1, 1000)");
+        jdbc.execute("INSERT INTO user_roles(user_id, role_id) "
+                + "SELECT u.user_id, r.role_id FROM "
+                + "(SELECT user_id, ROW_NUMBER() OVER (ORDER BY username) n FROM \"users\" "
+                + "WHERE username LIKE 'plan_user_%') u JOIN "
+                + "(SELECT role_id, ROW_NUMBER() OVER (ORDER BY role_key) n FROM roles "
+                + "WHERE role_key LIKE 'PLAN_ROLE_%') r "
+                + "ON MOD(u.n, 300) = r.n - 1 OR MOD(u.n + 1, 300) = r.n - 1");
+        jdbc.execute("INSERT INTO role_permissions(role_id, permission_id) "
+                + "SELECT r.role_id, p.permission_id FROM "
+                + "(SELECT role_id, ROW_NUMBER() OVER (ORDER BY role_key) n FROM roles "
+                + "WHERE role_key LIKE 'PLAN_ROLE_%') r JOIN "
+                + "(SELECT permission_id, ROW_NUMBER() OVER (ORDER BY permission_key) n FROM permissions "
+                + "WHERE permission_key LIKE 'plan:%') p "
+                + "ON MOD(p.n, 100) = MOD(r.n, 100)");
+        jdbc.execute("INSERT INTO policy_versions(permission_id, version_number, is_default, document_json) "
+                + "SELECT p.permission_id, X, X = 3, '{}' "
+                + "FROM permissions p, SYSTEM_RANGE(1, 3) WHERE p.permission_key LIKE 'plan:%'");
+        jdbc.execute("INSERT INTO resource_access(permission_id, namespace_id, action_type_id) "
+                + "SELECT p.permission_id, (SELECT MIN(namespace_id) FROM namespaces), "
+                + "(SELECT MIN(action_type_id) FROM action_types) "
+                + "FROM permissions p WHERE p.permission_key LIKE 'plan:%'");
+        jdbc.execute("INSERT INTO role_category_scopes(role_id, category_id) "
+                + "SELECT role_id, RANDOM_UUID() FROM roles WHERE role_key LIKE 'PLAN_ROLE_%'");
+        jdbc.execute("INSERT INTO user_attributes(user_id, attr_key, attr_value) "
+                + "SELECT user_id, 'department', 'sales' FROM \"users\" WHERE username LIKE 'plan_user_%'");
+        jdbc.execute("INSERT INTO authz_change_log(change_type, user_id) "
+                + "SELECT 'USER_ROLE_GRANTED', user_id FROM \"users\"");
+        jdbc.execute("INSERT INTO user_effective_permissions(user_id, role_id, permission_id, namespace_key, action_key) "
+                + "SELECT ur.user_id, ur.role_id, rp.permission_id, 'plan', 'READ' "
+                + "FROM user_roles ur JOIN role_permissions rp ON rp.role_id = ur.role_id "
+                + "WHERE ur.role_id IN (SELECT role_id FROM roles WHERE role_key LIKE 'PLAN_ROLE_%')");
+        jdbc.execute("ANALYZE");
+
+        userId = jdbc.queryForObject("SELECT user_id FROM \"users\" WHERE username = 'plan_user_42'", UUID.class);
+        roleId = jdbc.queryForObject("SELECT role_id FROM roles WHERE role_key = 'PLAN_ROLE_7'", UUID.class);
+        otherRoleId = jdbc.queryForObject("SELECT role_id FROM roles WHERE role_key = 'PLAN_ROLE_8'", UUID.class);
+        permissionId = jdbc.queryForObject(
+                "SELECT permission_id FROM permissions WHERE permission_key = 'plan:permission_9'", UUID.class);
+        namespaceId = jdbc.queryForObject("SELECT MIN(namespace_id) FROM namespaces", UUID.class);
+        actionTypeId = jdbc.queryForObject("SELECT MIN(action_type_id) FROM action_types", UUID.class);
+    }
+
+    private Map<String, Object> cases() {
+        UserRole userRole = new UserRole();
+        userRole.setUserId(userId);
+        userRole.setRoleId(roleId);
+        RolePermission rolePermission = new RolePermission();
+        rolePermission.setRoleId(roleId);
+        rolePermission.setPermissionId(permissionId);
+        ResourceAccess resourceAccess = new ResourceAccess();
+        resourceAccess.setPermissionId(permissionId);
+        resourceAccess.setNamespaceId(namespaceId);
+        resourceAccess.setActionTypeId(actionTypeId);
+        UserRoleBulkRequest bulk = new UserRoleBulkRequest();
+        bulk.setUserIds(List.of(userId, UUID.randomUUID()));
+        List<UUID> userIds = List.of(userId, UUID.randomUUID());
+        List<UUID> roleIds = List.of(roleId, otherRoleId);
+        List<UUID> permissionIds = List.of(permissionId, UUID.randomUUID());
+
+        Map<String, Object> cases = new LinkedHashMap<>();
+        cases.put("AccessReviewMapper.findUsersByPermissions",
+                params("allowIds", permissionIds, "denyIds", List.of(UUID.randomUUID()),
+                        "unconditionalIds", List.of(permissionId)));
+        cases.put("AccessReviewMapper.findGrantedActions", permissionId);
+        cases.put("AuthzChangeMapper.findAfter", params("cursor", 4000L, "limit", 100));
+        cases.put("AuthzChangeMapper.insertForRoleMembers",
+                params("changeType", AuthzChangeType.ROLE_PARENT_ADDED, "roleId", roleId));
+        cases.put("AuthzChangeMapper.insertForPermissionRoles",
+                params("changeType", AuthzChangeType.POLICY_SEALED, "permissionId", permissionId));
+        cases.put("CategoryScopeMapper.findByRoleId", params("roleId", roleId));
+        cases.put("CategoryScopeMapper.findById", params("scopeId", UUID.randomUUID()));
+        cases.put("CategoryScopeMapper.delete", params("roleId", roleId, "scopeId", UUID.randomUUID()));
+        cases.put("CategoryScopeMapper.findEffectiveByUserId", params("userId", userId));
+        cases.put("EffectivePermissionMapper.findUserIdsByRoles", params("roleIds", roleIds));
+        cases.put("EffectivePermissionMapper.findUserIdsByPermission", permissionId);
+        cases.put("EffectivePermissionMapper.findResourcePatterns",
+                params("userId", userId, "namespace", "plan", "action", "READ", "effect", "Allow"));
+        cases.put("EffectivePermissionMapper.deleteByUserIds", params("userIds", userIds));
+        cases.put("EffectivePermissionMapper.insertByUserIds", params("userIds", userIds));
+        cases.put("PermissionMapper.findById", permissionId);
+        cases.put("PermissionMapper.findByRoleIds", params("roleIds", roleIds));
+        cases.put("PermissionMapper.findEffectiveByUserId", userId);
+        cases.put("PermissionMapper.update", permission());
+        cases.put("PermissionMapper.findDocumentVersion", permissionId);
+        cases.put("PermissionMapper.delete", permissionId);
+        // Substring search over permissions is a scan; the per-row counts must not be
+        cases.put("PolicyMapper.searchPolicies", params("usage", "BOUND", "domain", null, "search", null));
+        cases.put("PolicyMapper.countBoundRoles", permissionId);
+        cases.put("PolicyMapper.countAffectedUsers", permissionId);
+        cases.put("PolicyMapper.getPermissionName", permissionId);
+        cases.put("PolicyVersionMapper.findByPermissionId", permissionId);
+        cases.put("PolicyVersionMapper.findByPermissionIds", params("permissionIds", permissionIds));
+        cases.put("PolicyVersionMapper.findById", UUID.randomUUID());
+        cases.put("PolicyVersionMapper.findDefaultByPermissionId", permissionId);
+        cases.put("PolicyVersionMapper.clearDefaults", permissionId);
+        cases.put("PolicyVersionMapper.setAsDefault", UUID.randomUUID());
+        cases.put("PolicyVersionMapper.getMaxVersionNumber", permissionId);
+        cases.put("PolicyVersionMapper.deleteByPermissionId", permissionId);
+        cases.put("ResourceAccessMapper.delete", resourceAccess);
+        cases.put("ResourceAccessMapper.findByPermissionId", permissionId);
+        cases.put("ResourceAccessMapper.findPermissionIdsByNamespace", namespaceId);
+        cases.put("ResourceAccessMapper.findPermissionIdsByActionType", actionTypeId);
+        cases.put("RoleHierarchyMapper.deleteEdge", params("roleId", roleId, "parentId", otherRoleId));
+        cases.put("RoleHierarchyMapper.isAncestor", params("ancestorId", otherRoleId, "descendantId", roleId));
+        cases.put("RoleHierarchyMapper.addPaths", params("roleId", roleId, "parentId", otherRoleId));
+        cases.put("RoleHierarchyMapper.removePaths", params("roleId", roleId, "parentId", otherRoleId));
+        cases.put("RoleHierarchyMapper.findParents", roleId);
+        cases.put("RoleHierarchyMapper.findAncestors", roleId);
+        cases.put("RoleHierarchyMapper.findParentIds", roleId);
+        cases.put("RoleHierarchyMapper.findChildIds", roleId);
+        cases.put("RoleHierarchyMapper.findDescendants", params("roleIds", roleIds));
+        cases.put("RoleMapper.findById", roleId);
+        cases.put("RoleMapper.findByUserId", userId);
+        cases.put("RoleMapper.findByUserIds", params("userIds", userIds));
+        cases.put("RoleMapper.update", role());
+        cases.put("RoleMapper.delete", roleId);
+        cases.put("RolePermissionMapper.delete", rolePermission);
+        cases.put("RolePermissionMapper.findByRoleId", roleId);
+        cases.put("RolePermissionMapper.findByPermissionIds", params("permissionIds", permissionIds));
+        cases.put("RolePermissionMapper.findByRoleIds", params("roleIds", roleIds));
+        cases.put("UserAccessMapper.getUserAccess", userId);
+        cases.put("UserAttributeMapper.findByUserId", params("userId", userId));
+        cases.put("UserAttributeMapper.delete", params("userId", userId, "attrKey", "department"));
+        cases.put("UserAttributeMapper.deleteByUserId", params("userId", userId));
+        cases.put("UserMapper.findById", userId);
+        cases.put("UserMapper.findByUsername", "plan_user_42");
+        cases.put("UserMapper.findTaken",
+                params("usernames", List.of("plan_user_1", "new_user"), "emails", List.of("new@example.com")));
+        cases.put("UserMapper.update", user());
+        cases.put("UserMapper.delete", userId);
+        cases.put("UserRoleMapper.delete", userRole);
+        cases.put("UserRoleMapper.findByRoleIds", params("roleIds", roleIds));
+        cases.put("UserRoleMapper.updateWindow", userRole);
+        cases.put("UserRoleMapper.findEarliestExpiry", userId);
+        cases.put("UserRoleMapper.findBulkTargets", params("roleId", roleId, "query", bulk, "assign", true));
+        cases.put("UserRoleMapper.insertBulk",
+                params("roleId", roleId, "userIds", userIds, "assignedAt", LocalDateTime.now()));
+        cases.put("UserRoleMapper.deleteBulk", params("roleId", roleId, "userIds", userIds));
+        return cases;
+    }
+
+    @Test
+    void mapperStatements_DoNotScanLargeTables() throws Exception {
+        Configuration configuration = sqlSessionFactory.getConfiguration();
+        List<String> failures = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            for (Map.Entry<String, Object> entry : cases().entrySet()) {
+                String plan = explain(configuration, connection, entry.getKey(), entry.getValue());
+                Set<String> allowed = ALLOWED_SCANS.getOrDefault(entry.getKey(), Set.of());
+                Matcher matcher = TABLE_SCAN.matcher(plan);
+                while (matcher.find()) {
+                    String table = matcher.group(1);
+                    if (!SMALL_TABLES.contains(table) && !allowed.contains(table)) {
+                        failures.add(entry.getKey() + " scans " + table + ":\n" + plan);
+                    }
+                }
+            }
+        }
+        assertTrue(failures.isEmpty(), String.join("\n\n", failures));
+    }
+
+    @Test
+    void everyStatement_HasPlanCaseOrIntendedScan() {
+        Configuration configuration = sqlSessionFactory.getConfiguration();
+        Set<String> covered = cases().keySet();
+        List<String> missing = new ArrayList<>();
+        for (String mapper : MAPPERS) {
+            String namespace = "com.aitech.rbac.mapper." + mapper + ".";
+            for (String id : configuration.getMappedStatementNames()) {
+                if (!id.startsWith(namespace)
+                        || configuration.getMappedStatement(id).getSqlCommandType() == SqlCommandType.INSERT) {
+                    continue;
+                }
+                String name = mapper + "." + id.substring(namespace.length());
+                if (!covered.contains(name) && !INTENDED_SCANS.containsKey(name)) {
+                    missing.add(name);
+                }
+            }
+        }
+        assertTrue(missing.isEmpty(), "No query plan case for " + missing);
+    }
+
+    private String explain(Configuration configuration, Connection connection, String name, Object parameter)
+            throws Exception {
+        MappedStatement statement = configuration.getMappedStatement("com.aitech.rbac.mapper." + name);
+        BoundSql boundSql = statement.getBoundSql(parameter);
+        try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + boundSql.getSql())) {
+            new DefaultParameterHandler(statement, parameter, boundSql).setParameters(ps);
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1));
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    private static Map<String, Object> params(Object... keysAndValues) {
+        Map<String, Object> params = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            params.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return params;
+    }
+
+    private User user() {
+        User user = new User();
+        user.setUserId(userId);
+        user.setUsername("plan_user_42");
+        return user;
+    }
+
+    private Role role() {
+        Role role = new Role();
+        role.setRoleId(roleId);
+        role.setRoleName("Plan Role 7");
+        return role;
+    }
+
+    private Permission permission() {
+        Permission permission = new Permission();
+        permission.setPermissionId(permissionId);
+        permission.setPermissionName("Plan Permission 9");
+        return permission;
+    }
+}
@@ -0,0 +1,222 @@
+package com.aitech.rbac.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IamCenterClientTest {
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final AtomicInteger singleCalls = new AtomicInteger();
+    private final AtomicInteger batchCalls = new AtomicInteger();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final AtomicLong nanos = new AtomicLong();
+    private volatile CountDownLatch release = new CountDownLatch(0);
+    private volatile boolean revoked;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private SimpleMeterRegistry meterRegistry;
+    private IamCenterClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/iam/access/evaluate", exchange -> {
+            singleCalls.incrementAndGet();
+            JsonNode request = json.readTree(exchange.getRequestBody());
+            await(release);
+            if ("down".equals(request.path("userId").asText())) {
+                respond(exchange, 500, "{}");
+                return;
+            }
+            respond(exchange, 200, json.writeValueAsString(decide(request)));
+        });
+        server.createContext("/iam/access/evaluate/batch", exchange -> {
+            batchCalls.incrementAndGet();
+            ArrayNode responses = json.createArrayNode();
+            JsonNode requests = json.readTree(exchange.getRequestBody());
+            batchSizes.add(requests.size());
+            requests.forEach(request -> responses.add(decide(request)));
+            respond(exchange, 200, json.writeValueAsString(responses));
+        });
+        server.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        IamDecisionCache decisionCache = new IamDecisionCache(meterRegistry, nanos::get, 600, 1, 60, 1, 0.5);
+        client = new IamCenterClient(CircuitBreakerRegistry.ofDefaults(), meterRegistry, decisionCache,
+                "http://127.0.0.1:" + server.getAddress().getPort(), "test", "token",
+                10, 1000, 1000, 5000, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void concurrentIdenticalLookups_ShareOneRemoteCall() throws Exception {
+        release = new CountDownLatch(1);
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<IamCenterClient.EvaluateResponse>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> client.evaluate(request("u1", "articles", "read", "r1"), "c", null)));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.counter("rbac.iam.remote.coalesced").count() < callers - 1
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            for (Future<IamCenterClient.EvaluateResponse> result : results) {
+                assertTrue(result.get(5, TimeUnit.SECONDS).isAllowed());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, singleCalls.get());
+        assertEquals(callers - 1, meterRegistry.counter("rbac.iam.remote.coalesced").count());
+
+        client.evaluate(request("u1", "articles", "read", "r1"), "c", null);
+        assertEquals(1, singleCalls.get());
+    }
+
+    @Test
+    void keysThatConcatenateAlike_DoNotCollide() {
+        IamCenterClient.EvaluateResponse first = client.evaluate(request("ab", "c", "read", null), "c", null);
+        IamCenterClient.EvaluateResponse second = client.evaluate(request("a", "bc", "read", null), "c", null);
+        IamCenterClient.EvaluateResponse otherResource = client.evaluate(request("ab", "c", "read", "r2"), "c", null);
+
+        assertEquals(3, singleCalls.get());
+        assertEquals("ab|c|read|null", first.getReason());
+        assertEquals("a|bc|read|null", second.getReason());
+        assertEquals("ab|c|read|r2", otherResource.getReason());
+    }
+
+    @Test
+    void evaluateAll_BatchesOnlyMissesAndKeepsOrder() {
+        client.evaluate(request("u1", "articles", "read", "a"), "c", null);
+
+        List<IamCenterClient.EvaluateResponse> responses = client.evaluateAll(List.of(
+                request("u1", "articles", "read", "b"),
+                request("u1", "articles", "read", "a"),
+                request("u1", "articles", "delete", "c"),
+                request("u1", "articles", "read", "b")), "c", null);
+
+        assertEquals(List.of("u1|articles|read|b", "u1|articles|read|a", "u1|articles|delete|c",
+                "u1|articles|read|b"), responses.stream().map(IamCenterClient.EvaluateResponse::getReason).toList());
+        assertFalse(responses.get(2).isAllowed());
+        assertEquals(1, batchCalls.get());
+        assertEquals(List.of(2), batchSizes);
+
+        // Prefetched decisions are served from the cache
+        client.evaluate(request("u1", "articles", "delete", "c"), "c", null);
+        assertEquals(1, singleCalls.get());
+    }
+
+    @Test
+    void remoteFailure_FallsBackToDenyAndIsNotCached() {
+        IamCenterClient.EvaluateResponse response = client.evaluate(request("down", "articles", "read", null), "c",
+                null);
+        assertFalse(response.isAllowed());
+        assertEquals("REMOTE_IAM_UNAVAILABLE", response.getReason());
+
+        client.evaluate(request("down", "articles", "read", null), "c", null);
+        assertEquals(2, singleCalls.get());
+    }
+
+    @Test
+    void denies_ExpireOnTheirOwnShorterTtl() {
+        client.evaluate(request("u1", "articles", "read", null), "c", null);
+        client.evaluate(request("u1", "articles", "delete", null), "c", null);
+        assertEquals(2, singleCalls.get());
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        assertTrue(client.evaluate(request("u1", "articles", "read", null), "c", null).isAllowed());
+        assertFalse(client.evaluate(request("u1", "articles", "delete", null), "c", null).isAllowed());
+        assertEquals(3, singleCalls.get());
+        // One hit in four lookups
+        assertEquals(0.25, meterRegistry.get("rbac.iam.decisions.hit.ratio").gauge().value());
+        // Deny lookups probe the allow cache first without counting as its misses
+        assertEquals(0, meterRegistry.get("cache.gets").tags("outcome", "allow", "result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void refreshAhead_ReloadsHotEntryInBackground() throws InterruptedException {
+        assertTrue(client.evaluate(request("u1", "articles", "read", null), "c", null).isAllowed());
+
+        // Past half the allow TTL: the cached allow is served while it reloads
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(301));
+        revoked = true;
+        assertTrue(client.evaluate(request("u1", "articles", "read", null), "c", null).isAllowed());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (client.evaluate(request("u1", "articles", "read", null), "c", null).isAllowed()
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // The refreshed deny replaced the allow without a caller ever waiting on it
+        assertFalse(client.evaluate(request("u1", "articles", "read", null), "c", null).isAllowed());
+        assertEquals(2, singleCalls.get());
+    }
+
+    private ObjectNode decide(JsonNode request) {
+        ObjectNode response = json.createObjectNode();
+        response.put("allowed", !revoked && "read".equals(request.path("action").asText()));
+        response.put("reason", request.path("userId").asText() + "|" + request.path("namespace").asText() + "|"
+                + request.path("action").asText() + "|" + request.path("resourceId").asText(null));
+        return response;
+    }
+
+    private static IamCenterClient.EvaluateRequest request(String userId, String namespace, String action,
+            String resourceId) {
+        return IamCenterClient.EvaluateRequest.builder()
+                .userId(userId)
+                .namespace(namespace)
+                .action(action)
+                .resourceId(resourceId)
+                .build();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
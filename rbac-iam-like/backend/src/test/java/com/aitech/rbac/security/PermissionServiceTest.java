@@ -35,7 +35,8 @@ class PermissionServiceTest {
 
     @BeforeEach
     void setUp() {
-        permissionService = new IamPermissionServiceImpl(iamCenterClient);
+        permissionService = new IamPermissionServiceImpl(iamCenterClient,
+                new io.micrometer.core.instrument.simple.SimpleMeterRegistry());
         SecurityContextHolder.setContext(securityContext);
     }
 
@@ -101,6 +102,24 @@ class PermissionServiceTest {
         assertTrue(permissionService.canInCategory(catId, "articles", "write"));
     }
 
+    @Test
+    void canInCategory_DeniesLocally_WhenCategoryScopesClaimHasNoMatch() {
+        UUID catId = UUID.randomUUID();
+        setupMockJwt(Map.of(
+                "permissions", List.of("articles:read"),
+                "categoryScopes", List.of(Map.of(
+                        "categoryId", UUID.randomUUID().toString(),
+                        "allow", List.of("articles:publish")))),
+                "user-1");
+
+        PermissionDecision decision = permissionService.evaluate("articles", "publish", catId, null);
+
+        assertFalse(decision.isAllowed());
+        assertEquals(DecisionReason.DENIED_BY_DEFAULT, decision.getReasonCode());
+        assertEquals("JWT", decision.getSource());
+        verifyNoInteractions(iamCenterClient);
+    }
+
     @Test
     void evaluate_ReturnsRemoteIamDecision_WhenJwtMissing() {
         setupMockJwt(Map.of("permissions", Collections.emptyList()), "user-1");
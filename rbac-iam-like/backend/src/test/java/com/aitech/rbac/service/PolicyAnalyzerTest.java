@@ -0,0 +1,55 @@
+package com.aitech.rbac.service;
+
+import com.aitech.rbac.dto.PolicyAnalysis;
+import com.aitech.rbac.model.policy.PolicyStatement;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PolicyAnalyzerTest {
+
+    private final PolicyAnalyzer analyzer = new PolicyAnalyzer();
+
+    @Test
+    void analyze_RemovesSubsumedAndShadowedStatements() {
+        String json = """
+                {"Version": "2024-01-01", "Statement": [
+                  {"Sid": "all", "Effect": "Allow", "Action": ["orders:*"], "Resource": ["*"]},
+                  {"Sid": "read", "Effect": "Allow", "Action": ["orders:read", "orders:read"], "Resource": ["orders/1"]},
+                  {"Sid": "hr", "Effect": "Allow", "Action": ["hr:read"], "Resource": ["*"]},
+                  {"Sid": "noHr", "Effect": "Deny", "Action": ["hr:*"], "Resource": ["*"]}
+                ]}""";
+
+        PolicyAnalysis analysis = analyzer.analyze(analyzer.parse(json));
+
+        assertEquals(4, analysis.getOriginalStatements());
+        assertEquals(2, analysis.getMinimizedStatements());
+        List<String> sids = analysis.getMinimized().getStatement().stream().map(PolicyStatement::getSid).toList();
+        assertEquals(List.of("all", "noHr"), sids);
+        assertTrue(analysis.getFindings().stream()
+                .anyMatch(f -> f.getType() == PolicyAnalysis.FindingType.SHADOWED_ALLOW && "hr".equals(f.getStatement())));
+        assertTrue(analysis.getFindings().stream()
+                .anyMatch(f -> f.getType() == PolicyAnalysis.FindingType.SUBSUMED_STATEMENT && "read".equals(f.getStatement())));
+    }
+
+    @Test
+    void analyze_MergesStatementsAndKeepsConditionalOnes() {
+        String json = """
+                {"statement": [
+                  {"sid": "a", "effect": "Allow", "action": ["orders:read"], "resource": ["*"]},
+                  {"sid": "b", "effect": "Allow", "action": ["products:read"], "resource": ["*"]},
+                  {"sid": "c", "effect": "Allow", "action": ["orders:read"], "resource": ["*"],
+                   "condition": {"StringEquals": {"env:region": "eu"}}}
+                ]}""";
+
+        PolicyAnalysis analysis = analyzer.analyze(analyzer.parse(json));
+
+        // "c" is covered by the unconditional "a"; "b" merges into "a"
+        assertEquals(1, analysis.getMinimizedStatements());
+        assertEquals(List.of("orders:read", "products:read"),
+                analysis.getMinimized().getStatement().get(0).getAction());
+    }
+}
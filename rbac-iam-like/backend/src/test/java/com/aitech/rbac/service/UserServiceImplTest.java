@@ -29,12 +29,16 @@ class UserServiceImplTest {
     @Mock
     private com.aitech.rbac.service.UserAccessService userAccessService;
 
+    @Mock
+    private AuthzChangeFeedService changeFeed;
+
     private UserServiceImpl service;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        service = new UserServiceImpl(mapper, passwordEncoder, permissionService, userAccessService);
+        service = new UserServiceImpl(mapper, passwordEncoder, permissionService, userAccessService,
+                changeFeed);
     }
 
     @Test
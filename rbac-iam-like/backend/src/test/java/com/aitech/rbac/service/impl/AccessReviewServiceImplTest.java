@@ -0,0 +1,183 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.dto.GrantedAction;
+import com.aitech.rbac.mapper.AccessReviewMapper;
+import com.aitech.rbac.mapper.PermissionMapper;
+import com.aitech.rbac.model.Permission;
+import com.aitech.rbac.model.policy.PolicyDocument;
+import com.aitech.rbac.service.PolicyEvaluationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.pagehelper.PageHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccessReviewServiceImplTest {
+
+    @Mock
+    private PermissionMapper permissionMapper;
+
+    @Mock
+    private AccessReviewMapper accessReviewMapper;
+
+    @Mock
+    private PolicyEvaluationService policyEvaluationService;
+
+    @Mock
+    private CompiledPolicyCache policyCache;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final List<Permission> permissions = new ArrayList<>();
+    private final List<GrantedAction> grants = new ArrayList<>();
+    private AccessReviewServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(permissionMapper.findAll()).thenReturn(permissions);
+        when(accessReviewMapper.findAllGrantedActions()).thenReturn(grants);
+        when(policyEvaluationService.parsePolicyDocument(anyString()))
+                .thenAnswer(inv -> json.readValue(inv.getArgument(0, String.class), PolicyDocument.class));
+        when(policyCache.pattern(anyString()))
+                .thenAnswer(inv -> CompiledPolicyCache.compileWildcard(inv.getArgument(0)));
+        when(accessReviewMapper.findUsersByPermissions(any(), any(), any())).thenReturn(List.of());
+        service = new AccessReviewServiceImpl(permissionMapper, accessReviewMapper, policyEvaluationService,
+                policyCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        PageHelper.clearPage();
+    }
+
+    @Test
+    void specificResource_MatchesResourcePatterns() {
+        UUID eu = permission("""
+                {"Statement": [{"Effect": "Allow", "Action": ["orders:read"], "Resource": ["eu-*"]}]}""");
+        permission("""
+                {"Statement": [{"Effect": "Allow", "Action": ["orders:read"], "Resource": ["us-*"]}]}""");
+        service.rebuild();
+
+        service.whoCan("orders", "read", "eu-42", 1, 20);
+
+        assertEquals(Set.of(eu), allowIds());
+    }
+
+    @Test
+    void nullResource_CountsAllowsOnSomeResource() {
+        UUID scoped = permission("""
+                {"Statement": [{"Effect": "Allow", "Action": ["orders:read"], "Resource": ["eu-*"]}]}""");
+        permission("""
+                {"Statement": [{"Effect": "Allow", "Action": ["orders:read"], "NotResource": ["*"]}]}""");
+        service.rebuild();
+
+        service.whoCan("orders", "read", null, 1, 20);
+
+        // NotResource ["*"] allows nothing
+        assertEquals(Set.of(scoped), allowIds());
+    }
+
+    @Test
+    void nullResource_OnlyDeniesCoveringEveryResourceRemoveUsers() {
+        UUID allow = permission("""
+                {"Statement": [{"Effect": "Allow", "Action": ["orders:*"], "Resource": ["*"]}]}""");
+        permission("""
+                {"Statement": [{"Effect": "Deny", "Action": ["orders:read"], "Resource": ["eu-*"]}]}""");
+        UUID fullDeny = permission("""
+                {"Statement": [{"Effect": "Deny", "Action": ["orders:read"]}]}""");
+        service.rebuild();
+
+        service.whoCan("orders", "read", null, 1, 20);
+
+        ArgumentCaptor<Collection<UUID>> deny = captor();
+        verify(accessReviewMapper).findUsersByPermissions(any(), any(), deny.capture());
+        assertEquals(Set.of(allow), allowIds());
+        // The deny on eu-* leaves other resources allowed
+        assertEquals(Set.of(fullDeny), Set.copyOf(deny.getValue()));
+    }
+
+    @Test
+    void actionMatching_IsCaseSensitiveLikeTheEvaluator() {
+        permission("""
+                {"Statement": [{"Effect": "Allow", "Action": ["orders:read"], "Resource": ["*"]}]}""");
+        service.rebuild();
+
+        service.whoCan("orders", "READ", null, 1, 20);
+
+        verify(accessReviewMapper, never()).findUsersByPermissions(any(), any(), any());
+    }
+
+    @Test
+    void resourceAccessGrant_WithoutADocument_AllowsOnEveryResource() {
+        UUID plain = permission(null);
+        grant(plain, "orders", "delete");
+        grant(plain, "orders", "read");
+        permission("""
+                {"Statement": [{"Effect": "Deny", "Action": ["orders:delete"], "Resource": ["eu-*"]}]}""");
+        service.rebuild();
+
+        service.whoCan("orders", "delete", "us-1", 1, 20);
+
+        ArgumentCaptor<Collection<UUID>> unconditional = captor();
+        verify(accessReviewMapper).findUsersByPermissions(any(), unconditional.capture(), any());
+        assertEquals(Set.of(plain), allowIds());
+        assertEquals(Set.of(plain), Set.copyOf(unconditional.getValue()));
+    }
+
+    @Test
+    void resourceAccessGrant_IsReindexedWithItsPermission() {
+        UUID plain = permission(null);
+        service.rebuild();
+        when(permissionMapper.findById(plain)).thenReturn(permissions.get(0));
+        grant(plain, "orders", "delete");
+        when(accessReviewMapper.findGrantedActions(plain)).thenReturn(grants);
+
+        service.refreshPermission(plain);
+        service.whoCan("orders", "delete", null, 1, 20);
+
+        assertEquals(Set.of(plain), allowIds());
+    }
+
+    private void grant(UUID permissionId, String namespaceKey, String actionKey) {
+        GrantedAction grant = new GrantedAction();
+        grant.setPermissionId(permissionId);
+        grant.setNamespaceKey(namespaceKey);
+        grant.setActionKey(actionKey);
+        grants.add(grant);
+    }
+
+    private UUID permission(String document) {
+        Permission permission = new Permission();
+        permission.setPermissionId(UUID.randomUUID());
+        permission.setPolicyDocument(document);
+        permissions.add(permission);
+        return permission.getPermissionId();
+    }
+
+    private Set<UUID> allowIds() {
+        ArgumentCaptor<Collection<UUID>> allow = captor();
+        verify(accessReviewMapper).findUsersByPermissions(allow.capture(), any(), any());
+        return Set.copyOf(allow.getValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<Collection<UUID>> captor() {
+        return ArgumentCaptor.forClass(Collection.class);
+    }
+}
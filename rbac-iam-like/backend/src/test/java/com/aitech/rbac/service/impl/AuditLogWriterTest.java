@@ -0,0 +1,93 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.mapper.AuditLogMapper;
+import com.aitech.rbac.model.AuditLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuditLogWriterTest {
+
+    @Mock
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Mock
+    private SqlSession session;
+
+    @Mock
+    private AuditLogMapper mapper;
+
+    @Mock
+    private AuditLogPartitionRouter partitionRouter;
+
+    private AuditLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(sqlSessionFactory.openSession(any(ExecutorType.class), anyBoolean())).thenReturn(session);
+        when(session.getMapper(AuditLogMapper.class)).thenReturn(mapper);
+        when(partitionRouter.tableFor(any())).thenReturn("audit_logs_test");
+        writer = new AuditLogWriter(sqlSessionFactory, partitionRouter, new ObjectMapper(),
+                new SimpleMeterRegistry(), 100, 10, 50, AuditLogWriter.OverflowPolicy.BLOCK, "unused");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.shutdown();
+    }
+
+    @Test
+    void submit_SerializesValuesBeforeTheCallerCanMutateThem() {
+        Map<String, Object> role = new LinkedHashMap<>();
+        role.put("name", "editor");
+        AuditLog log = new AuditLog();
+        log.setCreatedAt(LocalDateTime.now());
+
+        writer.submit(log, null, role);
+        role.put("name", "admin");
+
+        ArgumentCaptor<AuditLog> written = ArgumentCaptor.forClass(AuditLog.class);
+        verify(mapper, timeout(5000)).insert(eq("audit_logs_test"), written.capture());
+        assertEquals("{\"name\":\"editor\"}", written.getValue().getNewValueJson());
+    }
+
+    @Test
+    void shutdown_WritesAPartlyFilledBatch() throws InterruptedException {
+        // A long flush interval keeps the writer waiting for more entries when shutdown starts
+        AuditLogWriter slow = new AuditLogWriter(sqlSessionFactory, partitionRouter, new ObjectMapper(),
+                new SimpleMeterRegistry(), 100, 100, 1000, AuditLogWriter.OverflowPolicy.BLOCK, "unused");
+        for (int i = 0; i < 5; i++) {
+            AuditLog log = new AuditLog();
+            log.setCreatedAt(LocalDateTime.now());
+            slow.submit(log, null, null);
+        }
+        Thread.sleep(200);
+
+        slow.shutdown();
+
+        verify(mapper, times(5)).insert(eq("audit_logs_test"), any(AuditLog.class));
+        verify(session).commit();
+    }
+}
@@ -0,0 +1,130 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.dto.AuthzChangePage;
+import com.aitech.rbac.mapper.AuditLogMapper;
+import com.aitech.rbac.mapper.PermissionMapper;
+import com.aitech.rbac.mapper.RoleMapper;
+import com.aitech.rbac.model.AuthzChange;
+import com.aitech.rbac.model.AuthzChangeType;
+import com.aitech.rbac.model.Permission;
+import com.aitech.rbac.security.GrantRevocations;
+import com.aitech.rbac.service.AuthzChangeFeedService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CompiledPolicyCacheTest {
+
+    @Mock
+    private PermissionMapper permissionMapper;
+
+    @Mock
+    private RoleMapper roleMapper;
+
+    @Mock
+    private AuditLogMapper auditLogMapper;
+
+    @Mock
+    private AuditLogPartitionRouter partitionRouter;
+
+    @Mock
+    private AuthzChangeFeedService changeFeed;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final UUID permissionId = UUID.randomUUID();
+    private final UUID userId = UUID.randomUUID();
+    private CompiledPolicyCache cache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(roleMapper.findByUserId(userId)).thenReturn(List.of());
+        cache = new CompiledPolicyCache(permissionMapper, roleMapper, auditLogMapper, partitionRouter, changeFeed,
+                new GrantRevocations(3_600_000), eventPublisher, new SimpleMeterRegistry(),
+                100, 10, 60, 1, 0, 7, 1000);
+    }
+
+    @Test
+    void invalidatedDocument_IsReloadedAtTheNewVersion() {
+        when(permissionMapper.findById(permissionId)).thenReturn(permission("v1", 1));
+        assertEquals("v1", cache.policy(permissionId).document().getId());
+
+        when(permissionMapper.findById(permissionId)).thenReturn(permission("v2", 2));
+        when(permissionMapper.findDocumentVersion(permissionId)).thenReturn(2L);
+        cache.invalidatePermission(permissionId);
+
+        assertEquals("v2", cache.policy(permissionId).document().getId());
+        assertEquals("v2", cache.policy(permissionId).document().getId());
+        verify(permissionMapper, times(2)).findById(permissionId);
+    }
+
+    @Test
+    void loadOlderThanTheFloor_IsServedButNotCached() {
+        when(permissionMapper.findDocumentVersion(permissionId)).thenReturn(2L);
+        cache.invalidatePermission(permissionId);
+
+        // A snapshot load that read the row before the edit committed
+        when(permissionMapper.findEffectiveByUserId(userId)).thenReturn(List.of(permission("v1", 1)));
+        cache.snapshot(userId);
+
+        when(permissionMapper.findById(permissionId)).thenReturn(permission("v2", 2));
+        assertEquals("v2", cache.policy(permissionId).document().getId());
+    }
+
+    @Test
+    void olderLoad_DoesNotReplaceANewerEntry() {
+        when(permissionMapper.findById(permissionId)).thenReturn(permission("v2", 2));
+        cache.policy(permissionId);
+
+        when(permissionMapper.findEffectiveByUserId(userId)).thenReturn(List.of(permission("v1", 1)));
+        cache.snapshot(userId);
+
+        assertEquals("v2", cache.policy(permissionId).document().getId());
+    }
+
+    @Test
+    void permissionChangedOnTheFeed_EvictsTheDocument() {
+        when(changeFeed.head()).thenReturn(0L);
+        when(permissionMapper.findAll()).thenReturn(List.of());
+        cache.warmUp();
+
+        when(permissionMapper.findById(permissionId)).thenReturn(permission("v1", 1));
+        cache.policy(permissionId);
+
+        AuthzChange change = new AuthzChange();
+        change.setChangeType(AuthzChangeType.PERMISSION_CHANGED);
+        change.setPermissionId(permissionId);
+        when(changeFeed.read(anyLong(), anyInt())).thenReturn(new AuthzChangePage(List.of(change), 1, false));
+        when(permissionMapper.findDocumentVersion(permissionId)).thenReturn(null);
+        cache.followChangeFeed();
+
+        // Deleted on another instance
+        when(permissionMapper.findById(permissionId)).thenReturn(null);
+        assertNull(cache.policy(permissionId));
+    }
+
+    private Permission permission(String documentId, long version) {
+        Permission permission = new Permission();
+        permission.setPermissionId(permissionId);
+        permission.setPermissionName("TEST");
+        permission.setPolicyDocument("{\"Id\": \"" + documentId + "\", \"Statement\": []}");
+        permission.setDocumentVersion(version);
+        return permission;
+    }
+}
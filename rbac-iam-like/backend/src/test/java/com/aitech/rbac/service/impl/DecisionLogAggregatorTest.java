@@ -0,0 +1,124 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.model.AuditLog;
+import com.aitech.rbac.security.DecisionReason;
+import com.aitech.rbac.security.PermissionDecision;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class DecisionLogAggregatorTest {
+
+    @Mock
+    private AuditLogWriter auditLogWriter;
+
+    private SimpleMeterRegistry meterRegistry;
+    private final UUID actor = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void firstOccurrences_AreWrittenEvenWithTheSampleLimitExhausted() {
+        DecisionLogAggregator aggregator = aggregator(1.0, 0, 100);
+
+        for (int i = 0; i < 5; i++) {
+            aggregator.record(decision(true, "doc-" + i), log(), "details");
+        }
+
+        verify(auditLogWriter, times(5)).submit(any(AuditLog.class), isNull(), eq("details"));
+    }
+
+    @Test
+    void repeatedDenies_AreFoldedIntoOneAggregateRow() {
+        DecisionLogAggregator aggregator = aggregator(1.0, 100, 100);
+
+        for (int i = 0; i < 4; i++) {
+            aggregator.record(decision(false, "doc-1"), log(), "details");
+        }
+        verify(auditLogWriter, times(1)).submit(any(AuditLog.class), isNull(), eq("details"));
+        assertEquals(3, meterRegistry.counter("rbac.audit.decisions", "written", "aggregated").count());
+
+        aggregator.flushWindows();
+
+        ArgumentCaptor<AuditLog> row = ArgumentCaptor.forClass(AuditLog.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> value = ArgumentCaptor.forClass(Map.class);
+        verify(auditLogWriter).submit(row.capture(), isNull(), value.capture());
+        assertEquals(DecisionLogAggregator.AGGREGATE_ACTION, row.getValue().getActionType());
+        assertEquals(4L, value.getValue().get("count"));
+        assertEquals(1L, value.getValue().get("loggedIndividually"));
+    }
+
+    @Test
+    void repeatedAllows_AreSampledWithinThePerSecondLimit() {
+        DecisionLogAggregator aggregator = aggregator(1.0, 2, 100);
+
+        for (int i = 0; i < 5; i++) {
+            aggregator.record(decision(true, "doc-1"), log(), "details");
+        }
+
+        // The first occurrence plus two sampled repeats
+        verify(auditLogWriter, times(3)).submit(any(AuditLog.class), isNull(), eq("details"));
+        assertEquals(2, meterRegistry.counter("rbac.audit.decisions", "written", "sampled_out").count());
+    }
+
+    @Test
+    void pastMaxKeys_DeniesAreStillWrittenAndAllowsGoThroughTheLimit() {
+        DecisionLogAggregator aggregator = aggregator(0.0, 0, 1);
+        aggregator.record(decision(true, "tracked"), log(), "details");
+
+        aggregator.record(decision(false, "doc-1"), log(), "deny");
+        aggregator.record(decision(false, "doc-2"), log(), "deny");
+        aggregator.record(decision(true, "doc-3"), log(), "allow");
+        aggregator.record(decision(true, "doc-4"), log(), "allow");
+
+        verify(auditLogWriter, times(2)).submit(any(AuditLog.class), isNull(), eq("deny"));
+        verify(auditLogWriter, never()).submit(any(AuditLog.class), isNull(), eq("allow"));
+        assertEquals(4, meterRegistry.counter("rbac.audit.decisions", "written", "overflow").count());
+
+        // Untracked keys leave nothing to aggregate
+        aggregator.flushWindows();
+        verify(auditLogWriter, never()).submit(any(AuditLog.class), isNull(), any(Map.class));
+    }
+
+    private DecisionLogAggregator aggregator(double allowSampleRate, int sampledPerSecond, int maxKeys) {
+        return new DecisionLogAggregator(auditLogWriter, meterRegistry, allowSampleRate, sampledPerSecond, maxKeys);
+    }
+
+    private AuditLog log() {
+        AuditLog log = new AuditLog();
+        log.setActorUserId(actor);
+        log.setCreatedAt(LocalDateTime.now());
+        return log;
+    }
+
+    private static PermissionDecision decision(boolean allowed, String resourceId) {
+        return PermissionDecision.builder()
+                .allowed(allowed)
+                .reasonCode(allowed ? DecisionReason.ALLOWED_BY_JWT : DecisionReason.DENIED_BY_DEFAULT)
+                .source("JWT")
+                .namespace("articles")
+                .action("read")
+                .resourceId(resourceId)
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.aitech.rbac.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void advance_ReturnsItemsAtDeadlineNeverEarly() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 0);
+        wheel.schedule(250, "a");
+        wheel.schedule(250_000, "b");
+
+        assertTrue(wheel.advance(299).isEmpty());
+        assertEquals(300, wheel.nextExpiration());
+        assertEquals(List.of("a"), wheel.advance(300));
+
+        // "b" sits three levels up and cascades down as time passes
+        assertTrue(wheel.advance(249_999).isEmpty());
+        assertEquals(List.of("b"), wheel.advance(250_000));
+        assertEquals(0, wheel.size());
+        assertEquals(Long.MAX_VALUE, wheel.nextExpiration());
+    }
+
+    @Test
+    void advance_RandomDeadlines_EachFiresWithinOneTick() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(100, 16, 1_000);
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            wheel.schedule(1_000 + random.nextInt(10_000_000), (long) i);
+        }
+        wheel.schedule(500, -1L);
+
+        List<Long> fired = new ArrayList<>();
+        // Step through time irregularly, as a driver that wakes late would
+        for (long now = 1_000; wheel.size() > 0; now += 1 + random.nextInt(50_000)) {
+            for (Long item : wheel.advance(now)) {
+                fired.add(item);
+            }
+        }
+
+        assertEquals(5_001, fired.size());
+        assertEquals(-1L, fired.get(0));
+    }
+
+    @Test
+    void advance_FiresExactlyOnTickBoundary() {
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(100, 4, 0);
+        Random random = new Random(7);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            long deadline = 1 + random.nextInt(1_000_000);
+            deadlines.add(deadline);
+            wheel.schedule(deadline, i);
+        }
+
+        for (long now = 0; wheel.size() > 0; now += 100) {
+            for (Integer item : wheel.advance(now)) {
+                long deadline = deadlines.get(item);
+                assertTrue(now >= deadline && now - deadline < 100, "fired at " + now + " for " + deadline);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.dto.StockReservationRequest;
+import com.aitech.rbac.mapper.ProductMapper;
+import com.aitech.rbac.model.Product;
+import com.aitech.rbac.service.InsufficientStockException;
+import com.aitech.rbac.service.InventoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Many threads against one hot product: every successful decrement must be
+ * reflected in the final stock and stock must never go negative.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:inventory-${random.uuid};DB_CLOSE_DELAY=-1",
+        "logging.level.root=WARN"
+})
+class InventoryServiceConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 50;
+    private static final int INITIAL_STOCK = 1000;
+
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Test
+    void adjustStock_HotProduct_NoLostUpdatesAndNeverNegative() throws Exception {
+        Product product = createProduct(INITIAL_STOCK);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(() -> {
+            try {
+                inventoryService.adjustStock(product.getProductId(), -1);
+                succeeded.incrementAndGet();
+            } catch (InsufficientStockException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        Product after = productMapper.findById(product.getProductId());
+        assertEquals(INITIAL_STOCK, succeeded.get());
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD - INITIAL_STOCK, rejected.get());
+        assertEquals(0, after.getStockQuantity());
+        assertEquals(INITIAL_STOCK, after.getVersion());
+    }
+
+    @Test
+    void reserve_ConcurrentMultiSku_AllOrNothing() throws Exception {
+        Product hot = createProduct(700);
+        Product other = createProduct(THREADS * ATTEMPTS_PER_THREAD);
+        AtomicInteger succeeded = new AtomicInteger();
+
+        runConcurrently(() -> {
+            try {
+                inventoryService.reserve(List.of(item(hot.getSku(), 1), item(other.getSku(), 1)));
+                succeeded.incrementAndGet();
+            } catch (InsufficientStockException e) {
+                // expected once the hot product runs out
+            }
+        });
+
+        assertEquals(700, succeeded.get());
+        assertEquals(0, productMapper.findById(hot.getProductId()).getStockQuantity());
+        // Rejected reservations must not have taken stock from the other SKU
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD - 700,
+                productMapper.findById(other.getProductId()).getStockQuantity());
+    }
+
+    @Test
+    void update_StaleVersion_Conflicts() {
+        Product product = createProduct(10);
+        Product first = productMapper.findById(product.getProductId());
+        Product second = productMapper.findById(product.getProductId());
+
+        first.setPrice(new BigDecimal("12.00"));
+        inventoryService.update(product.getProductId(), first);
+
+        second.setStockQuantity(99);
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> inventoryService.update(product.getProductId(), second));
+        assertEquals(10, productMapper.findById(product.getProductId()).getStockQuantity());
+    }
+
+    private void runConcurrently(Runnable attempt) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    attempt.run();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    private Product createProduct(int stock) {
+        Product product = new Product();
+        product.setProductId(UUID.randomUUID());
+        product.setProductName("Hot product");
+        product.setSku("HOT-" + product.getProductId());
+        product.setPrice(new BigDecimal("10.00"));
+        product.setStockQuantity(stock);
+        productMapper.insert(product);
+        return product;
+    }
+
+    private static StockReservationRequest.Item item(String sku, int quantity) {
+        StockReservationRequest.Item item = new StockReservationRequest.Item();
+        item.setSku(sku);
+        item.setQuantity(quantity);
+        return item;
+    }
+}
@@ -0,0 +1,97 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.mapper.PermissionMapper;
+import com.aitech.rbac.mapper.RoleMapper;
+import com.aitech.rbac.mapper.UserMapper;
+import com.aitech.rbac.model.User;
+import com.aitech.rbac.model.policy.AccessRequest;
+import com.aitech.rbac.model.policy.PolicyDocument;
+import com.aitech.rbac.model.policy.PolicyStatement;
+import com.aitech.rbac.service.UserAttributeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class PolicyEvaluationPrincipalConditionTest {
+
+    @Mock
+    private UserMapper userMapper;
+    @Mock
+    private RoleMapper roleMapper;
+    @Mock
+    private PermissionMapper permissionMapper;
+    @Mock
+    private CompiledPolicyCache policyCache;
+    @Mock
+    private UserAttributeService userAttributes;
+
+    private PolicyEvaluationServiceImpl service;
+    private final UUID userId = UUID.randomUUID();
+    private final UUID permissionId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        service = new PolicyEvaluationServiceImpl(userMapper, roleMapper, permissionMapper, new SimpleMeterRegistry(),
+                policyCache, userAttributes);
+        User user = new User();
+        user.setUserId(userId);
+        when(userMapper.findById(userId)).thenReturn(user);
+        when(policyCache.snapshot(userId)).thenReturn(new CompiledPolicyCache.UserSnapshot(true, List.of(permissionId)));
+        when(policyCache.pattern(anyString())).thenAnswer(inv -> Pattern.compile(Pattern.quote(inv.getArgument(0))));
+    }
+
+    @Test
+    void principalCondition_ResolvedFromAttributeStoreNotCallerContext() {
+        usePolicy(Map.of("StringEquals", Map.of("principal:department", "sales")));
+
+        when(userAttributes.getAttributes(userId)).thenReturn(Map.of("department", "hr"));
+        assertFalse(service.evaluateAccess(request(Map.of("principal:department", "sales"))).isAllowed());
+
+        when(userAttributes.getAttributes(userId)).thenReturn(Map.of("department", "sales"));
+        assertTrue(service.evaluateAccess(request(null)).isAllowed());
+    }
+
+    @Test
+    void noPrincipalCondition_AttributesNeverLoaded() {
+        usePolicy(Map.of("Bool", Map.of("aws:MultiFactorAuthPresent", "true")));
+
+        assertTrue(service.evaluateAccess(request(Map.of("aws:MultiFactorAuthPresent", true))).isAllowed());
+        verifyNoInteractions(userAttributes);
+    }
+
+    private void usePolicy(Map<String, Map<String, Object>> condition) {
+        PolicyStatement statement = new PolicyStatement();
+        statement.setEffect(PolicyStatement.Effect.Allow);
+        statement.setAction(List.of("orders:READ"));
+        statement.setResource(List.of("*"));
+        statement.setCondition(condition);
+        PolicyDocument document = new PolicyDocument();
+        document.setName("test");
+        document.setStatement(List.of(statement));
+        when(policyCache.policy(permissionId))
+                .thenReturn(new CompiledPolicyCache.CompiledPolicy(permissionId, "TEST", document));
+    }
+
+    private AccessRequest request(Map<String, Object> context) {
+        AccessRequest request = new AccessRequest();
+        request.setUserId(userId.toString());
+        request.setNamespace("orders");
+        request.setAction("READ");
+        request.setContext(context);
+        return request;
+    }
+}
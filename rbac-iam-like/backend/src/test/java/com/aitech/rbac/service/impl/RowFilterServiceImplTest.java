@@ -0,0 +1,117 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.dto.RowFilter;
+import com.aitech.rbac.dto.RowFilter.ResourceClause;
+import com.aitech.rbac.mapper.EffectivePermissionMapper;
+import com.aitech.rbac.mapper.UserMapper;
+import com.aitech.rbac.model.User;
+import com.aitech.rbac.model.policy.PolicyDocument;
+import com.aitech.rbac.service.RowFilterService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+class RowFilterServiceImplTest {
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private EffectivePermissionMapper effectivePermissionMapper;
+
+    @Mock
+    private CompiledPolicyCache policyCache;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final UUID userId = UUID.randomUUID();
+    private final UUID permissionId = UUID.randomUUID();
+    private RowFilterServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        User user = new User();
+        user.setUserId(userId);
+        user.setActive(true);
+        when(userMapper.findByUsername("alice")).thenReturn(user);
+        when(effectivePermissionMapper.findResourcePatterns(eq(userId), anyString(), anyString(), anyString()))
+                .thenReturn(List.of());
+        when(policyCache.snapshot(userId)).thenReturn(new CompiledPolicyCache.UserSnapshot(true, List.of(permissionId)));
+        when(policyCache.pattern(anyString()))
+                .thenAnswer(inv -> CompiledPolicyCache.compileWildcard(inv.getArgument(0)));
+        service = new RowFilterServiceImpl(userMapper, effectivePermissionMapper, policyCache);
+    }
+
+    @Test
+    void allowStatement_BecomesAnAllowClause() throws Exception {
+        document("""
+                {"Statement": [{"Effect": "Allow", "Action": ["orders:read"], "Resource": ["eu-*"]}]}""");
+
+        RowFilter filter = service.compile("alice", "orders", "read");
+
+        assertFalse(filter.isDenyAll());
+        assertEquals(List.of(new ResourceClause(List.of("eu-%"), false)), filter.getAllow());
+        assertTrue(filter.getDeny().isEmpty());
+    }
+
+    @Test
+    void denyStatement_BecomesADenyClause() throws Exception {
+        document("""
+                {"Statement": [
+                  {"Effect": "Allow", "Action": ["orders:*"], "Resource": ["*"]},
+                  {"Effect": "Deny", "Action": ["orders:read"], "NotResource": ["public-?"]}
+                ]}""");
+
+        RowFilter filter = service.compile("alice", "orders", "read");
+
+        assertFalse(filter.isDenyAll());
+        assertTrue(filter.getAllow().isEmpty());
+        assertEquals(List.of(new ResourceClause(List.of("public-_"), true)), filter.getDeny());
+    }
+
+    @Test
+    void notAction_AppliesOnlyToActionsOutsideTheList() throws Exception {
+        document("""
+                {"Statement": [
+                  {"Effect": "Allow", "Action": ["orders:*"], "Resource": ["*"]},
+                  {"Effect": "Deny", "NotAction": ["orders:read"], "Resource": ["*"]}
+                ]}""");
+
+        assertFalse(service.compile("alice", "orders", "read").isDenyAll());
+        assertTrue(service.compile("alice", "orders", "delete").isDenyAll());
+    }
+
+    @Test
+    void actionMatching_IsCaseSensitiveLikeTheEvaluator() throws Exception {
+        document("""
+                {"Statement": [{"Effect": "Allow", "Action": ["orders:read"], "Resource": ["*"]}]}""");
+
+        assertFalse(service.compile("alice", "orders", "read").isDenyAll());
+        assertTrue(service.compile("alice", "orders", "READ").isDenyAll());
+    }
+
+    @Test
+    void toLikePattern_EscapesLikeWildcards() {
+        assertEquals("50\\%\\_off%", RowFilterService.toLikePattern("50%_off*"));
+        assertEquals("a_b\\\\c", RowFilterService.toLikePattern("a?b\\c"));
+    }
+
+    private void document(String policyJson) throws Exception {
+        PolicyDocument document = json.readValue(policyJson, PolicyDocument.class);
+        when(policyCache.policy(any()))
+                .thenReturn(new CompiledPolicyCache.CompiledPolicy(permissionId, "TEST", document));
+    }
+}
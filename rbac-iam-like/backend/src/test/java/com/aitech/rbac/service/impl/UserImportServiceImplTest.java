@@ -0,0 +1,199 @@
+package com.aitech.rbac.service.impl;
+
+import com.aitech.rbac.dto.UserImportEvent;
+import com.aitech.rbac.dto.UserImportFormat;
+import com.aitech.rbac.mapper.RoleMapper;
+import com.aitech.rbac.mapper.UserMapper;
+import com.aitech.rbac.mapper.UserRoleMapper;
+import com.aitech.rbac.model.Role;
+import com.aitech.rbac.model.User;
+import com.aitech.rbac.service.AuthzChangeFeedService;
+import com.aitech.rbac.service.EffectivePermissionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserImportServiceImplTest {
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private RoleMapper roleMapper;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private AuthzChangeFeedService changeFeed;
+
+    @Mock
+    private EffectivePermissionService effectivePermissions;
+
+    @Mock
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Mock
+    private SqlSession session;
+
+    @Mock
+    private UserMapper batchUsers;
+
+    @Mock
+    private UserRoleMapper batchUserRoles;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final List<User> taken = new ArrayList<>();
+    private UserImportServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        Role editor = new Role();
+        editor.setRoleId(UUID.randomUUID());
+        editor.setRoleKey("EDITOR");
+        when(roleMapper.findAll(null)).thenReturn(List.of(editor));
+        when(userMapper.findTaken(any(), any())).thenReturn(taken);
+        when(passwordEncoder.encode(anyString())).thenAnswer(inv -> "hashed:" + inv.getArgument(0));
+        when(sqlSessionFactory.openSession(ExecutorType.BATCH)).thenReturn(session);
+        when(session.getMapper(UserMapper.class)).thenReturn(batchUsers);
+        when(session.getMapper(UserRoleMapper.class)).thenReturn(batchUserRoles);
+        service = new UserImportServiceImpl(userMapper, roleMapper, passwordEncoder, changeFeed,
+                effectivePermissions, sqlSessionFactory, transactionManager, 2, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void csv_QuotedFieldsMaySpanLines() throws Exception {
+        List<UserImportEvent> report = importUsers(UserImportFormat.CSV,
+                "username,email,password,roles\n"
+                        + "alice,alice@example.com,\"pa,ss\n\"\"word\"\"\",EDITOR\n"
+                        + "bob,bob@example.com,secret,UNKNOWN\n");
+
+        assertEquals(List.of("alice"), insertedUsernames());
+        verify(passwordEncoder).encode("pa,ss\n\"word\"");
+        // Line numbers count physical lines, so bob starts after alice's two
+        assertEquals(List.of(error(4, "bob", "Unknown role: UNKNOWN")), errors(report));
+        assertEquals(totals(UserImportEvent.Type.DONE, 2, 1, 1), report.get(report.size() - 1));
+    }
+
+    @Test
+    void csv_HeaderMatchesWithBomCaseAndColumnOrder() throws Exception {
+        List<UserImportEvent> report = importUsers(UserImportFormat.CSV,
+                "\uFEFFPassword,Notes,EMAIL,Username\r\nsecret,ignored,alice@example.com,alice\r\n");
+
+        assertEquals(List.of("alice"), insertedUsernames());
+        assertEquals(List.of(), errors(report));
+    }
+
+    @Test
+    void csv_HeaderWithoutARequiredColumn_IsRejected() {
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> importUsers(UserImportFormat.CSV, "username,email\nalice,alice@example.com\n"));
+
+        assertEquals("CSV header is missing column: password", thrown.getMessage());
+    }
+
+    @Test
+    void duplicates_RejectedRowsDoNotClaimTheirNames() throws Exception {
+        User existing = new User();
+        existing.setUsername("carol");
+        existing.setEmail("other@example.com");
+        taken.add(existing);
+
+        List<UserImportEvent> report = importUsers(UserImportFormat.NDJSON, """
+                {"username": "alice", "email": "a@example.com", "password": "secret"}
+                {"username": "bob", "email": "a@example.com", "password": "secret"}
+                {"username": "carol", "email": "c@example.com", "password": "secret"}
+                {"username": "bob", "email": "b@example.com", "password": "secret"}
+                {"username": "dave", "email": "c@example.com", "password": "secret"}
+                {"username": "alice", "email": "d@example.com", "password": "secret"}
+                """);
+
+        // bob and c@example.com stay free after their first rows were rejected
+        assertEquals(List.of("alice", "bob", "dave"), insertedUsernames());
+        assertEquals(List.of(
+                error(2, "bob", "Duplicate email in import"),
+                error(3, "carol", "Username already exists"),
+                error(6, "alice", "Duplicate username in import")), errors(report));
+    }
+
+    @Test
+    void failedChunk_IsReportedPerRowAndLeavesItsNamesFree() throws Exception {
+        doThrow(new IllegalStateException("connection reset")).doNothing().when(batchUsers).insert(any());
+
+        List<UserImportEvent> report = importUsers(UserImportFormat.NDJSON, """
+                {"username": "alice", "email": "a@example.com", "password": "secret"}
+                {"username": "bob", "email": "b@example.com", "password": "secret"}
+                {"username": "alice", "email": "a@example.com", "password": "secret"}
+                """);
+
+        assertEquals(List.of(
+                error(1, "alice", "Chunk not imported: connection reset"),
+                error(2, "bob", "Chunk not imported: connection reset")), errors(report));
+        assertEquals(totals(UserImportEvent.Type.PROGRESS, 2, 0, 2), report.get(2));
+        assertEquals(totals(UserImportEvent.Type.DONE, 3, 1, 2), report.get(report.size() - 1));
+        verify(batchUsers, times(2)).insert(any());
+    }
+
+    private List<UserImportEvent> importUsers(UserImportFormat format, String input) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.importUsers(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), format, out);
+        List<UserImportEvent> events = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            events.add(json.readValue(line, UserImportEvent.class));
+        }
+        return events;
+    }
+
+    private List<String> insertedUsernames() {
+        ArgumentCaptor<User> users = ArgumentCaptor.forClass(User.class);
+        verify(batchUsers, atLeast(0)).insert(users.capture());
+        return users.getAllValues().stream().map(User::getUsername).toList();
+    }
+
+    private static List<UserImportEvent> errors(List<UserImportEvent> report) {
+        return report.stream().filter(event -> event.getType() == UserImportEvent.Type.ERROR).toList();
+    }
+
+    private static UserImportEvent error(long line, String username, String message) {
+        return UserImportEvent.error(line, username, message);
+    }
+
+    private static UserImportEvent totals(UserImportEvent.Type type, long processed, long created, long failed) {
+        return UserImportEvent.totals(type, processed, created, failed);
+    }
+}
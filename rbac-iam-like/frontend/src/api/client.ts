@@ -14,6 +14,18 @@ axiosInstance.interceptors.request.use((config) => {
     return config;
 });
 
+// Row-filtered lists are paged server-side (at most 500 rows per page); fetch every page
+const listAllPages = async (url: string) => {
+    const rows: any[] = [];
+    for (let page = 1; ; page++) {
+        const { data } = await axiosInstance.get(url, { params: { page, size: 500 } });
+        rows.push(...data.content);
+        if (page >= data.totalPages || data.content.length === 0) {
+            return rows;
+        }
+    }
+};
+
 export const api = {
     auth: {
         login: (credentials: any) => axiosInstance.post('/auth/login', credentials).then(res => res.data),
@@ -77,11 +89,11 @@ export const api = {
         revokeResourceAccess: (data: any) => axiosInstance.delete('/resource-access', { data }),
     },
     orders: {
-        list: () => axiosInstance.get('/orders').then(res => res.data),
+        list: () => listAllPages('/orders'),
         get: (id: string) => axiosInstance.get(`/orders/${id}`).then(res => res.data),
     },
     inventory: {
-        list: () => axiosInstance.get('/inventory').then(res => res.data),
+        list: () => listAllPages('/inventory'),
         get: (id: string) => axiosInstance.get(`/inventory/${id}`).then(res => res.data),
     }
 };
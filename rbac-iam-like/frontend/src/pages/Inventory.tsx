@@ -73,7 +73,7 @@ export default function Inventory() {
         };
 
         if (editingProduct) {
-            updateMutation.mutate({ ...data, productId: editingProduct.productId });
+            updateMutation.mutate({ ...data, productId: editingProduct.productId, version: editingProduct.version });
         } else {
             createMutation.mutate(data);
         }